@@ -2,9 +2,23 @@ package io.github.lekan128.aiagent.api;
 
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.github.lekan128.aiagent.api.batch.AgentQuery;
+import io.github.lekan128.aiagent.api.batch.BatchResult;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.conversation.ConversationStore;
 import io.github.lekan128.aiagent.api.llm.LLM;
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+import io.github.lekan128.aiagent.api.metrics.MetricsSnapshot;
+import io.github.lekan128.aiagent.api.tool.ToolInstanceProvider;
+import io.github.lekan128.aiagent.api.tracing.Span;
+import io.github.lekan128.aiagent.api.tracing.SpanExporter;
 
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Represents the core Artificial Intelligence (AI) Agent defined in the ai-agent-core library.
@@ -56,4 +70,268 @@ public interface Agent {
      * of the specified class, field, method, or constructor.
      */
     <T> T useAgent(String userQuery, String aiPersona, LLM llm, Class<T> responseClass) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Executes the main agent functionality like {@link #useAgent(String, String, LLM, Class)}, without blocking
+     * the calling thread.
+     *
+     * <p>The planning call, the tool execution and the final call are chained on {@link LLM#callAsync(String)} and
+     * the tool executor, so no thread waits for the LLM while the agent runs (provided the {@code LLM} implements
+     * {@code callAsync} with a non-blocking client, as {@code Gemini} does).</p>
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @return A future of the structured response. It completes exceptionally with the same exceptions
+     * {@link #useAgent(String, String, LLM, Class)} throws, wrapped in a {@code CompletionException}.
+     */
+    <T> CompletableFuture<T> useAgentAsync(String userQuery, String aiPersona, LLM llm, Class<T> responseClass);
+
+    /**
+     * Executes the main agent functionality like {@link #useAgent(String, String, LLM, Class)} within a timeout,
+     * instead of the one of the {@link AgentConfig} of the agent.
+     *
+     * <p>The timeout is split between the phases of the call: the planning call must return within 40% of it (70% when
+     * {@link AgentConfig#isDirectAnswer()}), the tool calls must be done by 70% of it, and the final call takes the rest.
+     * The time a phase does not use is left to the next ones. When a phase runs out of time, the running tool methods
+     * are interrupted, the pending LLM call is abandoned and an {@link AgentTimeoutException} is thrown. Interrupting the
+     * calling thread cancels the call the same way.</p>
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @param timeout The timeout of the call, zero for none.
+     * @return An instance of type {@code T} containing the structured response data.
+     * @throws JsonProcessingException If there is an error during the deserialization of the LLM's raw response.
+     * @throws ClassNotFoundException If the system cannot find a required class during processing.
+     * @throws InvocationTargetException If the underlying method invocation fails.
+     * @throws NoSuchMethodException If a required constructor or method is not found.
+     * @throws InstantiationException If the system is unable to create a new instance.
+     * @throws IllegalAccessException If the application does not have access to a definition.
+     * @since 1.1.0
+     */
+    <T> T useAgent(String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Executes the main agent functionality like {@link #useAgentAsync(String, String, LLM, Class)} within a timeout,
+     * split between the phases of the call like {@link #useAgent(String, String, LLM, Class, Duration)}.
+     *
+     * <p>Cancelling the returned future abandons the pending LLM call and interrupts the running tool methods.</p>
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @param timeout The timeout of the call, zero for none.
+     * @return A future of the structured response. It completes exceptionally with an {@link AgentTimeoutException}
+     * when the call runs out of time.
+     * @since 1.1.0
+     */
+    <T> CompletableFuture<T> useAgentAsync(String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout);
+
+    /**
+     * Executes the main agent functionality like {@link #useAgent(String, String, LLM, Class)} as one turn of a
+     * conversation: the turns kept for the session by the {@link ConversationStore} are given to the LLM as the chat
+     * history, and the new turn is added to them once the response is received.
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @return An instance of type {@code T} containing the structured response data.
+     * @throws JsonProcessingException If there is an error during the deserialization of the LLM's raw response.
+     * @throws ClassNotFoundException If the system cannot find a required class during processing.
+     * @throws InvocationTargetException If the underlying method invocation fails.
+     * @throws NoSuchMethodException If a required constructor or method is not found.
+     * @throws InstantiationException If the system is unable to create a new instance.
+     * @throws IllegalAccessException If the application does not have access to a definition.
+     * @since 1.1.0
+     */
+    <T> T useAgent(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgent(String, String, String, LLM, Class)}, without blocking
+     * the calling thread.
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @return A future of the structured response.
+     * @since 1.1.0
+     */
+    <T> CompletableFuture<T> useAgentAsync(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass);
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgent(String, String, String, LLM, Class)} within a timeout,
+     * split between the phases of the call like {@link #useAgent(String, String, LLM, Class, Duration)}.
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @param timeout The timeout of the call, zero for none.
+     * @return An instance of type {@code T} containing the structured response data.
+     * @throws JsonProcessingException If there is an error during the deserialization of the LLM's raw response.
+     * @throws ClassNotFoundException If the system cannot find a required class during processing.
+     * @throws InvocationTargetException If the underlying method invocation fails.
+     * @throws NoSuchMethodException If a required constructor or method is not found.
+     * @throws InstantiationException If the system is unable to create a new instance.
+     * @throws IllegalAccessException If the application does not have access to a definition.
+     * @since 1.1.0
+     */
+    <T> T useAgent(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgentAsync(String, String, String, LLM, Class)} within a
+     * timeout, split between the phases of the call like {@link #useAgent(String, String, LLM, Class, Duration)}.
+     *
+     * @param <T> The target type to which the LLM's response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the response.
+     * @param responseClass The Java class representing the desired structure of the response.
+     * @param timeout The timeout of the call, zero for none.
+     * @return A future of the structured response.
+     * @since 1.1.0
+     */
+    <T> CompletableFuture<T> useAgentAsync(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout);
+
+    /**
+     * Runs a batch of queries with the same persona, {@link LLM} and response type, at most
+     * {@link AgentConfig#getBatchParallelism()} at a time.
+     *
+     * @param <T> The target type to which the LLM's responses should be mapped.
+     * @param queries The queries, each optionally a turn of a conversation.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the responses.
+     * @param responseClass The Java class representing the desired structure of the responses.
+     * @param resultConsumer Receives the result of each query as soon as it completes, {@code null} for none.
+     * @return A future of the results of every query, in the order of the queries.
+     * @see #useAgentBatch(List, String, LLM, Class, int, Consumer)
+     * @since 1.1.0
+     */
+    <T> CompletableFuture<List<BatchResult<T>>> useAgentBatch(List<AgentQuery> queries, String aiPersona, LLM llm, Class<T> responseClass, Consumer<BatchResult<T>> resultConsumer);
+
+    /**
+     * Runs a batch of queries with the same persona, {@link LLM} and response type, like
+     * {@link #useAgentAsync(String, String, String, LLM, Class)} for each query, at most {@code parallelism} at a time.
+     *
+     * <p>The tool catalog, the output formats and the static parts of the prompts are prepared once for the whole
+     * batch. No thread waits for the queries: the completion of one starts the next. A failed query is reported
+     * as a failed {@link BatchResult}, the other queries go on.</p>
+     *
+     * <p>{@code resultConsumer} is called once per query, in the order they complete, by the thread completing the
+     * query and never concurrently. If it throws, the batch still runs to the end and the returned future then fails
+     * with the first exception thrown.</p>
+     *
+     * @param <T> The target type to which the LLM's responses should be mapped.
+     * @param queries The queries, each optionally a turn of a conversation.
+     * @param aiPersona The defined role or personality that the AI should adopt.
+     * @param llm The specific {@link LLM} instance to be used for generating the responses.
+     * @param responseClass The Java class representing the desired structure of the responses.
+     * @param parallelism The maximum number of queries running at the same time, at least 1.
+     * @param resultConsumer Receives the result of each query as soon as it completes, {@code null} for none.
+     * @return A future of the results of every query, in the order of the queries.
+     * @since 1.1.0
+     */
+    <T> CompletableFuture<List<BatchResult<T>>> useAgentBatch(List<AgentQuery> queries, String aiPersona, LLM llm, Class<T> responseClass, int parallelism, Consumer<BatchResult<T>> resultConsumer);
+
+    /**
+     * Discards the catalog of tools (methods annotated with {@code AiToolMethod}) and the tool call plans cached by the agent.
+     *
+     * <p>The tools are scanned only once and reused for every call of the agent. Call this method if
+     * the available tools change at runtime (e.g., new classes were loaded) so the next call scans them again.</p>
+     */
+    void refreshTools();
+
+    /**
+     * Uses the given provider for every instance of a class declaring non-static tool methods,
+     * e.g., to let a dependency injection container own them. The provider takes precedence over the
+     * {@code ToolLifecycle} of the class.
+     *
+     * @param toolClass The class declaring the tool methods.
+     * @param provider The {@link ToolInstanceProvider} supplying its instances.
+     */
+    void registerToolInstanceProvider(Class<?> toolClass, ToolInstanceProvider provider);
+
+    /**
+     * Replaces how the instances of the tool classes are created when no provider was registered for their class.
+     * By default they are created with their public no-arg constructor. The instances are still cached, pooled or
+     * created per call according to the {@code ToolLifecycle} of their class.
+     *
+     * @param provider The {@link ToolInstanceProvider} creating the tool instances.
+     */
+    void setDefaultToolInstanceProvider(ToolInstanceProvider provider);
+
+    /**
+     * Replaces the store of the conversations used by {@link #useAgent(String, String, String, LLM, Class)}.
+     * By default they are kept in memory, within the budgets of the {@link AgentConfig} of the agent.
+     *
+     * @param conversationStore The {@link ConversationStore} keeping the turns of each conversation.
+     * @since 1.1.0
+     */
+    void setConversationStore(ConversationStore conversationStore);
+
+    /**
+     * Returns the statistics of the result caches of the tools marked {@code AiToolMethod#cacheable()}.
+     * The results are cached per tool method and shared by every agent.
+     *
+     * @return A snapshot of the statistics of each cacheable tool called so far, keyed by its class name,
+     * method name and parameter types.
+     * @since 1.1.0
+     */
+    Map<String, CacheStats> getToolCacheStats();
+
+    /**
+     * Returns the statistics of the plan cache of the agent. The plan of a query is reused, without calling the LLM
+     * for it, when the same query (ignoring whitespace differences) is asked again with the same model and tool catalog.
+     * The cache is sized with {@link AgentConfig#getPlanCacheSize()}.
+     *
+     * @return A snapshot of the statistics, or {@code null} if the plan cache is disabled.
+     * @since 1.1.0
+     */
+    CacheStats getPlanCacheStats();
+
+    /**
+     * Returns the metrics of the agent: the latencies of the phases of its calls and of each tool method, the number of
+     * failures of each, the sizes of the prompts and responses, and the statistics of the plan and tool caches. The
+     * names are the constants of {@link AgentMetrics}.
+     *
+     * @return A snapshot of everything measured since the agent was created.
+     * @since 1.1.0
+     */
+    MetricsSnapshot getMetricsSnapshot();
+
+    /**
+     * Hands every measurement of the agent to the given metrics as well, e.g., an adapter to the metrics registry of
+     * the application. The measurements are still kept for {@link #getMetricsSnapshot()}.
+     *
+     * @param exporter The metrics receiving the measurements, {@code null} to stop exporting them.
+     * @since 1.1.0
+     */
+    void setMetricsExporter(AgentMetrics exporter);
+
+    /**
+     * Traces every call of the agent: each call is handed to the exporter as a tree of {@link Span}s, one for the
+     * call, one for each phase (with the prompts and the responses of the LLM) and one for each tool call (with its
+     * resolved arguments). The exporter is called on the path of the requests, see {@link SpanExporter}.
+     *
+     * @param exporter The exporter receiving the spans, e.g., a {@link io.github.lekan128.aiagent.api.tracing.JsonLinesSpanExporter},
+     *                 {@code null} to stop tracing.
+     * @since 1.1.0
+     */
+    void setSpanExporter(SpanExporter exporter);
 }
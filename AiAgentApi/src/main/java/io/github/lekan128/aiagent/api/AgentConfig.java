@@ -0,0 +1,1146 @@
+package io.github.lekan128.aiagent.api;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.github.lekan128.aiagent.api.prompt.PromptTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Immutable configuration shared by an {@link Agent} and the LLMs it uses.
+ *
+ * <p>A configuration is either built with {@link #builder()} or read with {@link #load()} from, in order of
+ * precedence, the JVM system properties, the environment variables and the {@code .env} file of the current
+ * directory. Each setting is read from the key given in its {@code KEY_...} constant, e.g.,
+ * {@code -DAI_TOOLS_PACKAGE=org.example.tools} or {@code AI_TOOLS_PACKAGE=org.example.tools} in {@code .env}.</p>
+ *
+ * <p>{@link #getDefault()} reads the configuration once and returns the same instance afterwards, so the
+ * {@code .env} file is never read again on the hot path. Several agents with different configurations can live in
+ * the same JVM, see {@code AgentProvider#create(AgentConfig)}.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class AgentConfig {
+    /** The packages containing the tools, comma separated. */
+    public static final String KEY_TOOLS_PACKAGE = "AI_TOOLS_PACKAGE";
+    /** The API key of the Gemini service. */
+    public static final String KEY_GEMINI_API_KEY = "GEMINI_API_KEY";
+    /** The name of the model called by the default LLM. */
+    public static final String KEY_MODEL_NAME = "AI_AGENT_MODEL_NAME";
+    /** The timeout of each LLM request, in milliseconds. */
+    public static final String KEY_LLM_TIMEOUT_MILLIS = "AI_AGENT_LLM_TIMEOUT_MILLIS";
+    /** The maximum number of concurrent connections of the LLM client. */
+    public static final String KEY_LLM_MAX_CONNECTIONS = "AI_AGENT_LLM_MAX_CONNECTIONS";
+    /** The maximum number of concurrent connections of the LLM client to one host. */
+    public static final String KEY_LLM_MAX_CONNECTIONS_PER_HOST = "AI_AGENT_LLM_MAX_CONNECTIONS_PER_HOST";
+    /** The maximum number of tool calls of one run executing at the same time. */
+    public static final String KEY_MAX_PARALLELISM = "AI_AGENT_MAX_PARALLELISM";
+    /** The maximum number of queries of a batch run at the same time. */
+    public static final String KEY_BATCH_PARALLELISM = "AI_AGENT_BATCH_PARALLELISM";
+    /** The deadline of one call of an agent, in milliseconds, 0 for none. */
+    public static final String KEY_TIMEOUT_MILLIS = "AI_AGENT_TIMEOUT_MILLIS";
+    /** The maximum number of output formats (JSON schemas of the response types) kept in memory, read from the default configuration only. */
+    public static final String KEY_SCHEMA_CACHE_SIZE = "AI_AGENT_SCHEMA_CACHE_SIZE";
+    /** The maximum number of LLM responses kept in memory by {@code CachingLLM}. */
+    public static final String KEY_LLM_CACHE_SIZE = "AI_AGENT_LLM_CACHE_SIZE";
+    /** How long {@code CachingLLM} keeps a response, in seconds. */
+    public static final String KEY_LLM_CACHE_TTL_SECONDS = "AI_AGENT_LLM_CACHE_TTL_SECONDS";
+    /** The file in which {@code CachingLLM} also keeps the responses. */
+    public static final String KEY_LLM_CACHE_FILE = "AI_AGENT_LLM_CACHE_FILE";
+    /** The maximum number of responses {@code CachingLLM} keeps in its file. */
+    public static final String KEY_LLM_CACHE_FILE_MAX_ENTRIES = "AI_AGENT_LLM_CACHE_FILE_MAX_ENTRIES";
+    /** The maximum number of calls per second admitted by {@code RateLimitedLLM}, 0 for no limit. */
+    public static final String KEY_LLM_REQUESTS_PER_SECOND = "AI_AGENT_LLM_REQUESTS_PER_SECOND";
+    /** The maximum number of estimated prompt tokens per minute admitted by {@code RateLimitedLLM}, 0 for no limit. */
+    public static final String KEY_LLM_TOKENS_PER_MINUTE = "AI_AGENT_LLM_TOKENS_PER_MINUTE";
+    /** The maximum number of calls waiting for their turn in {@code RateLimitedLLM}, 0 to reject the calls that would wait. */
+    public static final String KEY_LLM_MAX_QUEUED_CALLS = "AI_AGENT_LLM_MAX_QUEUED_CALLS";
+    /** The longest wait of a call in {@code RateLimitedLLM}, in milliseconds, the calls that would wait longer are rejected. */
+    public static final String KEY_LLM_MAX_QUEUE_WAIT_MILLIS = "AI_AGENT_LLM_MAX_QUEUE_WAIT_MILLIS";
+    /** The maximum number of tool call plans kept in memory by an agent, 0 to disable the plan cache. */
+    public static final String KEY_PLAN_CACHE_SIZE = "AI_AGENT_PLAN_CACHE_SIZE";
+    /** How long an agent keeps a tool call plan, in seconds. */
+    public static final String KEY_PLAN_CACHE_TTL_SECONDS = "AI_AGENT_PLAN_CACHE_TTL_SECONDS";
+    /** The number of tools most relevant to the query sent to the LLM for the plan, 0 to send every tool. */
+    public static final String KEY_TOOLS_TOP_K = "AI_AGENT_TOOLS_TOP_K";
+    /** The tools always sent to the LLM for the plan, comma separated {@code className#methodName} or {@code className}. */
+    public static final String KEY_TOOLS_ALWAYS_INCLUDE = "AI_AGENT_TOOLS_ALWAYS_INCLUDE";
+    /** The maximum length in chars of the JSON of one tool result in the final prompt. */
+    public static final String KEY_TOOL_RESULT_MAX_CHARS = "AI_AGENT_TOOL_RESULT_MAX_CHARS";
+    /** The maximum length in chars of the JSON of all the tool results in the final prompt. */
+    public static final String KEY_TOOL_RESULTS_MAX_CHARS = "AI_AGENT_TOOL_RESULTS_MAX_CHARS";
+    /** The maximum length of a string of a tool result in the final prompt. */
+    public static final String KEY_TOOL_RESULT_MAX_STRING_CHARS = "AI_AGENT_TOOL_RESULT_MAX_STRING_CHARS";
+    /** The maximum number of elements of an array or collection of a tool result in the final prompt. */
+    public static final String KEY_TOOL_RESULT_MAX_ELEMENTS = "AI_AGENT_TOOL_RESULT_MAX_ELEMENTS";
+    /** The maximum size in bytes of the turns kept per conversation by the default conversation store. */
+    public static final String KEY_CONVERSATION_MAX_BYTES = "AI_AGENT_CONVERSATION_MAX_BYTES";
+    /** The maximum number of conversations kept by the default conversation store. */
+    public static final String KEY_CONVERSATION_MAX_SESSIONS = "AI_AGENT_CONVERSATION_MAX_SESSIONS";
+    /** {@code true} to let the LLM answer a query needing no tool directly from the planning call. */
+    public static final String KEY_DIRECT_ANSWER = "AI_AGENT_DIRECT_ANSWER";
+    /** {@code true} to print the result of every tool call. */
+    public static final String KEY_LOG_TOOL_RESULTS = "AI_AGENT_LOG_TOOL_RESULTS";
+    /** {@code true} to print the output formats (JSON schemas) generated for the prompts. */
+    public static final String KEY_LOG_SCHEMAS = "AI_AGENT_LOG_SCHEMAS";
+
+    /** The model called when none is configured. */
+    public static final String DEFAULT_MODEL_NAME = "gemini-2.5-flash";
+    /** The maximum number of tool calls of one run executing at the same time when none is configured. */
+    public static final int DEFAULT_MAX_PARALLELISM = 8;
+    /** The maximum number of queries of a batch run at the same time when none is configured. */
+    public static final int DEFAULT_BATCH_PARALLELISM = 16;
+    /** The maximum number of output formats kept in memory when none is configured. */
+    public static final int DEFAULT_SCHEMA_CACHE_SIZE = 64;
+    /** The maximum number of LLM responses kept in memory when none is configured. */
+    public static final int DEFAULT_LLM_CACHE_SIZE = 1_000;
+    /** The maximum number of LLM responses kept in the cache file when none is configured. */
+    public static final int DEFAULT_LLM_CACHE_FILE_MAX_ENTRIES = 100_000;
+    /** The maximum number of calls waiting in {@code RateLimitedLLM} when none is configured. */
+    public static final int DEFAULT_LLM_MAX_QUEUED_CALLS = 64;
+    /** The longest wait of a call in {@code RateLimitedLLM} when none is configured, in milliseconds. */
+    public static final long DEFAULT_LLM_MAX_QUEUE_WAIT_MILLIS = 30_000;
+    /** The maximum number of tool call plans kept in memory when none is configured. */
+    public static final int DEFAULT_PLAN_CACHE_SIZE = 256;
+    /** The maximum length of the JSON of one tool result when none is configured. */
+    public static final int DEFAULT_TOOL_RESULT_MAX_CHARS = 16 * 1024;
+    /** The maximum length of the JSON of all the tool results when none is configured. */
+    public static final int DEFAULT_TOOL_RESULTS_MAX_CHARS = 64 * 1024;
+    /** The maximum length of a string of a tool result when none is configured. */
+    public static final int DEFAULT_TOOL_RESULT_MAX_STRING_CHARS = 4 * 1024;
+    /** The maximum number of elements of an array of a tool result when none is configured. */
+    public static final int DEFAULT_TOOL_RESULT_MAX_ELEMENTS = 100;
+    /** The maximum size in bytes of the turns kept per conversation when none is configured. */
+    public static final int DEFAULT_CONVERSATION_MAX_BYTES = 16 * 1024;
+    /** The maximum number of conversations kept in memory when none is configured. */
+    public static final int DEFAULT_CONVERSATION_MAX_SESSIONS = 10_000;
+
+    private final List<String> toolsPackages;
+    private final String geminiApiKey;
+    private final String modelName;
+    private final int llmTimeoutMillis;
+    private final int llmMaxConnections;
+    private final int llmMaxConnectionsPerHost;
+    private final int maxParallelism;
+    private final int batchParallelism;
+    private final long timeoutMillis;
+    private final int schemaCacheSize;
+    private final int llmCacheSize;
+    private final long llmCacheTtlSeconds;
+    private final String llmCacheFile;
+    private final int llmCacheFileMaxEntries;
+    private final double llmRequestsPerSecond;
+    private final int llmTokensPerMinute;
+    private final int llmMaxQueuedCalls;
+    private final long llmMaxQueueWaitMillis;
+    private final int planCacheSize;
+    private final long planCacheTtlSeconds;
+    private final int toolsTopK;
+    private final List<String> toolsAlwaysInclude;
+    private final int toolResultMaxChars;
+    private final int toolResultsMaxChars;
+    private final int toolResultMaxStringChars;
+    private final int toolResultMaxElements;
+    private final int conversationMaxBytes;
+    private final int conversationMaxSessions;
+    private final boolean directAnswer;
+    private final boolean logToolResults;
+    private final boolean logSchemas;
+    private final PromptTemplate planPromptTemplate;
+    private final PromptTemplate finalPromptTemplate;
+    private final PromptTemplate directAnswerPromptTemplate;
+    private final ExecutorService toolExecutor;
+
+    private AgentConfig(Builder builder) {
+        this.toolsPackages = List.copyOf(builder.toolsPackages);
+        this.geminiApiKey = builder.geminiApiKey;
+        this.modelName = builder.modelName;
+        this.llmTimeoutMillis = builder.llmTimeoutMillis;
+        this.llmMaxConnections = builder.llmMaxConnections;
+        this.llmMaxConnectionsPerHost = builder.llmMaxConnectionsPerHost;
+        this.maxParallelism = builder.maxParallelism;
+        this.batchParallelism = builder.batchParallelism;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.schemaCacheSize = builder.schemaCacheSize;
+        this.llmCacheSize = builder.llmCacheSize;
+        this.llmCacheTtlSeconds = builder.llmCacheTtlSeconds;
+        this.llmCacheFile = builder.llmCacheFile;
+        this.llmCacheFileMaxEntries = builder.llmCacheFileMaxEntries;
+        this.llmRequestsPerSecond = builder.llmRequestsPerSecond;
+        this.llmTokensPerMinute = builder.llmTokensPerMinute;
+        this.llmMaxQueuedCalls = builder.llmMaxQueuedCalls;
+        this.llmMaxQueueWaitMillis = builder.llmMaxQueueWaitMillis;
+        this.planCacheSize = builder.planCacheSize;
+        this.planCacheTtlSeconds = builder.planCacheTtlSeconds;
+        this.toolsTopK = builder.toolsTopK;
+        this.toolsAlwaysInclude = List.copyOf(builder.toolsAlwaysInclude);
+        this.toolResultMaxChars = builder.toolResultMaxChars;
+        this.toolResultsMaxChars = builder.toolResultsMaxChars;
+        this.toolResultMaxStringChars = builder.toolResultMaxStringChars;
+        this.toolResultMaxElements = builder.toolResultMaxElements;
+        this.conversationMaxBytes = builder.conversationMaxBytes;
+        this.conversationMaxSessions = builder.conversationMaxSessions;
+        this.logToolResults = builder.logToolResults;
+        this.logSchemas = builder.logSchemas;
+        this.directAnswer = builder.directAnswer;
+        this.planPromptTemplate = builder.planPromptTemplate;
+        this.finalPromptTemplate = builder.finalPromptTemplate;
+        this.directAnswerPromptTemplate = builder.directAnswerPromptTemplate;
+        this.toolExecutor = builder.toolExecutor;
+    }
+
+    /**
+     * Retrieves the configuration read from the system properties, the environment and the {@code .env} file.
+     * It is read on the first call only.
+     *
+     * @return The application-wide default configuration.
+     */
+    public static AgentConfig getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * Reads a new configuration from the system properties, the environment and the {@code .env} file
+     * (which may be missing). The settings not found keep their default value.
+     *
+     * @return The configuration.
+     * @throws IllegalArgumentException If a setting has an invalid value.
+     */
+    public static AgentConfig load() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        Builder builder = builder();
+
+        List<String> toolsPackages = readList(dotenv, KEY_TOOLS_PACKAGE);
+        if (toolsPackages != null) {
+            builder.toolsPackages(toolsPackages);
+        }
+        builder.geminiApiKey(read(dotenv, KEY_GEMINI_API_KEY));
+
+        String modelName = read(dotenv, KEY_MODEL_NAME);
+        if (modelName != null) {
+            builder.modelName(modelName);
+        }
+        Integer llmTimeoutMillis = readInt(dotenv, KEY_LLM_TIMEOUT_MILLIS);
+        if (llmTimeoutMillis != null) {
+            builder.llmTimeoutMillis(llmTimeoutMillis);
+        }
+        Integer llmMaxConnections = readInt(dotenv, KEY_LLM_MAX_CONNECTIONS);
+        if (llmMaxConnections != null) {
+            builder.llmMaxConnections(llmMaxConnections);
+        }
+        Integer llmMaxConnectionsPerHost = readInt(dotenv, KEY_LLM_MAX_CONNECTIONS_PER_HOST);
+        if (llmMaxConnectionsPerHost != null) {
+            builder.llmMaxConnectionsPerHost(llmMaxConnectionsPerHost);
+        }
+        Integer maxParallelism = readInt(dotenv, KEY_MAX_PARALLELISM);
+        if (maxParallelism != null) {
+            builder.maxParallelism(maxParallelism);
+        }
+        Integer batchParallelism = readInt(dotenv, KEY_BATCH_PARALLELISM);
+        if (batchParallelism != null) {
+            builder.batchParallelism(batchParallelism);
+        }
+        Integer timeoutMillis = readInt(dotenv, KEY_TIMEOUT_MILLIS);
+        if (timeoutMillis != null) {
+            builder.timeoutMillis(timeoutMillis);
+        }
+        Integer schemaCacheSize = readInt(dotenv, KEY_SCHEMA_CACHE_SIZE);
+        if (schemaCacheSize != null) {
+            builder.schemaCacheSize(schemaCacheSize);
+        }
+        Integer llmCacheSize = readInt(dotenv, KEY_LLM_CACHE_SIZE);
+        if (llmCacheSize != null) {
+            builder.llmCacheSize(llmCacheSize);
+        }
+        Integer llmCacheTtlSeconds = readInt(dotenv, KEY_LLM_CACHE_TTL_SECONDS);
+        if (llmCacheTtlSeconds != null) {
+            builder.llmCacheTtlSeconds(llmCacheTtlSeconds);
+        }
+        builder.llmCacheFile(read(dotenv, KEY_LLM_CACHE_FILE));
+        Integer llmCacheFileMaxEntries = readInt(dotenv, KEY_LLM_CACHE_FILE_MAX_ENTRIES);
+        if (llmCacheFileMaxEntries != null) {
+            builder.llmCacheFileMaxEntries(llmCacheFileMaxEntries);
+        }
+        Double llmRequestsPerSecond = readDouble(dotenv, KEY_LLM_REQUESTS_PER_SECOND);
+        if (llmRequestsPerSecond != null) {
+            builder.llmRequestsPerSecond(llmRequestsPerSecond);
+        }
+        Integer llmTokensPerMinute = readInt(dotenv, KEY_LLM_TOKENS_PER_MINUTE);
+        if (llmTokensPerMinute != null) {
+            builder.llmTokensPerMinute(llmTokensPerMinute);
+        }
+        Integer llmMaxQueuedCalls = readInt(dotenv, KEY_LLM_MAX_QUEUED_CALLS);
+        if (llmMaxQueuedCalls != null) {
+            builder.llmMaxQueuedCalls(llmMaxQueuedCalls);
+        }
+        Integer llmMaxQueueWaitMillis = readInt(dotenv, KEY_LLM_MAX_QUEUE_WAIT_MILLIS);
+        if (llmMaxQueueWaitMillis != null) {
+            builder.llmMaxQueueWaitMillis(llmMaxQueueWaitMillis);
+        }
+        Integer planCacheSize = readInt(dotenv, KEY_PLAN_CACHE_SIZE);
+        if (planCacheSize != null) {
+            builder.planCacheSize(planCacheSize);
+        }
+        Integer planCacheTtlSeconds = readInt(dotenv, KEY_PLAN_CACHE_TTL_SECONDS);
+        if (planCacheTtlSeconds != null) {
+            builder.planCacheTtlSeconds(planCacheTtlSeconds);
+        }
+        Integer toolsTopK = readInt(dotenv, KEY_TOOLS_TOP_K);
+        if (toolsTopK != null) {
+            builder.toolsTopK(toolsTopK);
+        }
+        List<String> toolsAlwaysInclude = readList(dotenv, KEY_TOOLS_ALWAYS_INCLUDE);
+        if (toolsAlwaysInclude != null) {
+            builder.toolsAlwaysInclude(toolsAlwaysInclude);
+        }
+        Integer toolResultMaxChars = readInt(dotenv, KEY_TOOL_RESULT_MAX_CHARS);
+        if (toolResultMaxChars != null) {
+            builder.toolResultMaxChars(toolResultMaxChars);
+        }
+        Integer toolResultsMaxChars = readInt(dotenv, KEY_TOOL_RESULTS_MAX_CHARS);
+        if (toolResultsMaxChars != null) {
+            builder.toolResultsMaxChars(toolResultsMaxChars);
+        }
+        Integer toolResultMaxStringChars = readInt(dotenv, KEY_TOOL_RESULT_MAX_STRING_CHARS);
+        if (toolResultMaxStringChars != null) {
+            builder.toolResultMaxStringChars(toolResultMaxStringChars);
+        }
+        Integer toolResultMaxElements = readInt(dotenv, KEY_TOOL_RESULT_MAX_ELEMENTS);
+        if (toolResultMaxElements != null) {
+            builder.toolResultMaxElements(toolResultMaxElements);
+        }
+        Integer conversationMaxBytes = readInt(dotenv, KEY_CONVERSATION_MAX_BYTES);
+        if (conversationMaxBytes != null) {
+            builder.conversationMaxBytes(conversationMaxBytes);
+        }
+        Integer conversationMaxSessions = readInt(dotenv, KEY_CONVERSATION_MAX_SESSIONS);
+        if (conversationMaxSessions != null) {
+            builder.conversationMaxSessions(conversationMaxSessions);
+        }
+        builder.directAnswer(Boolean.parseBoolean(read(dotenv, KEY_DIRECT_ANSWER)));
+        builder.logToolResults(Boolean.parseBoolean(read(dotenv, KEY_LOG_TOOL_RESULTS)));
+        builder.logSchemas(Boolean.parseBoolean(read(dotenv, KEY_LOG_SCHEMAS)));
+
+        return builder.build();
+    }
+
+    /**
+     * @return A new builder, initialized with the default settings (not the ones of the environment).
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return A new builder, initialized with the settings of this configuration.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .toolsPackages(toolsPackages)
+                .geminiApiKey(geminiApiKey)
+                .modelName(modelName)
+                .llmTimeoutMillis(llmTimeoutMillis)
+                .llmMaxConnections(llmMaxConnections)
+                .llmMaxConnectionsPerHost(llmMaxConnectionsPerHost)
+                .maxParallelism(maxParallelism)
+                .batchParallelism(batchParallelism)
+                .timeoutMillis(timeoutMillis)
+                .schemaCacheSize(schemaCacheSize)
+                .llmCacheSize(llmCacheSize)
+                .llmCacheTtlSeconds(llmCacheTtlSeconds)
+                .llmCacheFile(llmCacheFile)
+                .llmCacheFileMaxEntries(llmCacheFileMaxEntries)
+                .llmRequestsPerSecond(llmRequestsPerSecond)
+                .llmTokensPerMinute(llmTokensPerMinute)
+                .llmMaxQueuedCalls(llmMaxQueuedCalls)
+                .llmMaxQueueWaitMillis(llmMaxQueueWaitMillis)
+                .planCacheSize(planCacheSize)
+                .planCacheTtlSeconds(planCacheTtlSeconds)
+                .toolsTopK(toolsTopK)
+                .toolsAlwaysInclude(toolsAlwaysInclude)
+                .toolResultMaxChars(toolResultMaxChars)
+                .toolResultsMaxChars(toolResultsMaxChars)
+                .toolResultMaxStringChars(toolResultMaxStringChars)
+                .toolResultMaxElements(toolResultMaxElements)
+                .conversationMaxBytes(conversationMaxBytes)
+                .conversationMaxSessions(conversationMaxSessions)
+                .directAnswer(directAnswer)
+                .logToolResults(logToolResults)
+                .logSchemas(logSchemas)
+                .planPromptTemplate(planPromptTemplate)
+                .finalPromptTemplate(finalPromptTemplate)
+                .directAnswerPromptTemplate(directAnswerPromptTemplate)
+                .toolExecutor(toolExecutor);
+    }
+
+    private static String read(Dotenv dotenv, String key) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = dotenv.get(key); // The environment variables take precedence over the .env file
+        }
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static List<String> readList(Dotenv dotenv, String key) {
+        String value = read(dotenv, key);
+        if (value == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String element : value.split(",")) {
+            if (!element.isBlank()) {
+                values.add(element.trim());
+            }
+        }
+        return values;
+    }
+
+    private static Integer readInt(Dotenv dotenv, String key) {
+        String value = read(dotenv, key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ", an integer is expected: " + value, e);
+        }
+    }
+
+    private static Double readDouble(Dotenv dotenv, String key) {
+        String value = read(dotenv, key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ", a number is expected: " + value, e);
+        }
+    }
+
+    /**
+     * @return The packages containing the methods annotated with {@code @AiToolMethod}, possibly empty.
+     */
+    public List<String> getToolsPackages() {
+        return toolsPackages;
+    }
+
+    /**
+     * @return The API key of the Gemini service, or {@code null} to let the Google client look for it.
+     */
+    public String getGeminiApiKey() {
+        return geminiApiKey;
+    }
+
+    /**
+     * @return The name of the model called by the default LLM.
+     */
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * @return The timeout of each LLM request in milliseconds, 0 for the default of the LLM client.
+     */
+    public int getLlmTimeoutMillis() {
+        return llmTimeoutMillis;
+    }
+
+    /**
+     * @return The maximum number of concurrent connections of the LLM client, 0 for the default of the LLM client.
+     */
+    public int getLlmMaxConnections() {
+        return llmMaxConnections;
+    }
+
+    /**
+     * @return The maximum number of concurrent connections of the LLM client to one host, 0 for the default of the LLM client.
+     */
+    public int getLlmMaxConnectionsPerHost() {
+        return llmMaxConnectionsPerHost;
+    }
+
+    /**
+     * @return The maximum number of tool calls of one run executing at the same time.
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /**
+     * @return The maximum number of queries of a batch run at the same time.
+     */
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    /**
+     * @return The deadline of one call of an agent, in milliseconds, 0 if the calls have no deadline.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * The output formats are shared by every agent of the JVM, so only the size of the {@link #getDefault()} configuration is used.
+     * @return The maximum number of output formats (JSON schemas of the response types) kept in memory.
+     */
+    public int getSchemaCacheSize() {
+        return schemaCacheSize;
+    }
+
+    /**
+     * @return The maximum number of LLM responses kept in memory by {@code CachingLLM}.
+     */
+    public int getLlmCacheSize() {
+        return llmCacheSize;
+    }
+
+    /**
+     * @return How long {@code CachingLLM} keeps a response in seconds, 0 to keep it until it is evicted.
+     */
+    public long getLlmCacheTtlSeconds() {
+        return llmCacheTtlSeconds;
+    }
+
+    /**
+     * @return The path of the file in which {@code CachingLLM} also keeps the responses, or {@code null} to keep them in memory only.
+     */
+    public String getLlmCacheFile() {
+        return llmCacheFile;
+    }
+
+    /**
+     * @return The maximum number of responses {@code CachingLLM} keeps in its file.
+     */
+    public int getLlmCacheFileMaxEntries() {
+        return llmCacheFileMaxEntries;
+    }
+
+    /**
+     * @return The maximum number of calls per second admitted by {@code RateLimitedLLM}, 0 for no limit.
+     */
+    public double getLlmRequestsPerSecond() {
+        return llmRequestsPerSecond;
+    }
+
+    /**
+     * @return The maximum number of estimated prompt tokens per minute admitted by {@code RateLimitedLLM}, 0 for no limit.
+     */
+    public int getLlmTokensPerMinute() {
+        return llmTokensPerMinute;
+    }
+
+    /**
+     * @return The maximum number of calls waiting for their turn in {@code RateLimitedLLM}.
+     */
+    public int getLlmMaxQueuedCalls() {
+        return llmMaxQueuedCalls;
+    }
+
+    /**
+     * @return The longest wait of a call in {@code RateLimitedLLM}, in milliseconds.
+     */
+    public long getLlmMaxQueueWaitMillis() {
+        return llmMaxQueueWaitMillis;
+    }
+
+    /**
+     * @return The maximum number of tool call plans kept in memory by an agent, 0 if the plan cache is disabled.
+     */
+    public int getPlanCacheSize() {
+        return planCacheSize;
+    }
+
+    /**
+     * @return How long an agent keeps a tool call plan in seconds, 0 to keep it until it is evicted.
+     */
+    public long getPlanCacheTtlSeconds() {
+        return planCacheTtlSeconds;
+    }
+
+    /**
+     * @return The number of tools most relevant to the query sent to the LLM for the plan, 0 if every tool is sent.
+     */
+    public int getToolsTopK() {
+        return toolsTopK;
+    }
+
+    /**
+     * @return The tools always sent to the LLM for the plan, as {@code className#methodName} or {@code className}, possibly empty.
+     */
+    public List<String> getToolsAlwaysInclude() {
+        return toolsAlwaysInclude;
+    }
+
+    /**
+     * @return The maximum length in chars of the JSON of one tool result in the final prompt.
+     */
+    public int getToolResultMaxChars() {
+        return toolResultMaxChars;
+    }
+
+    /**
+     * @return The maximum length in chars of the JSON of all the tool results in the final prompt.
+     */
+    public int getToolResultsMaxChars() {
+        return toolResultsMaxChars;
+    }
+
+    /**
+     * @return The maximum length of a string of a tool result in the final prompt.
+     */
+    public int getToolResultMaxStringChars() {
+        return toolResultMaxStringChars;
+    }
+
+    /**
+     * @return The maximum number of elements of an array or collection of a tool result in the final prompt.
+     */
+    public int getToolResultMaxElements() {
+        return toolResultMaxElements;
+    }
+
+    /**
+     * @return The maximum size in bytes of the turns kept per conversation by the default conversation store.
+     */
+    public int getConversationMaxBytes() {
+        return conversationMaxBytes;
+    }
+
+    /**
+     * @return The maximum number of conversations kept by the default conversation store.
+     */
+    public int getConversationMaxSessions() {
+        return conversationMaxSessions;
+    }
+
+    /**
+     * @return {@code true} if the planning call may answer a query needing no tool directly, saving the final call.
+     */
+    public boolean isDirectAnswer() {
+        return directAnswer;
+    }
+
+    /**
+     * @return {@code true} if the result of every tool call is printed.
+     */
+    public boolean isLogToolResults() {
+        return logToolResults;
+    }
+
+    /**
+     * @return {@code true} if the output formats (JSON schemas) generated for the prompts are printed.
+     */
+    public boolean isLogSchemas() {
+        return logSchemas;
+    }
+
+    /**
+     * @return The template of the prompt asking the LLM for the plan of tool calls, or {@code null} for the default one.
+     */
+    public PromptTemplate getPlanPromptTemplate() {
+        return planPromptTemplate;
+    }
+
+    /**
+     * @return The template of the prompt asking the LLM for the final response, or {@code null} for the default one.
+     */
+    public PromptTemplate getFinalPromptTemplate() {
+        return finalPromptTemplate;
+    }
+
+    /**
+     * @return The template of the prompt asking the LLM for either the plan of tool calls or the response, used
+     * instead of the plan prompt when {@link #isDirectAnswer()}, or {@code null} for the default one.
+     */
+    public PromptTemplate getDirectAnswerPromptTemplate() {
+        return directAnswerPromptTemplate;
+    }
+
+    /**
+     * @return The executor running the tool calls, or {@code null} for the shared {@link ExecutorSingleton} executor.
+     */
+    public ExecutorService getToolExecutor() {
+        return toolExecutor;
+    }
+
+    private static final class Holder {
+        private static final AgentConfig DEFAULT = load();
+    }
+
+    /**
+     * Builder of {@link AgentConfig}.
+     */
+    public static final class Builder {
+        private List<String> toolsPackages = List.of();
+        private String geminiApiKey;
+        private String modelName = DEFAULT_MODEL_NAME;
+        private int llmTimeoutMillis;
+        private int llmMaxConnections;
+        private int llmMaxConnectionsPerHost;
+        private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+        private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
+        private long timeoutMillis;
+        private int schemaCacheSize = DEFAULT_SCHEMA_CACHE_SIZE;
+        private int llmCacheSize = DEFAULT_LLM_CACHE_SIZE;
+        private long llmCacheTtlSeconds;
+        private String llmCacheFile;
+        private int llmCacheFileMaxEntries = DEFAULT_LLM_CACHE_FILE_MAX_ENTRIES;
+        private double llmRequestsPerSecond;
+        private int llmTokensPerMinute;
+        private int llmMaxQueuedCalls = DEFAULT_LLM_MAX_QUEUED_CALLS;
+        private long llmMaxQueueWaitMillis = DEFAULT_LLM_MAX_QUEUE_WAIT_MILLIS;
+        private int planCacheSize = DEFAULT_PLAN_CACHE_SIZE;
+        private long planCacheTtlSeconds;
+        private int toolsTopK;
+        private List<String> toolsAlwaysInclude = List.of();
+        private int toolResultMaxChars = DEFAULT_TOOL_RESULT_MAX_CHARS;
+        private int toolResultsMaxChars = DEFAULT_TOOL_RESULTS_MAX_CHARS;
+        private int toolResultMaxStringChars = DEFAULT_TOOL_RESULT_MAX_STRING_CHARS;
+        private int toolResultMaxElements = DEFAULT_TOOL_RESULT_MAX_ELEMENTS;
+        private int conversationMaxBytes = DEFAULT_CONVERSATION_MAX_BYTES;
+        private int conversationMaxSessions = DEFAULT_CONVERSATION_MAX_SESSIONS;
+        private boolean directAnswer;
+        private boolean logToolResults;
+        private boolean logSchemas;
+        private PromptTemplate planPromptTemplate;
+        private PromptTemplate finalPromptTemplate;
+        private PromptTemplate directAnswerPromptTemplate;
+        private ExecutorService toolExecutor;
+
+        private Builder() {
+        }
+
+        /**
+         * @param toolsPackages The packages containing the methods annotated with {@code @AiToolMethod}.
+         * @return This builder.
+         */
+        public Builder toolsPackages(List<String> toolsPackages) {
+            this.toolsPackages = toolsPackages;
+            return this;
+        }
+
+        /**
+         * @param toolsPackages The packages containing the methods annotated with {@code @AiToolMethod}.
+         * @return This builder.
+         */
+        public Builder toolsPackages(String... toolsPackages) {
+            return toolsPackages(List.of(toolsPackages));
+        }
+
+        /**
+         * @param geminiApiKey The API key of the Gemini service.
+         * @return This builder.
+         */
+        public Builder geminiApiKey(String geminiApiKey) {
+            this.geminiApiKey = geminiApiKey;
+            return this;
+        }
+
+        /**
+         * @param modelName The name of the model called by the default LLM. Defaults to {@value AgentConfig#DEFAULT_MODEL_NAME}.
+         * @return This builder.
+         */
+        public Builder modelName(String modelName) {
+            if (modelName == null || modelName.isBlank()) {
+                throw new IllegalArgumentException("modelName must not be blank");
+            }
+            this.modelName = modelName;
+            return this;
+        }
+
+        /**
+         * @param llmTimeoutMillis The timeout of each LLM request in milliseconds, 0 for the default of the LLM client.
+         * @return This builder.
+         */
+        public Builder llmTimeoutMillis(int llmTimeoutMillis) {
+            this.llmTimeoutMillis = requireNotNegative("llmTimeoutMillis", llmTimeoutMillis);
+            return this;
+        }
+
+        /**
+         * @param llmMaxConnections The maximum number of concurrent connections of the LLM client, 0 for the default of the LLM client.
+         * @return This builder.
+         */
+        public Builder llmMaxConnections(int llmMaxConnections) {
+            this.llmMaxConnections = requireNotNegative("llmMaxConnections", llmMaxConnections);
+            return this;
+        }
+
+        /**
+         * @param llmMaxConnectionsPerHost The maximum number of concurrent connections of the LLM client to one host, 0 for the default of the LLM client.
+         * @return This builder.
+         */
+        public Builder llmMaxConnectionsPerHost(int llmMaxConnectionsPerHost) {
+            this.llmMaxConnectionsPerHost = requireNotNegative("llmMaxConnectionsPerHost", llmMaxConnectionsPerHost);
+            return this;
+        }
+
+        /**
+         * @param maxParallelism The maximum number of tool calls of one run executing at the same time, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_MAX_PARALLELISM}.
+         * @return This builder.
+         */
+        public Builder maxParallelism(int maxParallelism) {
+            if (maxParallelism < 1) {
+                throw new IllegalArgumentException("maxParallelism must be at least 1, was " + maxParallelism);
+            }
+            this.maxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * @param batchParallelism The maximum number of queries of a batch run at the same time, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_BATCH_PARALLELISM}.
+         * @return This builder.
+         */
+        public Builder batchParallelism(int batchParallelism) {
+            this.batchParallelism = requirePositive("batchParallelism", batchParallelism);
+            return this;
+        }
+
+        /**
+         * @param timeoutMillis The deadline of one call of an agent, in milliseconds, split between the planning, the
+         * tool execution and the final call. 0 (the default) for no deadline.
+         * @return This builder.
+         */
+        public Builder timeoutMillis(long timeoutMillis) {
+            if (timeoutMillis < 0) {
+                throw new IllegalArgumentException("timeoutMillis must not be negative, was " + timeoutMillis);
+            }
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param schemaCacheSize The maximum number of output formats (JSON schemas of the response types) kept in memory, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_SCHEMA_CACHE_SIZE}.
+         * @return This builder.
+         */
+        public Builder schemaCacheSize(int schemaCacheSize) {
+            if (schemaCacheSize < 1) {
+                throw new IllegalArgumentException("schemaCacheSize must be at least 1, was " + schemaCacheSize);
+            }
+            this.schemaCacheSize = schemaCacheSize;
+            return this;
+        }
+
+        /**
+         * @param llmCacheSize The maximum number of LLM responses kept in memory by {@code CachingLLM}, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_LLM_CACHE_SIZE}.
+         * @return This builder.
+         */
+        public Builder llmCacheSize(int llmCacheSize) {
+            if (llmCacheSize < 1) {
+                throw new IllegalArgumentException("llmCacheSize must be at least 1, was " + llmCacheSize);
+            }
+            this.llmCacheSize = llmCacheSize;
+            return this;
+        }
+
+        /**
+         * @param llmCacheTtlSeconds How long {@code CachingLLM} keeps a response in seconds, 0 (the default) to keep it until it is evicted.
+         * @return This builder.
+         */
+        public Builder llmCacheTtlSeconds(long llmCacheTtlSeconds) {
+            if (llmCacheTtlSeconds < 0) {
+                throw new IllegalArgumentException("llmCacheTtlSeconds must not be negative, was " + llmCacheTtlSeconds);
+            }
+            this.llmCacheTtlSeconds = llmCacheTtlSeconds;
+            return this;
+        }
+
+        /**
+         * @param llmCacheFile The path of the file in which {@code CachingLLM} also keeps the responses, {@code null} (the default) to keep them in memory only.
+         * @return This builder.
+         */
+        public Builder llmCacheFile(String llmCacheFile) {
+            this.llmCacheFile = llmCacheFile;
+            return this;
+        }
+
+        /**
+         * @param llmCacheFileMaxEntries The maximum number of responses {@code CachingLLM} keeps in its file, at least 1,
+         * the oldest ones are dropped first. Defaults to {@value AgentConfig#DEFAULT_LLM_CACHE_FILE_MAX_ENTRIES}.
+         * @return This builder.
+         */
+        public Builder llmCacheFileMaxEntries(int llmCacheFileMaxEntries) {
+            this.llmCacheFileMaxEntries = requirePositive("llmCacheFileMaxEntries", llmCacheFileMaxEntries);
+            return this;
+        }
+
+        /**
+         * @param llmRequestsPerSecond The maximum number of calls per second admitted by {@code RateLimitedLLM},
+         * 0 (the default) for no limit.
+         * @return This builder.
+         */
+        public Builder llmRequestsPerSecond(double llmRequestsPerSecond) {
+            if (!(llmRequestsPerSecond >= 0) || Double.isInfinite(llmRequestsPerSecond)) {
+                throw new IllegalArgumentException("llmRequestsPerSecond must be a finite, non negative number, was " + llmRequestsPerSecond);
+            }
+            this.llmRequestsPerSecond = llmRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param llmTokensPerMinute The maximum number of estimated prompt tokens per minute admitted by
+         * {@code RateLimitedLLM}, 0 (the default) for no limit.
+         * @return This builder.
+         */
+        public Builder llmTokensPerMinute(int llmTokensPerMinute) {
+            this.llmTokensPerMinute = requireNotNegative("llmTokensPerMinute", llmTokensPerMinute);
+            return this;
+        }
+
+        /**
+         * @param llmMaxQueuedCalls The maximum number of calls waiting for their turn in {@code RateLimitedLLM},
+         * 0 to reject every call that would wait. Defaults to {@value AgentConfig#DEFAULT_LLM_MAX_QUEUED_CALLS}.
+         * @return This builder.
+         */
+        public Builder llmMaxQueuedCalls(int llmMaxQueuedCalls) {
+            this.llmMaxQueuedCalls = requireNotNegative("llmMaxQueuedCalls", llmMaxQueuedCalls);
+            return this;
+        }
+
+        /**
+         * @param llmMaxQueueWaitMillis The longest wait of a call in {@code RateLimitedLLM}, in milliseconds, the calls
+         * that would wait longer are rejected. Defaults to {@value AgentConfig#DEFAULT_LLM_MAX_QUEUE_WAIT_MILLIS}.
+         * @return This builder.
+         */
+        public Builder llmMaxQueueWaitMillis(long llmMaxQueueWaitMillis) {
+            if (llmMaxQueueWaitMillis < 0) {
+                throw new IllegalArgumentException("llmMaxQueueWaitMillis must not be negative, was " + llmMaxQueueWaitMillis);
+            }
+            this.llmMaxQueueWaitMillis = llmMaxQueueWaitMillis;
+            return this;
+        }
+
+        /**
+         * @param planCacheSize The maximum number of tool call plans kept in memory by an agent, 0 to disable the plan cache.
+         * Defaults to {@value AgentConfig#DEFAULT_PLAN_CACHE_SIZE}.
+         * @return This builder.
+         */
+        public Builder planCacheSize(int planCacheSize) {
+            this.planCacheSize = requireNotNegative("planCacheSize", planCacheSize);
+            return this;
+        }
+
+        /**
+         * @param planCacheTtlSeconds How long an agent keeps a tool call plan in seconds, 0 (the default) to keep it until it is evicted.
+         * @return This builder.
+         */
+        public Builder planCacheTtlSeconds(long planCacheTtlSeconds) {
+            if (planCacheTtlSeconds < 0) {
+                throw new IllegalArgumentException("planCacheTtlSeconds must not be negative, was " + planCacheTtlSeconds);
+            }
+            this.planCacheTtlSeconds = planCacheTtlSeconds;
+            return this;
+        }
+
+        /**
+         * @param toolsTopK The number of tools most relevant to the query sent to the LLM for the plan, 0 (the default)
+         * to send every tool. The relevance is ranked with BM25 over the descriptions and names of the tools.
+         * @return This builder.
+         */
+        public Builder toolsTopK(int toolsTopK) {
+            this.toolsTopK = requireNotNegative("toolsTopK", toolsTopK);
+            return this;
+        }
+
+        /**
+         * @param toolsAlwaysInclude The tools sent to the LLM for the plan whatever the query, in addition to the
+         * {@link #toolsTopK(int)} most relevant ones, as {@code className#methodName} (every overload) or {@code className}
+         * (every tool of the class).
+         * @return This builder.
+         */
+        public Builder toolsAlwaysInclude(List<String> toolsAlwaysInclude) {
+            this.toolsAlwaysInclude = toolsAlwaysInclude;
+            return this;
+        }
+
+        /**
+         * @param toolsAlwaysInclude The tools sent to the LLM for the plan whatever the query.
+         * @return This builder.
+         * @see #toolsAlwaysInclude(List)
+         */
+        public Builder toolsAlwaysInclude(String... toolsAlwaysInclude) {
+            return toolsAlwaysInclude(List.of(toolsAlwaysInclude));
+        }
+
+        /**
+         * @param toolResultMaxChars The maximum length in chars of the JSON of one tool result in the final prompt, at least 1.
+         * The rest of the result is replaced by a truncation marker. Defaults to {@value AgentConfig#DEFAULT_TOOL_RESULT_MAX_CHARS}.
+         * @return This builder.
+         */
+        public Builder toolResultMaxChars(int toolResultMaxChars) {
+            this.toolResultMaxChars = requirePositive("toolResultMaxChars", toolResultMaxChars);
+            return this;
+        }
+
+        /**
+         * @param toolResultsMaxChars The maximum length in chars of the JSON of all the tool results in the final prompt, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_TOOL_RESULTS_MAX_CHARS}.
+         * @return This builder.
+         */
+        public Builder toolResultsMaxChars(int toolResultsMaxChars) {
+            this.toolResultsMaxChars = requirePositive("toolResultsMaxChars", toolResultsMaxChars);
+            return this;
+        }
+
+        /**
+         * @param toolResultMaxStringChars The maximum length of a string of a tool result in the final prompt, at least 1.
+         * Defaults to {@value AgentConfig#DEFAULT_TOOL_RESULT_MAX_STRING_CHARS}.
+         * @return This builder.
+         */
+        public Builder toolResultMaxStringChars(int toolResultMaxStringChars) {
+            this.toolResultMaxStringChars = requirePositive("toolResultMaxStringChars", toolResultMaxStringChars);
+            return this;
+        }
+
+        /**
+         * @param toolResultMaxElements The maximum number of elements of an array or collection of a tool result in
+         * the final prompt, at least 1. Defaults to {@value AgentConfig#DEFAULT_TOOL_RESULT_MAX_ELEMENTS}.
+         * @return This builder.
+         */
+        public Builder toolResultMaxElements(int toolResultMaxElements) {
+            this.toolResultMaxElements = requirePositive("toolResultMaxElements", toolResultMaxElements);
+            return this;
+        }
+
+        /**
+         * @param conversationMaxBytes The maximum size in bytes of the turns kept per conversation by the default
+         * conversation store, at least 1. Defaults to {@value AgentConfig#DEFAULT_CONVERSATION_MAX_BYTES}.
+         * @return This builder.
+         */
+        public Builder conversationMaxBytes(int conversationMaxBytes) {
+            if (conversationMaxBytes < 1) {
+                throw new IllegalArgumentException("conversationMaxBytes must be at least 1, was " + conversationMaxBytes);
+            }
+            this.conversationMaxBytes = conversationMaxBytes;
+            return this;
+        }
+
+        /**
+         * @param conversationMaxSessions The maximum number of conversations kept by the default conversation store,
+         * at least 1. Defaults to {@value AgentConfig#DEFAULT_CONVERSATION_MAX_SESSIONS}.
+         * @return This builder.
+         */
+        public Builder conversationMaxSessions(int conversationMaxSessions) {
+            if (conversationMaxSessions < 1) {
+                throw new IllegalArgumentException("conversationMaxSessions must be at least 1, was " + conversationMaxSessions);
+            }
+            this.conversationMaxSessions = conversationMaxSessions;
+            return this;
+        }
+
+        /**
+         * @param directAnswer {@code true} to let the LLM either plan the tool calls or, when the query needs no tool,
+         * answer it directly in the response format, so such a query takes one LLM call instead of two.
+         * Defaults to {@code false}.
+         * @return This builder.
+         */
+        public Builder directAnswer(boolean directAnswer) {
+            this.directAnswer = directAnswer;
+            return this;
+        }
+
+        /**
+         * @param logToolResults {@code true} to print the result of every tool call.
+         * @return This builder.
+         */
+        public Builder logToolResults(boolean logToolResults) {
+            this.logToolResults = logToolResults;
+            return this;
+        }
+
+        /**
+         * @param logSchemas {@code true} to print the output formats (JSON schemas) generated for the prompts.
+         * @return This builder.
+         */
+        public Builder logSchemas(boolean logSchemas) {
+            this.logSchemas = logSchemas;
+            return this;
+        }
+
+        /**
+         * @param planPromptTemplate The template of the prompt asking the LLM for the plan of tool calls, {@code null}
+         * for the default one. It can use the slots {@link PromptTemplate#TOOLS}, {@link PromptTemplate#QUERY} and
+         * {@link PromptTemplate#OUTPUT_FORMAT}, and must contain {@link PromptTemplate#QUERY}.
+         * @return This builder.
+         */
+        public Builder planPromptTemplate(PromptTemplate planPromptTemplate) {
+            requireQuerySlot("planPromptTemplate", planPromptTemplate);
+            this.planPromptTemplate = planPromptTemplate;
+            return this;
+        }
+
+        /**
+         * @param finalPromptTemplate The template of the prompt asking the LLM for the final response, {@code null}
+         * for the default one. It can use the slots {@link PromptTemplate#PERSONA}, {@link PromptTemplate#CHAT_HISTORY},
+         * {@link PromptTemplate#TOOL_RESULTS}, {@link PromptTemplate#QUERY} and {@link PromptTemplate#OUTPUT_FORMAT},
+         * and must contain {@link PromptTemplate#QUERY}.
+         * @return This builder.
+         */
+        public Builder finalPromptTemplate(PromptTemplate finalPromptTemplate) {
+            requireQuerySlot("finalPromptTemplate", finalPromptTemplate);
+            this.finalPromptTemplate = finalPromptTemplate;
+            return this;
+        }
+
+        /**
+         * @param directAnswerPromptTemplate The template of the prompt asking the LLM for either the plan of tool calls
+         * or the response, used when {@link #directAnswer(boolean)} is enabled, {@code null} for the default one.
+         * It can use the slots of the plan prompt and {@link PromptTemplate#ANSWER_FORMAT}, {@link PromptTemplate#PERSONA}
+         * and {@link PromptTemplate#CHAT_HISTORY}, and must contain {@link PromptTemplate#QUERY}.
+         * @return This builder.
+         */
+        public Builder directAnswerPromptTemplate(PromptTemplate directAnswerPromptTemplate) {
+            requireQuerySlot("directAnswerPromptTemplate", directAnswerPromptTemplate);
+            this.directAnswerPromptTemplate = directAnswerPromptTemplate;
+            return this;
+        }
+
+        /**
+         * @param toolExecutor The executor running the tool calls, {@code null} for the shared
+         * {@link ExecutorSingleton} executor. On JVMs without virtual threads the shared executor creates a thread per
+         * concurrent tool call, set a bounded pool to cap the threads of an application running many calls at once.
+         * The agent never shuts it down.
+         * @return This builder.
+         */
+        public Builder toolExecutor(ExecutorService toolExecutor) {
+            this.toolExecutor = toolExecutor;
+            return this;
+        }
+
+        /**
+         * @return The configuration.
+         */
+        public AgentConfig build() {
+            return new AgentConfig(this);
+        }
+
+        private static void requireQuerySlot(String name, PromptTemplate template) {
+            if (template != null && !template.hasSlot(PromptTemplate.QUERY)) {
+                throw new IllegalArgumentException(name + " must contain the slot ${" + PromptTemplate.QUERY + "}");
+            }
+        }
+
+        private static int requirePositive(String name, int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException(name + " must be at least 1, was " + value);
+            }
+            return value;
+        }
+
+        private static int requireNotNegative(String name, int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative, was " + value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.lekan128.aiagent.api;
+
+/**
+ * Thrown when a call of an {@link Agent} runs out of time: its deadline passed during one of its phases, or a tool
+ * method ran longer than its {@link io.github.lekan128.aiagent.api.annotation.AiToolMethod#timeoutMillis()}.
+ *
+ * <p>The work still running when the time runs out is abandoned: the running tool methods are interrupted and the
+ * pending LLM calls are cancelled.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class AgentTimeoutException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The part of a call of an agent that ran out of time.
+     */
+    public enum Phase {
+        /** The planning call of the LLM. */
+        PLANNING,
+        /** The execution of the planned tool calls. */
+        EXECUTION,
+        /** The final call of the LLM. */
+        SYNTHESIS,
+        /** One tool method, longer than its own timeout. */
+        TOOL
+    }
+
+    private final Phase phase;
+
+    /**
+     * @param message The description of what ran out of time.
+     * @param phase The part of the call that ran out of time.
+     */
+    public AgentTimeoutException(String message, Phase phase) {
+        super(message);
+        this.phase = phase;
+    }
+
+    /**
+     * @return The part of the call that ran out of time.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.lekan128.aiagent.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the shared {@code ExecutorService} used by the library for blocking work that must not tie up the
+ * caller's thread, e.g., tool calls and the default {@link io.github.lekan128.aiagent.api.llm.LLM#callAsync(String)}.
+ *
+ * <p>On Java 21+ it creates one virtual thread per task. On older JVMs it falls back to a cached pool of daemon
+ * threads, so it never prevents the application from exiting.</p>
+ *
+ * <p>The executor is created lazily, on first use, and must not be shut down.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class ExecutorSingleton {
+
+    /**
+     * Retrieves the shared executor.
+     *
+     * @return The single, application-wide {@code ExecutorService} of the library.
+     */
+    public static ExecutorService getExecutor() {
+        return Holder.EXECUTOR;
+    }
+
+    private static final class Holder {
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            try {
+                // Virtual threads (Java 21+) while the library still targets Java 17
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                AtomicInteger threadCount = new AtomicInteger();
+                ThreadFactory threadFactory = runnable -> {
+                    Thread thread = new Thread(runnable, "ai-agent-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+                return Executors.newCachedThreadPool(threadFactory);
+            }
+        }
+    }
+}
@@ -19,7 +19,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * @since 1.0.0
  */
 public class ObjectMapperSingleton {
-    private static ObjectMapper objectMapper;
+    private static volatile ObjectMapper objectMapper;
 
     /**
      * Retrieves the singleton instance of the configured {@code ObjectMapper}.
@@ -34,11 +34,17 @@ public class ObjectMapperSingleton {
         if (objectMapper != null){
             return objectMapper;
         }
-        objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(
-                com.fasterxml.jackson.annotation.PropertyAccessor.FIELD,
-                com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY
-        );
+        synchronized (ObjectMapperSingleton.class) {
+            if (objectMapper == null) {
+                // Configured before it is published so concurrent callers never see a partially configured mapper
+                ObjectMapper mapper = new ObjectMapper();
+                mapper.setVisibility(
+                        com.fasterxml.jackson.annotation.PropertyAccessor.FIELD,
+                        com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY
+                );
+                objectMapper = mapper;
+            }
+        }
         return objectMapper;
     }
 }
@@ -20,6 +20,11 @@ import java.lang.annotation.Target;
  * to provide necessary context to the LLM about the required input arguments.
  * Each parameter can also be annotated with jakarta.annotation.Nullable to tell the LLM it can be null</p>
  *
+ * <p>A tool whose result only depends on its arguments (e.g., a lookup) can be marked {@link #cacheable()}:
+ * repeated calls with equal arguments are then answered from a per-tool cache instead of calling the method.</p>
+ *
+ * <p>A tool that can hang (e.g., a call to a remote service) can be given a {@link #timeoutMillis()}.</p>
+ *
  * @author Olalekan
  * @since 1.0.0
  * @see ArgDesc
@@ -33,4 +38,40 @@ public @interface AiToolMethod {
      * @return A detailed string describing the method's functionality and its output.
      */
     String value(); // required description
+
+    /**
+     * Whether the results of the tool are cached, keyed by the argument values. Only for tools whose result
+     * depends on their arguments only.
+     *
+     * @return {@code true} to serve repeated calls with equal arguments from the cache.
+     * @since 1.1.0
+     */
+    boolean cacheable() default false;
+
+    /**
+     * How long a cached result is kept, ignored if the tool is not {@link #cacheable()}.
+     *
+     * @return The time-to-live of a cached result in seconds, 0 to keep it until it is evicted.
+     * @since 1.1.0
+     */
+    long cacheTtlSeconds() default 0;
+
+    /**
+     * The maximum number of results of the tool kept in its cache, ignored if the tool is not {@link #cacheable()}.
+     * The least recently used result is evicted first.
+     *
+     * @return The maximum number of cached results, at least 1.
+     * @since 1.1.0
+     */
+    int cacheMaxEntries() default 256;
+
+    /**
+     * How long one call of the tool may run. When it runs longer, the thread running it is interrupted and the call
+     * fails with an {@link io.github.lekan128.aiagent.api.AgentTimeoutException}, without waiting for the method to
+     * return. A tool blocking on I/O or on a lock should let the interruption stop it.
+     *
+     * @return The timeout of one call in milliseconds, 0 for none (the call is still bounded by the deadline of the agent, if any).
+     * @since 1.1.0
+     */
+    long timeoutMillis() default 0;
 }
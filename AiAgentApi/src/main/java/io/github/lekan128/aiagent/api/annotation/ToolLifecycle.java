@@ -0,0 +1,42 @@
+package io.github.lekan128.aiagent.api.annotation;
+
+import io.github.lekan128.aiagent.api.tool.ToolScope;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how the instances of a class declaring non-static {@link AiToolMethod}s are managed.
+ *
+ * <p>Tool classes that hold expensive resources (database pools, HTTP clients, ...) should keep the default
+ * {@link ToolScope#SINGLETON} scope, or use {@link ToolScope#POOLED} if an instance cannot be used by
+ * several threads at once. Classes without this annotation are treated as {@link ToolScope#SINGLETON}.</p>
+ *
+ * <pre>{@code
+ * @ToolLifecycle(value = ToolScope.POOLED, maxPoolSize = 4)
+ * public class ReportTools { ... }
+ * }</pre>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ * @see io.github.lekan128.aiagent.api.tool.ToolInstanceProvider
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ToolLifecycle {
+    /**
+     * The scope of the tool instances.
+     *
+     * @return The {@link ToolScope} of the annotated class.
+     */
+    ToolScope value() default ToolScope.SINGLETON;
+
+    /**
+     * The maximum number of instances when the scope is {@link ToolScope#POOLED}. Ignored otherwise.
+     *
+     * @return The maximum size of the pool.
+     */
+    int maxPoolSize() default 8;
+}
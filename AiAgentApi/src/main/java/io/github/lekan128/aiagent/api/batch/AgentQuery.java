@@ -0,0 +1,67 @@
+package io.github.lekan128.aiagent.api.batch;
+
+/**
+ * One query of a batch run by {@code Agent#useAgentBatch}, optionally as a turn of a conversation.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class AgentQuery {
+    private final String sessionId;
+    private final String userQuery;
+
+    private AgentQuery(String sessionId, String userQuery) {
+        if (userQuery == null) {
+            throw new IllegalArgumentException("The user query must not be null");
+        }
+        if (sessionId != null && sessionId.isBlank()) {
+            throw new IllegalArgumentException("The session id must not be blank");
+        }
+        this.sessionId = sessionId;
+        this.userQuery = userQuery;
+    }
+
+    /**
+     * @param userQuery The specific request or question from the user.
+     * @return A query outside of any conversation.
+     */
+    public static AgentQuery of(String userQuery) {
+        return new AgentQuery(null, userQuery);
+    }
+
+    /**
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @return A query run as one turn of the conversation.
+     */
+    public static AgentQuery inSession(String sessionId, String userQuery) {
+        if (sessionId == null) {
+            throw new IllegalArgumentException("The session id must not be blank");
+        }
+        return new AgentQuery(sessionId, userQuery);
+    }
+
+    /**
+     * @return The identifier of the conversation, or {@code null} outside of a conversation.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return The specific request or question from the user.
+     */
+    public String getUserQuery() {
+        return userQuery;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentQuery{" +
+                "sessionId='" + sessionId + '\'' +
+                ", userQuery='" + userQuery + '\'' +
+                '}';
+    }
+}
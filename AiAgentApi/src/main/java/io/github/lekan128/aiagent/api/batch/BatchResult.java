@@ -0,0 +1,94 @@
+package io.github.lekan128.aiagent.api.batch;
+
+/**
+ * The outcome of one query of a batch: either its response or the failure that ended it.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @param <T> The type of the response.
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class BatchResult<T> {
+    private final int index;
+    private final AgentQuery query;
+    private final T response;
+    private final Throwable failure;
+
+    private BatchResult(int index, AgentQuery query, T response, Throwable failure) {
+        this.index = index;
+        this.query = query;
+        this.response = response;
+        this.failure = failure;
+    }
+
+    /**
+     * @param index The position of the query in the batch.
+     * @param query The query.
+     * @param response The structured response of the agent.
+     * @param <T> The type of the response.
+     * @return The result of a query answered successfully.
+     */
+    public static <T> BatchResult<T> success(int index, AgentQuery query, T response) {
+        return new BatchResult<>(index, query, response, null);
+    }
+
+    /**
+     * @param index The position of the query in the batch.
+     * @param query The query.
+     * @param failure The exception that ended the query, unwrapped from any {@code CompletionException}.
+     * @param <T> The type of the response.
+     * @return The result of a failed query.
+     */
+    public static <T> BatchResult<T> failure(int index, AgentQuery query, Throwable failure) {
+        if (failure == null) {
+            throw new IllegalArgumentException("The failure must not be null");
+        }
+        return new BatchResult<>(index, query, null, failure);
+    }
+
+    /**
+     * @return The position of the query in the batch.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return The query.
+     */
+    public AgentQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return {@code true} if the query was answered, {@code false} if it failed.
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * @return The structured response of the agent, {@code null} if the query failed.
+     */
+    public T getResponse() {
+        return response;
+    }
+
+    /**
+     * @return The exception that ended the query, {@code null} if it was answered.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "index=" + index +
+                ", query=" + query +
+                ", response=" + response +
+                ", failure=" + failure +
+                '}';
+    }
+}
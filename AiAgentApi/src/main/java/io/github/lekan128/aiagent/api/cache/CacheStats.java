@@ -0,0 +1,84 @@
+package io.github.lekan128.aiagent.api.cache;
+
+/**
+ * An immutable snapshot of the statistics of a cache.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final int size;
+
+    /**
+     * @param hitCount The number of lookups that found a value.
+     * @param missCount The number of lookups that found no value.
+     * @param evictionCount The number of entries discarded because the cache was full.
+     * @param expirationCount The number of entries discarded because they had expired.
+     * @param size The number of entries cached when the snapshot was taken.
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.size = size;
+    }
+
+    /**
+     * @return The number of lookups that found a value.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of lookups that found no value.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of entries discarded because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return The number of entries discarded because they had expired.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * @return The number of entries cached when the snapshot was taken.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The ratio of lookups that found a value, 0 if there was no lookup.
+     */
+    public double getHitRate() {
+        long lookupCount = hitCount + missCount;
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.lekan128.aiagent.api.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded in-memory cache evicting the least recently used entry once it holds more than its maximum size.
+ * The entries can also expire a fixed time after they were put.
+ *
+ * <p>This class is thread-safe. Every operation holds the lock of the cache for the duration of a hash map
+ * access only; values are never computed under the lock.</p>
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * Creates a cache whose entries never expire.
+     * @param maxSize The maximum number of entries kept, at least 1.
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize The maximum number of entries kept, at least 1.
+     * @param ttl How long an entry is kept after it was put, {@code null} or zero to keep the entries until they are evicted.
+     */
+    public LruCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1, was " + maxSize);
+        }
+        if (ttl != null && ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must not be negative, was " + ttl);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key The key.
+     * @return The cached value, or {@code null} if there is none or it has expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * Caches the value, evicting the least recently used entry if the cache is full.
+     * @param key The key.
+     * @param value The value, not {@code null}.
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The cached value must not be null");
+        }
+        entries.put(key, new Entry<>(value, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * @param key The key of the entry to discard.
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Discards every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return The number of entries currently cached, including the expired entries not discarded yet.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The maximum number of entries kept.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return A snapshot of the statistics of the cache since it was created.
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, evictionCount, expirationCount, entries.size());
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        /** {@link System#nanoTime()} after which the entry has expired, 0 if it never expires. */
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return expiresAtNanos != 0 && nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.lekan128.aiagent.api.conversation;
+
+import java.util.List;
+
+/**
+ * Keeps the past turns of each conversation, so the agent can give them to the LLM as the chat history.
+ *
+ * <p>A store decides how much of a conversation it keeps: the agent sends whatever {@link #getHistory(String)}
+ * returns. The default store is an {@link InMemoryConversationStore}; another store is set with
+ * {@code Agent#setConversationStore}:</p>
+ * <pre>{@code
+ * agent.setConversationStore(new FileConversationStore(Path.of("conversations"), 16 * 1024));
+ * Answer answer = agent.useAgent("session-42", "And its price?", persona, gemini, Answer.class);
+ * }</pre>
+ *
+ * <p>Implementations must be thread-safe, the agent may be used concurrently.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public interface ConversationStore {
+
+    /**
+     * Retrieves the turns kept for the session.
+     *
+     * @param sessionId The identifier of the conversation.
+     * @return The kept turns, the oldest first, empty if the session is unknown.
+     */
+    List<ConversationTurn> getHistory(String sessionId);
+
+    /**
+     * Adds a turn at the end of the session, creating the session if needed. The store may discard
+     * its oldest turns to stay within its budget.
+     *
+     * @param sessionId The identifier of the conversation.
+     * @param turn The new turn.
+     */
+    void append(String sessionId, ConversationTurn turn);
+
+    /**
+     * Forgets every turn of the session.
+     *
+     * @param sessionId The identifier of the conversation.
+     */
+    void clear(String sessionId);
+}
@@ -0,0 +1,78 @@
+package io.github.lekan128.aiagent.api.conversation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One exchange of a conversation: the query of the user and the final response of the agent.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class ConversationTurn {
+    private final String userQuery;
+    private final String response;
+    private final long timestampMillis;
+    @JsonIgnore
+    private final int sizeInBytes;
+
+    /**
+     * @param userQuery The query of the user.
+     * @param response The final response of the agent, as returned by the LLM (typically JSON).
+     * @param timestampMillis The epoch millis at which the response was received.
+     */
+    @JsonCreator
+    public ConversationTurn(@JsonProperty("userQuery") String userQuery,
+                            @JsonProperty("response") String response,
+                            @JsonProperty("timestampMillis") long timestampMillis) {
+        if (userQuery == null || response == null) {
+            throw new IllegalArgumentException("The user query and the response of a turn must not be null");
+        }
+        this.userQuery = userQuery;
+        this.response = response;
+        this.timestampMillis = timestampMillis;
+        this.sizeInBytes = userQuery.getBytes(StandardCharsets.UTF_8).length + response.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * @return The query of the user.
+     */
+    public String getUserQuery() {
+        return userQuery;
+    }
+
+    /**
+     * @return The final response of the agent.
+     */
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * @return The epoch millis at which the response was received.
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * @return The size of the query and of the response in UTF-8, the unit of the budget of a session.
+     */
+    public int getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversationTurn{" +
+                "userQuery='" + userQuery + '\'' +
+                ", response='" + response + '\'' +
+                ", timestampMillis=" + timestampMillis +
+                '}';
+    }
+}
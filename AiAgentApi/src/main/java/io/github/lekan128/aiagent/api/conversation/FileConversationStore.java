@@ -0,0 +1,207 @@
+package io.github.lekan128.aiagent.api.conversation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A {@link ConversationStore} keeping each conversation in a file, so the conversations survive a restart.
+ *
+ * <p>Each session is a file of JSON lines, one per turn, in the store directory, named after a SHA-256 hash of the
+ * session identifier. A session keeps its most recent turns whose total size ({@link ConversationTurn#getSizeInBytes()})
+ * is within a byte budget. The turns are appended to the file, which is rewritten with the kept turns only once it
+ * holds twice the budget (plus 16 KB), so neither the file nor the history read from it grow with the length of the conversation.
+ * A line left incomplete by a crash is ignored.</p>
+ *
+ * <p>This class is thread-safe within one JVM, the files must not be shared by several processes.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class FileConversationStore implements ConversationStore {
+    private static final int LOCK_STRIPES = 64;
+    /** Allowance for the JSON syntax around the turns, so a compacted file is not compacted again on the next append. */
+    private static final long COMPACTION_SLACK_BYTES = 16 * 1024;
+
+    private final Path directory;
+    private final int maxBytesPerSession;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param directory The directory of the session files, created if it does not exist.
+     * @param maxBytesPerSession The maximum total size of the turns kept per session, at least 1.
+     * @throws UncheckedIOException If the directory cannot be created.
+     */
+    public FileConversationStore(Path directory, int maxBytesPerSession) {
+        if (maxBytesPerSession < 1) {
+            throw new IllegalArgumentException("maxBytesPerSession must be at least 1, was " + maxBytesPerSession);
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create the conversation directory " + directory, e);
+        }
+        this.directory = directory;
+        this.maxBytesPerSession = maxBytesPerSession;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException If the session file cannot be read.
+     */
+    @Override
+    public List<ConversationTurn> getHistory(String sessionId) {
+        Path file = fileOf(sessionId);
+        synchronized (lockOf(sessionId)) {
+            try {
+                return List.copyOf(readKeptTurns(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read the conversation file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException If the session file cannot be written.
+     */
+    @Override
+    public void append(String sessionId, ConversationTurn turn) {
+        Path file = fileOf(sessionId);
+        synchronized (lockOf(sessionId)) {
+            boolean incompleteLastLine;
+            try {
+                incompleteLastLine = hasIncompleteLastLine(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read the conversation file " + file, e);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (incompleteLastLine) {
+                    writer.write('\n'); // So the turn does not continue the line left incomplete by a crash
+                }
+                writer.write(toJsonLine(turn));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write the conversation file " + file, e);
+            }
+
+            try {
+                if (Files.size(file) > 2L * maxBytesPerSession + COMPACTION_SLACK_BYTES) {
+                    compact(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to compact the conversation file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException If the session file cannot be deleted.
+     */
+    @Override
+    public void clear(String sessionId) {
+        Path file = fileOf(sessionId);
+        synchronized (lockOf(sessionId)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to delete the conversation file " + file, e);
+            }
+        }
+    }
+
+    /**
+     * @return The maximum total size of the turns kept per session.
+     */
+    public int getMaxBytesPerSession() {
+        return maxBytesPerSession;
+    }
+
+    private Deque<ConversationTurn> readKeptTurns(Path file) throws IOException {
+        Deque<ConversationTurn> turns = new ArrayDeque<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return turns;
+        }
+
+        ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
+        long sizeInBytes = 0;
+        for (String line : lines) {
+            ConversationTurn turn;
+            try {
+                turn = objectMapper.readValue(line, ConversationTurn.class);
+            } catch (JsonProcessingException e) {
+                continue; // Incomplete line
+            }
+            turns.addLast(turn);
+            sizeInBytes += turn.getSizeInBytes();
+            while (sizeInBytes > maxBytesPerSession && !turns.isEmpty()) {
+                sizeInBytes -= turns.removeFirst().getSizeInBytes();
+            }
+        }
+        return turns;
+    }
+
+    private void compact(Path file) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (ConversationTurn turn : readKeptTurns(file)) {
+                writer.write(toJsonLine(turn));
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean hasIncompleteLastLine(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return false;
+            }
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, size - 1);
+            return lastByte.get(0) != '\n';
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static String toJsonLine(ConversationTurn turn) throws JsonProcessingException {
+        return ObjectMapperSingleton.getObjectMapper().writeValueAsString(turn) + '\n';
+    }
+
+    private Path fileOf(String sessionId) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+        byte[] hash = digest.digest(sessionId.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(HexFormat.of().formatHex(hash) + ".jsonl");
+    }
+
+    private Object lockOf(String sessionId) {
+        return locks[Math.floorMod(sessionId.hashCode(), LOCK_STRIPES)];
+    }
+}
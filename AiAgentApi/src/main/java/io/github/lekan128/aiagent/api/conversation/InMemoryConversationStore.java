@@ -0,0 +1,93 @@
+package io.github.lekan128.aiagent.api.conversation;
+
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.cache.LruCache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A {@link ConversationStore} keeping the conversations in memory.
+ *
+ * <p>Each session keeps its most recent turns whose total size ({@link ConversationTurn#getSizeInBytes()}) is
+ * within a byte budget, the oldest turns are discarded first, so the memory used by a session does not grow with
+ * the length of the conversation. The least recently used session is discarded once the store holds more than its
+ * maximum number of sessions.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class InMemoryConversationStore implements ConversationStore {
+    private final int maxBytesPerSession;
+    private final LruCache<String, Session> sessions;
+
+    /**
+     * Creates a store with the conversation budgets of {@link AgentConfig#getDefault()}.
+     */
+    public InMemoryConversationStore() {
+        this(AgentConfig.getDefault().getConversationMaxBytes(), AgentConfig.getDefault().getConversationMaxSessions());
+    }
+
+    /**
+     * @param maxBytesPerSession The maximum total size of the turns kept per session, at least 1.
+     * @param maxSessions The maximum number of sessions kept, at least 1.
+     */
+    public InMemoryConversationStore(int maxBytesPerSession, int maxSessions) {
+        if (maxBytesPerSession < 1) {
+            throw new IllegalArgumentException("maxBytesPerSession must be at least 1, was " + maxBytesPerSession);
+        }
+        this.maxBytesPerSession = maxBytesPerSession;
+        this.sessions = new LruCache<>(maxSessions);
+    }
+
+    @Override
+    public List<ConversationTurn> getHistory(String sessionId) {
+        Session session = sessions.get(sessionId);
+        return session == null ? List.of() : session.getTurns();
+    }
+
+    @Override
+    public void append(String sessionId, ConversationTurn turn) {
+        Session session;
+        synchronized (sessions) {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                session = new Session();
+                sessions.put(sessionId, session);
+            }
+        }
+        session.append(turn, maxBytesPerSession);
+    }
+
+    @Override
+    public void clear(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * @return The maximum total size of the turns kept per session.
+     */
+    public int getMaxBytesPerSession() {
+        return maxBytesPerSession;
+    }
+
+    private static final class Session {
+        private final Deque<ConversationTurn> turns = new ArrayDeque<>();
+        private long sizeInBytes;
+
+        private synchronized List<ConversationTurn> getTurns() {
+            return List.copyOf(turns);
+        }
+
+        private synchronized void append(ConversationTurn turn, int maxBytes) {
+            turns.addLast(turn);
+            sizeInBytes += turn.getSizeInBytes();
+            while (sizeInBytes > maxBytes && !turns.isEmpty()) {
+                sizeInBytes -= turns.removeFirst().getSizeInBytes();
+            }
+        }
+    }
+}
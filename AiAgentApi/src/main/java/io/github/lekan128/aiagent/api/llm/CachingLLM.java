@@ -0,0 +1,332 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.cache.LruCache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * An {@link LLM} decorator that answers the prompts it has already seen from a cache, without calling the LLM again.
+ *
+ * <p>The responses are keyed by a SHA-256 hash of the model name and of the normalized prompt (whitespace runs
+ * collapsed and trimmed), so prompts differing only by their formatting share their response. They are kept in a
+ * bounded in-memory LRU cache, optionally with a time-to-live, and optionally in an append-only file, memory-mapped
+ * when it is opened, so a restarted application does not start with a cold cache. The file keeps at most
+ * {@code maxPersistentEntries} responses and is rewritten without the superseded ones as it grows.</p>
+ *
+ * <p>Only use it where the same prompt can receive the same response, e.g., tool plans or deterministic queries.
+ * The wrapped LLM is not closed by {@link #close()}.</p>
+ *
+ * <pre>{@code
+ * LLM llm = CachingLLM.builder(new Gemini())
+ *         .maxEntries(1_000)
+ *         .ttl(Duration.ofHours(1))
+ *         .persistentFile(Path.of("llm-cache.bin"))
+ *         .build();
+ * }</pre>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class CachingLLM extends LLM implements AutoCloseable {
+    /** The maximum number of responses kept in memory when none is configured. */
+    public static final int DEFAULT_MAX_ENTRIES = AgentConfig.DEFAULT_LLM_CACHE_SIZE;
+    /** The maximum number of responses kept in the persistent file when none is configured. */
+    public static final int DEFAULT_MAX_PERSISTENT_ENTRIES = AgentConfig.DEFAULT_LLM_CACHE_FILE_MAX_ENTRIES;
+
+    private final LLM delegate;
+    private final Duration ttl;
+    private final LruCache<String, String> memory;
+    private final ResponseFile responseFile;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder persistentHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    private CachingLLM(Builder builder) {
+        this.delegate = builder.delegate;
+        this.ttl = builder.ttl;
+        this.memory = new LruCache<>(builder.maxEntries, builder.ttl);
+        this.responseFile = builder.persistentFile == null ? null : ResponseFile.open(builder.persistentFile, builder.maxPersistentEntries);
+    }
+
+    /**
+     * @param delegate The LLM whose responses are cached.
+     * @return A new builder.
+     */
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * @return The model name of the wrapped LLM.
+     */
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    /**
+     * Returns the cached response of the prompt, or calls the wrapped LLM and caches its response.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return The raw, main text content of the LLM's response.
+     */
+    @Override
+    public String call(String prompt) {
+        String key = key(prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        return store(key, delegate.call(prompt));
+    }
+
+    /**
+     * Returns the cached response of the prompt, or calls the wrapped LLM asynchronously and caches its response.
+     * Cancelling the returned future cancels the call of the wrapped LLM.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return A future of the raw, main text content of the LLM's response.
+     */
+    @Override
+    public CompletableFuture<String> callAsync(String prompt) {
+        String key = key(prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return storeWhenDone(key, delegate.callAsync(prompt));
+    }
+
+    /**
+     * Hands over the cached response of the prompt as a single chunk, or streams the response of the wrapped LLM
+     * and caches it once complete.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @param chunkConsumer Receives the successive chunks of the response text.
+     * @return A future of the complete text of the response.
+     */
+    @Override
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        String key = key(prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            try {
+                chunkConsumer.accept(cached);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return CompletableFuture.completedFuture(cached);
+        }
+        return storeWhenDone(key, delegate.callStream(prompt, chunkConsumer));
+    }
+
+    /**
+     * @return A snapshot of the statistics of the cache. The hits include the responses found in the persistent file,
+     * the misses are the calls made to the wrapped LLM.
+     */
+    public CacheStats getStats() {
+        CacheStats memoryStats = memory.getStats();
+        return new CacheStats(hitCount.sum(), missCount.sum(), memoryStats.getEvictionCount(), memoryStats.getExpirationCount(), memoryStats.getSize());
+    }
+
+    /**
+     * @return The number of responses found in the persistent file rather than in memory.
+     */
+    public long getPersistentHitCount() {
+        return persistentHitCount.sum();
+    }
+
+    /**
+     * Discards every cached response, in memory and in the persistent file.
+     */
+    public void invalidateAll() {
+        memory.clear();
+        if (responseFile != null) {
+            responseFile.clear();
+        }
+    }
+
+    /**
+     * Closes the persistent file, if any. The wrapped LLM is not closed.
+     */
+    @Override
+    public void close() {
+        if (responseFile != null) {
+            responseFile.close();
+        }
+    }
+
+    private String lookup(String key) {
+        String cached = memory.get(key);
+        if (cached == null && responseFile != null) {
+            cached = responseFile.get(key);
+            if (cached != null) {
+                persistentHitCount.increment();
+                memory.put(key, cached);
+            }
+        }
+
+        if (cached == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Caches the response once the call completes. Cancelling the returned future cancels the call of the wrapped LLM.
+     */
+    private CompletableFuture<String> storeWhenDone(String key, CompletableFuture<String> call) {
+        CompletableFuture<String> response = call.thenApply(completed -> store(key, completed));
+        response.whenComplete((ignored, failure) -> {
+            if (response.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    private String store(String key, String response) {
+        if (response == null) {
+            return null;
+        }
+        memory.put(key, response);
+        if (responseFile != null) {
+            responseFile.put(key, response, ttl == null || ttl.isZero() ? 0 : System.currentTimeMillis() + ttl.toMillis());
+        }
+        return response;
+    }
+
+    private String key(String prompt) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+        digest.update(delegate.getModelName().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(normalize(prompt).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalize(String prompt) {
+        StringBuilder normalized = new StringBuilder(prompt.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = prompt.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Builder of {@link CachingLLM}.
+     *
+     * @author Olalekan
+     * @since 1.1.0
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private int maxPersistentEntries = DEFAULT_MAX_PERSISTENT_ENTRIES;
+        private Duration ttl;
+        private Path persistentFile;
+
+        private Builder(LLM delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("The LLM to cache must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Uses the LLM cache settings of the given configuration.
+         * @param config The configuration.
+         * @return This builder.
+         */
+        public Builder config(AgentConfig config) {
+            this.maxEntries = config.getLlmCacheSize();
+            this.ttl = config.getLlmCacheTtlSeconds() > 0 ? Duration.ofSeconds(config.getLlmCacheTtlSeconds()) : null;
+            this.persistentFile = config.getLlmCacheFile() == null ? null : Path.of(config.getLlmCacheFile());
+            this.maxPersistentEntries = config.getLlmCacheFileMaxEntries();
+            return this;
+        }
+
+        /**
+         * @param maxEntries The maximum number of responses kept in memory, at least 1. Defaults to {@value CachingLLM#DEFAULT_MAX_ENTRIES}.
+         * @return This builder.
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1, was " + maxEntries);
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param ttl How long a response is kept, {@code null} (the default) to keep it until it is evicted.
+         * @return This builder.
+         */
+        public Builder ttl(Duration ttl) {
+            if (ttl != null && ttl.isNegative()) {
+                throw new IllegalArgumentException("ttl must not be negative, was " + ttl);
+            }
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * @param persistentFile The append-only file in which the responses are also kept, {@code null} (the default) to keep them in memory only.
+         * @return This builder.
+         */
+        public Builder persistentFile(Path persistentFile) {
+            this.persistentFile = persistentFile;
+            return this;
+        }
+
+        /**
+         * @param maxPersistentEntries The maximum number of responses kept in the persistent file, at least 1, the
+         * oldest ones are dropped first. Defaults to {@value CachingLLM#DEFAULT_MAX_PERSISTENT_ENTRIES}.
+         * @return This builder.
+         */
+        public Builder maxPersistentEntries(int maxPersistentEntries) {
+            if (maxPersistentEntries < 1) {
+                throw new IllegalArgumentException("maxPersistentEntries must be at least 1, was " + maxPersistentEntries);
+            }
+            this.maxPersistentEntries = maxPersistentEntries;
+            return this;
+        }
+
+        /**
+         * @return The caching LLM, its persistent file is opened and indexed.
+         * @throws java.io.UncheckedIOException If the persistent file cannot be opened.
+         */
+        public CachingLLM build() {
+            return new CachingLLM(this);
+        }
+    }
+}
@@ -1,30 +1,89 @@
 package io.github.lekan128.aiagent.api.llm;
 
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.ClientOptions;
 import com.google.genai.types.GenerateContentResponse;
-import io.github.cdimascio.dotenv.Dotenv;
+import com.google.genai.types.HttpOptions;
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.ExecutorSingleton;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Provides a concrete implementation of the {@link LLM} contract for Google's Gemini models.
  *
  * <p>This class initializes the connection using the API key loaded from the **GEMINI_API_KEY**
- * environment variable (typically via a {@code .env} file and the Dotenv library, which is
- * expected to be managed by the implementation). It defaults to calling the gemini-2.5-flash model.</p>
+ * environment variable (typically via a {@code .env} file, read once by {@link AgentConfig#getDefault()}),
+ * unless another {@link AgentConfig} or API key is given to the {@link Builder}.
+ * It defaults to calling the gemini-2.5-flash model.</p>
+ *
+ * <p>One Google {@code Client} is created on the first call and reused by every following call, so the connections
+ * to the Gemini service are kept alive and the {@code .env} file is read only once. The client is thread-safe, one
+ * {@code Gemini} instance can be shared by the whole application. {@link #close()} releases its connections.</p>
  *
  * @author Olalekan
  * @since 1.0.0
  * @see LLM
  */
-public class Gemini extends LLM {
+public class Gemini extends LLM implements AutoCloseable {
+    /** The model called when none is configured. */
+    public static final String DEFAULT_MODEL_NAME = AgentConfig.DEFAULT_MODEL_NAME;
+
+    private final String apiKey;
+    private final String modelName;
+    private final Integer timeoutMillis;
+    private final String baseUrl;
+    private final Integer maxConnections;
+    private final Integer maxConnectionsPerHost;
+
+    private volatile Client client;
+    private boolean closed;
+
+    /**
+     * Creates a Gemini LLM configured by {@link AgentConfig#getDefault()}, i.e., calling the
+     * {@value #DEFAULT_MODEL_NAME} model with the API key of the {@code GEMINI_API_KEY} environment variable
+     * unless configured otherwise.
+     */
+    public Gemini() {
+        this(builder());
+    }
+
+    /**
+     * Creates a Gemini LLM with the API key, model name, timeout and connection limits of the given configuration.
+     * @param config The configuration.
+     * @since 1.1.0
+     */
+    public Gemini(AgentConfig config) {
+        this(builder().config(config));
+    }
+
+    private Gemini(Builder builder) {
+        this.apiKey = builder.apiKey;
+        this.modelName = builder.modelName;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.baseUrl = builder.baseUrl;
+        this.maxConnections = builder.maxConnections;
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+    }
+
+    /**
+     * @return A new builder, initialized with {@link AgentConfig#getDefault()}.
+     * @since 1.1.0
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
 
     /**
-     * Gets the standard name for this LLM implementation, which is "Gemini".
+     * Gets the name of the Gemini model called, e.g., "gemini-2.5-flash".
      *
-     * @return The string "Gemini".
+     * @return The name of the model.
      */
     @Override
     public String getModelName() {
-        return "Gemini";
+        return modelName;
     }
 
     /**
@@ -32,30 +91,264 @@ public class Gemini extends LLM {
      *
      * <p>The method performs the following steps:</p>
      * <ol>
-     * <li>Loads the API key from the environment/{@code .env} file.</li>
-     * <li>Initializes the {@code Client}.</li>
-     * <li>Calls the {@code gemini-2.5-flash} model with the input prompt.</li>
+     * <li>Retrieves the shared {@code Client}, initializing it on the first call.</li>
+     * <li>Calls the configured model with the input prompt.</li>
      * <li>Extracts and returns only the text content from the response.</li>
      * </ol>
-     * <p>The method assumes external libraries (e.g., Dotenv, Google's client library) are configured.</p>
+     * <p>The method assumes external libraries (e.g., Google's client library) are configured.</p>
      *
      * @param prompt The complete, structured prompt generated by the Agent.
      * @return The plain text response from the Gemini model.
      * @throws RuntimeException If the API key is missing or the API call fails. (Note:
      * The actual exceptions are likely wrapped by the specific LLM client library).
+     * @throws IllegalStateException If this instance has been closed.
      */
     @Override
     public String call(String prompt){
-        Dotenv dotenv = Dotenv.load(); // Loads variables from .env in the current directory
-        GenerateContentResponse generateContentResponse;
+        GenerateContentResponse generateContentResponse = getClient().models.generateContent(
+                modelName,
+                prompt,
+                null);
+        return generateContentResponse.text();
+    }
 
-        try (Client client = Client.builder().apiKey(dotenv.get("GEMINI_API_KEY")).build()) {
-            generateContentResponse = client.models.generateContent(
-                    "gemini-2.5-flash",
+    /**
+     * Executes a non-blocking API call to the Gemini service using the provided prompt.
+     *
+     * <p>Same as {@link #call(String)} but uses the asynchronous API of the Google client, no thread is held while
+     * waiting for the response.</p>
+     *
+     * @param prompt The complete, structured prompt generated by the Agent.
+     * @return A future of the plain text response from the Gemini model.
+     */
+    @Override
+    public CompletableFuture<String> callAsync(String prompt) {
+        Client currentClient;
+        try {
+            currentClient = getClient();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return currentClient.async.models.generateContent(
+                        modelName,
+                        prompt,
+                        null)
+                .thenApply(GenerateContentResponse::text);
+    }
+
+    /**
+     * Executes a streaming API call to the Gemini service using the provided prompt.
+     *
+     * <p>The chunks of the response are handed over as soon as they are received from the server-sent event stream.</p>
+     *
+     * <p>The Google client only reads a stream with blocking calls, so each stream holds a thread of the shared
+     * {@link ExecutorSingleton} executor until it ends (a virtual thread on Java 21+). Completing or cancelling the
+     * returned future, e.g., when the agent stops waiting for the plan, closes the stream and frees the thread.</p>
+     *
+     * @param prompt The complete, structured prompt generated by the Agent.
+     * @param chunkConsumer Receives the successive chunks of the response text.
+     * @return A future of the complete plain text response from the Gemini model.
+     */
+    @Override
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ExecutorSingleton.getExecutor().execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+
+            try (ResponseStream<GenerateContentResponse> responseStream = getClient().models.generateContentStream(
+                    modelName,
                     prompt,
-                    null);
+                    null)) {
+                // Unblocks the read below once nobody waits for the response anymore
+                result.whenComplete((ignored, failure) -> responseStream.close());
+                for (GenerateContentResponse response : responseStream) {
+                    if (result.isDone()) {
+                        break;
+                    }
+                    String chunk = response.text();
+                    if (chunk != null && !chunk.isEmpty()) {
+                        text.append(chunk);
+                        chunkConsumer.accept(chunk);
+                    }
+                }
+                result.complete(text.toString());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Closes the Google client and its connections. Calls made afterwards fail with an {@link IllegalStateException}.
+     * @since 1.1.0
+     */
+    @Override
+    public void close() {
+        Client currentClient;
+        synchronized (this) {
+            closed = true;
+            currentClient = client;
+            client = null;
+        }
+        if (currentClient != null) {
+            currentClient.close();
         }
-        return generateContentResponse.text();
     }
-}
 
+    private Client getClient() {
+        Client current = client;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("This Gemini instance has been closed");
+            }
+            if (client == null) {
+                client = createClient();
+            }
+            return client;
+        }
+    }
+
+    private Client createClient() {
+        Client.Builder clientBuilder = Client.builder();
+        if (apiKey != null) {
+            clientBuilder.apiKey(apiKey);
+        }
+
+        if (timeoutMillis != null || baseUrl != null) {
+            HttpOptions.Builder httpOptions = HttpOptions.builder();
+            if (timeoutMillis != null) {
+                httpOptions.timeout(timeoutMillis);
+            }
+            if (baseUrl != null) {
+                httpOptions.baseUrl(baseUrl);
+            }
+            clientBuilder.httpOptions(httpOptions.build());
+        }
+
+        if (maxConnections != null || maxConnectionsPerHost != null) {
+            ClientOptions.Builder clientOptions = ClientOptions.builder();
+            if (maxConnections != null) {
+                clientOptions.maxConnections(maxConnections);
+            }
+            if (maxConnectionsPerHost != null) {
+                clientOptions.maxConnectionsPerHost(maxConnectionsPerHost);
+            }
+            clientBuilder.clientOptions(clientOptions.build());
+        }
+        return clientBuilder.build();
+    }
+
+    /**
+     * Builder of {@link Gemini}. The options left unset use the defaults of the Google client.
+     *
+     * @author Olalekan
+     * @since 1.1.0
+     */
+    public static final class Builder {
+        private String apiKey;
+        private String modelName = DEFAULT_MODEL_NAME;
+        private Integer timeoutMillis;
+        private String baseUrl;
+        private Integer maxConnections;
+        private Integer maxConnectionsPerHost;
+
+        private Builder() {
+            config(AgentConfig.getDefault());
+        }
+
+        /**
+         * Uses the API key, model name, timeout and connection limits of the given configuration.
+         * @param config The configuration.
+         * @return This builder.
+         */
+        public Builder config(AgentConfig config) {
+            this.apiKey = config.getGeminiApiKey();
+            this.modelName = config.getModelName();
+            this.timeoutMillis = config.getLlmTimeoutMillis() > 0 ? config.getLlmTimeoutMillis() : null;
+            this.maxConnections = config.getLlmMaxConnections() > 0 ? config.getLlmMaxConnections() : null;
+            this.maxConnectionsPerHost = config.getLlmMaxConnectionsPerHost() > 0 ? config.getLlmMaxConnectionsPerHost() : null;
+            return this;
+        }
+
+        /**
+         * @param apiKey The Gemini API key. Defaults to the {@code GEMINI_API_KEY} setting of the {@link AgentConfig}.
+         * @return This builder.
+         */
+        public Builder apiKey(String apiKey) {
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * @param modelName The model to call. Defaults to {@value Gemini#DEFAULT_MODEL_NAME}.
+         * @return This builder.
+         */
+        public Builder modelName(String modelName) {
+            if (modelName == null || modelName.isBlank()) {
+                throw new IllegalArgumentException("modelName must not be blank");
+            }
+            this.modelName = modelName;
+            return this;
+        }
+
+        /**
+         * @param timeoutMillis The timeout of each request, in milliseconds.
+         * @return This builder.
+         */
+        public Builder timeoutMillis(int timeoutMillis) {
+            if (timeoutMillis < 1) {
+                throw new IllegalArgumentException("timeoutMillis must be at least 1, was " + timeoutMillis);
+            }
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * @param baseUrl The base URL of the Gemini API, e.g., a local stub server for load tests.
+         * @return This builder.
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * @param maxConnections The maximum number of concurrent connections of the client.
+         * @return This builder.
+         */
+        public Builder maxConnections(int maxConnections) {
+            if (maxConnections < 1) {
+                throw new IllegalArgumentException("maxConnections must be at least 1, was " + maxConnections);
+            }
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerHost The maximum number of concurrent connections of the client to one host.
+         * @return This builder.
+         */
+        public Builder maxConnectionsPerHost(int maxConnectionsPerHost) {
+            if (maxConnectionsPerHost < 1) {
+                throw new IllegalArgumentException("maxConnectionsPerHost must be at least 1, was " + maxConnectionsPerHost);
+            }
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        /**
+         * @return The Gemini LLM. Its client is created on the first call.
+         */
+        public Gemini build() {
+            return new Gemini(this);
+        }
+    }
+}
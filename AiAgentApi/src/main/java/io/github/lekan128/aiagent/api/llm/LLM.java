@@ -1,5 +1,10 @@
 package io.github.lekan128.aiagent.api.llm;
 
+import io.github.lekan128.aiagent.api.ExecutorSingleton;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 /**
  * Abstract base class that defines the core contract for all Language Model (LLM) implementations.
  *
@@ -37,4 +42,37 @@ public abstract class LLM {
      * @return The raw, main text content of the LLM's response, stripped of any metadata or internal API wrappers.
      */
     public abstract String call(String prompt);
+
+    /**
+     * Sends the prompt to the underlying LLM API without blocking the calling thread.
+     *
+     * <p>The default implementation runs {@link #call(String)} on the shared {@link ExecutorSingleton} executor,
+     * so existing subclasses work unchanged. Subclasses whose client library offers a non-blocking API should
+     * override this method so no thread is held while waiting for the response.</p>
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return A future of the raw, main text content of the LLM's response.
+     */
+    public CompletableFuture<String> callAsync(String prompt) {
+        return CompletableFuture.supplyAsync(() -> call(prompt), ExecutorSingleton.getExecutor());
+    }
+
+    /**
+     * Sends the prompt to the underlying LLM API and hands over the text of the response chunk by chunk, as it is generated.
+     *
+     * <p>The {@code Agent} uses it to start executing the planned tool calls before the whole plan has been generated.
+     * The default implementation hands over the complete response of {@link #callAsync(String)} as a single chunk.
+     * Subclasses whose API can stream the response should override this method.</p>
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @param chunkConsumer Receives the successive chunks of the response text, in order, from one thread at a time.
+     * @return A future of the complete text of the response, completed after the last chunk has been handed over.
+     * @since 1.1.0
+     */
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        return callAsync(prompt).thenApply(text -> {
+            chunkConsumer.accept(text);
+            return text;
+        });
+    }
 }
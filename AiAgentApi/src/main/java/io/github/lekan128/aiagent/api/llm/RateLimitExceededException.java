@@ -0,0 +1,32 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import java.time.Duration;
+
+/**
+ * Thrown by {@link RateLimitedLLM} when a call is rejected rather than queued: the wait queue is full, or the call
+ * would wait longer than allowed.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    /**
+     * @param message The reason of the rejection.
+     * @param retryAfter How long the call would have waited for its turn.
+     */
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return How long the call would have waited for its turn when it was rejected, a hint of when to retry.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.lekan128.aiagent.api.llm;
+
+/**
+ * An immutable snapshot of the statistics of a {@link RateLimitedLLM}.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class RateLimitStats {
+    private final long admittedCount;
+    private final long rejectedCount;
+    private final long waitedCount;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    /**
+     * @param admittedCount The number of calls passed to the wrapped LLM, immediately or after a wait.
+     * @param rejectedCount The number of calls rejected.
+     * @param waitedCount The number of admitted calls that waited for their turn.
+     * @param queueDepth The number of calls waiting when the snapshot was taken.
+     * @param maxQueueDepth The largest number of calls waiting at the same time.
+     * @param totalWaitNanos The total time the admitted calls waited, in nanoseconds.
+     * @param maxWaitNanos The longest wait of an admitted call, in nanoseconds.
+     */
+    public RateLimitStats(long admittedCount, long rejectedCount, long waitedCount, int queueDepth, int maxQueueDepth, long totalWaitNanos, long maxWaitNanos) {
+        this.admittedCount = admittedCount;
+        this.rejectedCount = rejectedCount;
+        this.waitedCount = waitedCount;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * @return The number of calls passed to the wrapped LLM, immediately or after a wait.
+     */
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * @return The number of calls rejected because the queue was full or the wait too long.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return The number of admitted calls that waited for their turn.
+     */
+    public long getWaitedCount() {
+        return waitedCount;
+    }
+
+    /**
+     * @return The number of calls waiting when the snapshot was taken.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return The largest number of calls waiting at the same time.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return The total time the admitted calls waited, in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    /**
+     * @return The longest wait of an admitted call, in nanoseconds.
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * @return The average wait of the admitted calls in milliseconds, including those that did not wait, 0 if no call was admitted.
+     */
+    public double getAverageWaitMillis() {
+        return admittedCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / admittedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitStats{" +
+                "admittedCount=" + admittedCount +
+                ", rejectedCount=" + rejectedCount +
+                ", waitedCount=" + waitedCount +
+                ", queueDepth=" + queueDepth +
+                ", maxQueueDepth=" + maxQueueDepth +
+                ", totalWaitNanos=" + totalWaitNanos +
+                ", maxWaitNanos=" + maxWaitNanos +
+                '}';
+    }
+}
@@ -0,0 +1,411 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.ExecutorSingleton;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * An {@link LLM} decorator that admits the calls within the quotas of the provider, so a burst of calls is spread
+ * over time instead of being throttled by the provider.
+ *
+ * <p>The calls are limited by two token buckets: one of requests per second, and one of estimated prompt tokens per
+ * minute (by default, a token per 4 chars of the prompt). A call that exceeds a quota reserves its turn and waits for
+ * it, the waiting calls being served in the order they arrived. A call is rejected with a
+ * {@link RateLimitExceededException}, without waiting, when {@link Builder#maxQueuedCalls(int)} calls already wait
+ * or when its turn is further than {@link Builder#maxQueueWait(Duration)}; a queue of 0 calls rejects every call
+ * that would wait.</p>
+ *
+ * <p>{@link #call(String)} waits on the calling thread. {@link #callAsync(String)} and
+ * {@link #callStream(String, Consumer)} hold no thread while they wait, the call is started by a timer. Cancelling
+ * their future leaves the queue if the call still waits, and cancels the call of the wrapped LLM otherwise.</p>
+ *
+ * <pre>{@code
+ * LLM llm = RateLimitedLLM.builder(new Gemini())
+ *         .requestsPerSecond(10)
+ *         .tokensPerMinute(1_000_000)
+ *         .maxQueuedCalls(100)
+ *         .maxQueueWait(Duration.ofSeconds(20))
+ *         .build();
+ * }</pre>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class RateLimitedLLM extends LLM {
+    private final LLM delegate;
+    /** {@code null} if the requests are not limited. */
+    private final Bucket requests;
+    /** {@code null} if the tokens are not limited. */
+    private final Bucket tokens;
+    private final ToIntFunction<String> tokenEstimator;
+    private final int maxQueuedCalls;
+    private final long maxQueueWaitNanos;
+
+    private final Object lock = new Object();
+    private int queueDepth;
+    private int maxQueueDepth;
+    private long maxWaitNanos;
+
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder waitedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private RateLimitedLLM(Builder builder) {
+        this.delegate = builder.delegate;
+        this.requests = builder.requestsPerSecond == 0 ? null
+                : new Bucket(TimeUnit.SECONDS.toNanos(1) / builder.requestsPerSecond, builder.requestBurst > 0 ? builder.requestBurst : Math.max(1, (int) Math.ceil(builder.requestsPerSecond)));
+        this.tokens = builder.tokensPerMinute == 0 ? null
+                : new Bucket((double) TimeUnit.MINUTES.toNanos(1) / builder.tokensPerMinute, builder.tokenBurst > 0 ? builder.tokenBurst : builder.tokensPerMinute);
+        this.tokenEstimator = builder.tokenEstimator;
+        this.maxQueuedCalls = builder.maxQueuedCalls;
+        this.maxQueueWaitNanos = builder.maxQueueWait.toNanos();
+    }
+
+    /**
+     * @param delegate The LLM whose calls are limited.
+     * @return A new builder.
+     */
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * @return The model name of the wrapped LLM.
+     */
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    /**
+     * Waits for the turn of the call, then calls the wrapped LLM.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return The raw, main text content of the LLM's response.
+     * @throws RateLimitExceededException If the call is rejected.
+     */
+    @Override
+    public String call(String prompt) {
+        long waitNanos = reserve(prompt);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the rate limit of " + delegate.getModelName(), e);
+            } finally {
+                dequeue();
+            }
+        }
+        return delegate.call(prompt);
+    }
+
+    /**
+     * Calls the wrapped LLM asynchronously once it is the turn of the call, without holding a thread meanwhile.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return A future of the raw, main text content of the LLM's response, failed with a
+     * {@link RateLimitExceededException} if the call is rejected.
+     */
+    @Override
+    public CompletableFuture<String> callAsync(String prompt) {
+        return admit(prompt, () -> delegate.callAsync(prompt));
+    }
+
+    /**
+     * Streams the response of the wrapped LLM once it is the turn of the call, without holding a thread meanwhile.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @param chunkConsumer Receives the successive chunks of the response text.
+     * @return A future of the complete text of the response, failed with a {@link RateLimitExceededException} if the
+     * call is rejected.
+     */
+    @Override
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        return admit(prompt, () -> delegate.callStream(prompt, chunkConsumer));
+    }
+
+    /**
+     * @return A snapshot of the statistics of the admitted, waiting and rejected calls.
+     */
+    public RateLimitStats getStats() {
+        synchronized (lock) {
+            return new RateLimitStats(admittedCount.sum(), rejectedCount.sum(), waitedCount.sum(), queueDepth, maxQueueDepth, totalWaitNanos.sum(), maxWaitNanos);
+        }
+    }
+
+    private CompletableFuture<String> admit(String prompt, Supplier<CompletableFuture<String>> delegateCall) {
+        long waitNanos;
+        try {
+            waitNanos = reserve(prompt);
+        } catch (RateLimitExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (waitNanos == 0) {
+            return delegateCall.get();
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        // Left once, when the turn comes or when the call is cancelled while it waits
+        AtomicBoolean queued = new AtomicBoolean(true);
+        result.whenComplete((ignored, failure) -> {
+            if (queued.compareAndSet(true, false)) {
+                dequeue();
+            }
+        });
+        CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, ExecutorSingleton.getExecutor()).execute(() -> {
+            if (!queued.compareAndSet(true, false)) {
+                // Cancelled while waiting, the wrapped LLM is not called
+                return;
+            }
+            dequeue();
+            CompletableFuture<String> call;
+            try {
+                call = delegateCall.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            result.whenComplete((ignored, failure) -> {
+                if (result.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            call.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Reserves the turn of a call in both buckets, unless it is rejected.
+     * @return How long the call waits for its turn in nanoseconds, 0 if it can start now.
+     */
+    private long reserve(String prompt) {
+        long cost = tokens == null ? 0 : Math.max(1, tokenEstimator.applyAsInt(prompt));
+        synchronized (lock) {
+            long now = System.nanoTime();
+            long startAt = now;
+            if (requests != null) {
+                startAt = Math.max(startAt, requests.availableAt(now, 1));
+            }
+            if (tokens != null) {
+                startAt = Math.max(startAt, tokens.availableAt(now, cost));
+            }
+
+            long waitNanos = startAt - now;
+            if (waitNanos > 0) {
+                if (queueDepth >= maxQueuedCalls) {
+                    rejectedCount.increment();
+                    throw new RateLimitExceededException("The rate limit of " + delegate.getModelName() + " is exceeded and "
+                            + queueDepth + " calls are already waiting", Duration.ofNanos(waitNanos));
+                }
+                if (waitNanos > maxQueueWaitNanos) {
+                    rejectedCount.increment();
+                    throw new RateLimitExceededException("The rate limit of " + delegate.getModelName() + " is exceeded, the call would wait "
+                            + TimeUnit.NANOSECONDS.toMillis(waitNanos) + " ms", Duration.ofNanos(waitNanos));
+                }
+                queueDepth++;
+                maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+                maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+                waitedCount.increment();
+                totalWaitNanos.add(waitNanos);
+            }
+
+            if (requests != null) {
+                requests.take(now, 1);
+            }
+            if (tokens != null) {
+                tokens.take(now, cost);
+            }
+            admittedCount.increment();
+            return waitNanos;
+        }
+    }
+
+    private void dequeue() {
+        synchronized (lock) {
+            queueDepth--;
+        }
+    }
+
+    /**
+     * A token bucket kept as the time at which it would be full again (the generic cell rate algorithm), so the
+     * reservations beyond its capacity are the queue of the waiting calls. Guarded by the lock of the LLM.
+     */
+    private static final class Bucket {
+        private final double nanosPerUnit;
+        /** How far ahead of the present the bucket may be drained, i.e., its capacity in nanoseconds. */
+        private final long burstNanos;
+        private long fullAt = Long.MIN_VALUE;
+
+        private Bucket(double nanosPerUnit, int burst) {
+            this.nanosPerUnit = nanosPerUnit;
+            this.burstNanos = (long) (nanosPerUnit * burst);
+        }
+
+        /**
+         * @return The time at which {@code cost} units are available.
+         */
+        private long availableAt(long now, long cost) {
+            return Math.max(now, after(now, cost) - burstNanos);
+        }
+
+        private void take(long now, long cost) {
+            fullAt = after(now, cost);
+        }
+
+        private long after(long now, long cost) {
+            long start = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+            return start + (long) (nanosPerUnit * cost);
+        }
+    }
+
+    /**
+     * Builder of {@link RateLimitedLLM}.
+     *
+     * @author Olalekan
+     * @since 1.1.0
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private double requestsPerSecond;
+        private int requestBurst;
+        private int tokensPerMinute;
+        private int tokenBurst;
+        private ToIntFunction<String> tokenEstimator = prompt -> prompt.length() / 4 + 1;
+        private int maxQueuedCalls = AgentConfig.DEFAULT_LLM_MAX_QUEUED_CALLS;
+        private Duration maxQueueWait = Duration.ofMillis(AgentConfig.DEFAULT_LLM_MAX_QUEUE_WAIT_MILLIS);
+
+        private Builder(LLM delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("The LLM to rate limit must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * Uses the LLM rate limit settings of the given configuration.
+         * @param config The configuration.
+         * @return This builder.
+         */
+        public Builder config(AgentConfig config) {
+            this.requestsPerSecond = config.getLlmRequestsPerSecond();
+            this.tokensPerMinute = config.getLlmTokensPerMinute();
+            this.maxQueuedCalls = config.getLlmMaxQueuedCalls();
+            this.maxQueueWait = Duration.ofMillis(config.getLlmMaxQueueWaitMillis());
+            return this;
+        }
+
+        /**
+         * @param requestsPerSecond The maximum number of calls per second, 0 (the default) for no limit.
+         * @return This builder.
+         */
+        public Builder requestsPerSecond(double requestsPerSecond) {
+            if (!(requestsPerSecond >= 0) || Double.isInfinite(requestsPerSecond)) {
+                throw new IllegalArgumentException("requestsPerSecond must be a finite, non negative number, was " + requestsPerSecond);
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param requestBurst The number of calls admitted at once after an idle period, at least 1.
+         * Defaults to the requests per second, rounded up.
+         * @return This builder.
+         */
+        public Builder requestBurst(int requestBurst) {
+            if (requestBurst < 1) {
+                throw new IllegalArgumentException("requestBurst must be at least 1, was " + requestBurst);
+            }
+            this.requestBurst = requestBurst;
+            return this;
+        }
+
+        /**
+         * @param tokensPerMinute The maximum number of estimated prompt tokens per minute, 0 (the default) for no limit.
+         * @return This builder.
+         */
+        public Builder tokensPerMinute(int tokensPerMinute) {
+            if (tokensPerMinute < 0) {
+                throw new IllegalArgumentException("tokensPerMinute must not be negative, was " + tokensPerMinute);
+            }
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        /**
+         * @param tokenBurst The number of tokens admitted at once after an idle period, at least 1.
+         * Defaults to the tokens per minute.
+         * @return This builder.
+         */
+        public Builder tokenBurst(int tokenBurst) {
+            if (tokenBurst < 1) {
+                throw new IllegalArgumentException("tokenBurst must be at least 1, was " + tokenBurst);
+            }
+            this.tokenBurst = tokenBurst;
+            return this;
+        }
+
+        /**
+         * @param tokenEstimator Estimates the number of tokens of a prompt. Defaults to a token per 4 chars.
+         * @return This builder.
+         */
+        public Builder tokenEstimator(ToIntFunction<String> tokenEstimator) {
+            if (tokenEstimator == null) {
+                throw new IllegalArgumentException("The token estimator must not be null");
+            }
+            this.tokenEstimator = tokenEstimator;
+            return this;
+        }
+
+        /**
+         * @param maxQueuedCalls The maximum number of calls waiting for their turn, 0 to reject every call that would
+         * wait. Defaults to {@value AgentConfig#DEFAULT_LLM_MAX_QUEUED_CALLS}.
+         * @return This builder.
+         */
+        public Builder maxQueuedCalls(int maxQueuedCalls) {
+            if (maxQueuedCalls < 0) {
+                throw new IllegalArgumentException("maxQueuedCalls must not be negative, was " + maxQueuedCalls);
+            }
+            this.maxQueuedCalls = maxQueuedCalls;
+            return this;
+        }
+
+        /**
+         * @param maxQueueWait The longest wait of a call, the calls that would wait longer are rejected.
+         * Defaults to {@value AgentConfig#DEFAULT_LLM_MAX_QUEUE_WAIT_MILLIS} ms.
+         * @return This builder.
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            if (maxQueueWait == null || maxQueueWait.isNegative()) {
+                throw new IllegalArgumentException("maxQueueWait must not be null nor negative, was " + maxQueueWait);
+            }
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        /**
+         * @return The rate limited LLM.
+         */
+        public RateLimitedLLM build() {
+            return new RateLimitedLLM(this);
+        }
+    }
+}
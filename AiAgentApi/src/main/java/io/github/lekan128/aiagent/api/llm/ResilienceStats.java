@@ -0,0 +1,98 @@
+package io.github.lekan128.aiagent.api.llm;
+
+/**
+ * An immutable snapshot of the statistics of a {@link ResilientLLM}.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class ResilienceStats {
+    private final long callCount;
+    private final long attemptCount;
+    private final long retryCount;
+    private final long failureCount;
+    private final long hedgesFired;
+    private final long hedgesWon;
+    private final long hedgeDelayNanos;
+
+    /**
+     * @param callCount The number of calls made to the decorator.
+     * @param attemptCount The number of attempts made, excluding the hedges.
+     * @param retryCount The number of attempts made after a transient failure.
+     * @param failureCount The number of calls that failed after their last attempt.
+     * @param hedgesFired The number of duplicate requests sent because an attempt was slow.
+     * @param hedgesWon The number of hedges that returned before the attempt they duplicated.
+     * @param hedgeDelayNanos The current delay after which an attempt is hedged, in nanoseconds, -1 if no attempt is hedged yet.
+     */
+    public ResilienceStats(long callCount, long attemptCount, long retryCount, long failureCount, long hedgesFired, long hedgesWon, long hedgeDelayNanos) {
+        this.callCount = callCount;
+        this.attemptCount = attemptCount;
+        this.retryCount = retryCount;
+        this.failureCount = failureCount;
+        this.hedgesFired = hedgesFired;
+        this.hedgesWon = hedgesWon;
+        this.hedgeDelayNanos = hedgeDelayNanos;
+    }
+
+    /**
+     * @return The number of calls made to the decorator.
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * @return The number of attempts made, excluding the hedges.
+     */
+    public long getAttemptCount() {
+        return attemptCount;
+    }
+
+    /**
+     * @return The number of attempts made after a transient failure.
+     */
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * @return The number of calls that failed after their last attempt.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return The number of duplicate requests sent because an attempt was slow.
+     */
+    public long getHedgesFired() {
+        return hedgesFired;
+    }
+
+    /**
+     * @return The number of hedges that returned before the attempt they duplicated.
+     */
+    public long getHedgesWon() {
+        return hedgesWon;
+    }
+
+    /**
+     * @return The current delay after which an attempt is hedged, in nanoseconds, -1 if no attempt is hedged yet.
+     */
+    public long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResilienceStats{" +
+                "callCount=" + callCount +
+                ", attemptCount=" + attemptCount +
+                ", retryCount=" + retryCount +
+                ", failureCount=" + failureCount +
+                ", hedgesFired=" + hedgesFired +
+                ", hedgesWon=" + hedgesWon +
+                ", hedgeDelayNanos=" + hedgeDelayNanos +
+                '}';
+    }
+}
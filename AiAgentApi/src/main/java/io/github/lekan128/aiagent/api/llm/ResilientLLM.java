@@ -0,0 +1,570 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import com.google.genai.errors.ApiException;
+import com.google.genai.errors.GenAiIOException;
+import io.github.lekan128.aiagent.api.ExecutorSingleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * An {@link LLM} decorator that retries the calls failing with a transient error and hedges the slow ones, so one
+ * slow or failed response does not fail, nor delay, the whole agent run.
+ *
+ * <p><b>Retries:</b> a call failing with a transient error (by default an I/O error, a timeout, or an HTTP status
+ * 408, 429 or 5xx of the Gemini client) is attempted again, up to {@link Builder#maxAttempts(int)} attempts, after
+ * an exponential backoff with full jitter (a random delay between 0 and {@code initialBackoff * 2^(attempt - 1)},
+ * capped by {@code maxBackoff}).</p>
+ *
+ * <p><b>Hedging</b> (disabled by default): when an attempt has not returned after the given percentile of the
+ * latencies of the recent successful attempts, a duplicate request is sent and the first response wins. No attempt
+ * is hedged before {@value #MIN_LATENCY_SAMPLES} latencies are known. The hedges are capped to a ratio of the calls
+ * ({@link Builder#maxHedgeRatio(double)}), so a slow provider does not receive twice the load.</p>
+ *
+ * <p>{@link #callStream(String, Consumer)} is never hedged, since two streams would hand over their chunks twice,
+ * and is retried only if it failed before its first chunk.</p>
+ *
+ * <pre>{@code
+ * LLM llm = ResilientLLM.builder(new Gemini())
+ *         .maxAttempts(3)
+ *         .initialBackoff(Duration.ofMillis(200))
+ *         .hedgePercentile(0.95)
+ *         .maxHedgeRatio(0.1)
+ *         .build();
+ * }</pre>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class ResilientLLM extends LLM {
+    /** The number of latencies known before the attempts are hedged. */
+    public static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int LATENCY_WINDOW = 256;
+    /** How often, in samples, the hedge delay is computed again from the window. */
+    private static final int HEDGE_DELAY_REFRESH = 16;
+    /** The most hedges that can be saved up by the calls that were not hedged. */
+    private static final double MAX_HEDGE_BUDGET = 10;
+
+    private final LLM delegate;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Predicate<Throwable> retryOn;
+    /** The percentile of the latencies after which an attempt is hedged, 0 if hedging is disabled. */
+    private final double hedgePercentile;
+    private final long minHedgeDelayNanos;
+    private final double maxHedgeRatio;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+    private double hedgeBudget;
+    private volatile long hedgeDelayNanos = -1;
+
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder attemptCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder hedgesFired = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    private ResilientLLM(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.retryOn = builder.retryOn;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.minHedgeDelayNanos = builder.minHedgeDelay.toNanos();
+        this.maxHedgeRatio = builder.maxHedgeRatio;
+    }
+
+    /**
+     * @param delegate The LLM whose calls are retried and hedged.
+     * @return A new builder.
+     */
+    public static Builder builder(LLM delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * The default classification of the transient errors: an I/O error, a timeout, or an HTTP status 408, 429 or
+     * 5xx of the Gemini client, anywhere in the causes of the error. A {@link RateLimitExceededException} is not
+     * transient, retrying a call rejected locally would only add load.
+     *
+     * @param error The error of an attempt.
+     * @return {@code true} if the call may succeed if attempted again.
+     */
+    public static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof RateLimitExceededException) {
+                return false;
+            }
+            if (cause instanceof IOException || cause instanceof UncheckedIOException || cause instanceof TimeoutException
+                    || cause instanceof GenAiIOException) {
+                return true;
+            }
+            if (cause instanceof ApiException) {
+                int code = ((ApiException) cause).code();
+                return code == 408 || code == 429 || code >= 500;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The model name of the wrapped LLM.
+     */
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    /**
+     * Calls the wrapped LLM, retrying the transient failures. A hedged call waits for the asynchronous attempts.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return The raw, main text content of the LLM's response.
+     */
+    @Override
+    public String call(String prompt) {
+        if (hedgePercentile > 0) {
+            try {
+                return callAsync(prompt).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for " + delegate.getModelName(), e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new CompletionException(e.getCause());
+            }
+        }
+
+        callCount.increment();
+        for (int attempt = 1; ; attempt++) {
+            attemptCount.increment();
+            long start = System.nanoTime();
+            try {
+                String response = delegate.call(prompt);
+                recordLatency(System.nanoTime() - start);
+                return response;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryOn.test(e)) {
+                    failureCount.increment();
+                    throw e;
+                }
+            }
+            retryCount.increment();
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoffNanos(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting to retry " + delegate.getModelName(), e);
+            }
+        }
+    }
+
+    /**
+     * Calls the wrapped LLM asynchronously, retrying the transient failures and hedging the slow attempts.
+     * Cancelling the returned future cancels the running attempt, and no retry is started afterwards.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @return A future of the raw, main text content of the LLM's response.
+     */
+    @Override
+    public CompletableFuture<String> callAsync(String prompt) {
+        callCount.increment();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        attemptAsync(prompt, 1, result);
+        return result;
+    }
+
+    /**
+     * Streams the response of the wrapped LLM, retrying the transient failures that happened before the first chunk.
+     * Cancelling the returned future cancels the running stream, and no retry is started afterwards.
+     *
+     * @param prompt The final, complete text prompt to be sent to the LLM service.
+     * @param chunkConsumer Receives the successive chunks of the response text.
+     * @return A future of the complete text of the response.
+     */
+    @Override
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        callCount.increment();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        attemptStream(prompt, chunkConsumer, 1, result);
+        return result;
+    }
+
+    /**
+     * @return A snapshot of the counters of the attempts, retries and hedges.
+     */
+    public ResilienceStats getStats() {
+        return new ResilienceStats(callCount.sum(), attemptCount.sum(), retryCount.sum(), failureCount.sum(), hedgesFired.sum(), hedgesWon.sum(), hedgeDelayNanos);
+    }
+
+    private void attemptAsync(String prompt, int attempt, CompletableFuture<String> result) {
+        if (result.isDone()) {
+            return;
+        }
+        attemptCount.increment();
+        CompletableFuture<String> current = hedged(prompt);
+        cancelWhenDone(result, current);
+        current.whenComplete((response, failure) -> {
+            if (failure == null) {
+                result.complete(response);
+            } else {
+                retryOrFail(unwrap(failure), attempt, result, () -> attemptAsync(prompt, attempt + 1, result));
+            }
+        });
+    }
+
+    private void attemptStream(String prompt, Consumer<String> chunkConsumer, int attempt, CompletableFuture<String> result) {
+        if (result.isDone()) {
+            return;
+        }
+        attemptCount.increment();
+        AtomicBoolean delivered = new AtomicBoolean();
+        long start = System.nanoTime();
+        CompletableFuture<String> current = start(() -> delegate.callStream(prompt, chunk -> {
+            delivered.set(true);
+            chunkConsumer.accept(chunk);
+        }));
+        cancelWhenDone(result, current);
+        current.whenComplete((response, failure) -> {
+            if (failure == null) {
+                recordLatency(System.nanoTime() - start);
+                result.complete(response);
+            } else if (delivered.get()) {
+                failureCount.increment();
+                result.completeExceptionally(unwrap(failure));
+            } else {
+                retryOrFail(unwrap(failure), attempt, result, () -> attemptStream(prompt, chunkConsumer, attempt + 1, result));
+            }
+        });
+    }
+
+    private void retryOrFail(Throwable failure, int attempt, CompletableFuture<String> result, Runnable nextAttempt) {
+        if (result.isDone()) {
+            // Cancelled by the caller, the failure is the cancellation of the attempt
+            return;
+        }
+        if (attempt >= maxAttempts || !retryOn.test(failure)) {
+            failureCount.increment();
+            result.completeExceptionally(failure);
+            return;
+        }
+        retryCount.increment();
+        CompletableFuture.delayedExecutor(backoffNanos(attempt), TimeUnit.NANOSECONDS, ExecutorSingleton.getExecutor()).execute(nextAttempt);
+    }
+
+    /**
+     * Cancels the running attempt once the result of the call is complete, e.g., cancelled by the caller.
+     */
+    private static void cancelWhenDone(CompletableFuture<String> result, CompletableFuture<String> attempt) {
+        result.whenComplete((response, failure) -> attempt.cancel(true));
+    }
+
+    /**
+     * One attempt, duplicated if it is still running after the hedge delay and the hedge budget allows it.
+     * @return The future of the call itself, or of the race of the hedged attempt, so cancelling it cancels the calls.
+     */
+    private CompletableFuture<String> hedged(String prompt) {
+        long start = System.nanoTime();
+        CompletableFuture<String> primary = start(() -> delegate.callAsync(prompt));
+        long delayNanos = hedgePercentile > 0 && creditHedgeBudget() ? hedgeDelayNanos : -1;
+        if (delayNanos < 0) {
+            primary.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    recordLatency(System.nanoTime() - start);
+                }
+            });
+            return primary;
+        }
+
+        HedgedAttempt attempt = new HedgedAttempt(start);
+        attempt.track(primary);
+        primary.whenComplete((response, failure) -> attempt.onOutcome(response, failure, false));
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, ExecutorSingleton.getExecutor()).execute(() -> {
+            if (attempt.fire()) {
+                hedgesFired.increment();
+                CompletableFuture<String> hedge = start(() -> delegate.callAsync(prompt));
+                attempt.track(hedge);
+                hedge.whenComplete((response, failure) -> attempt.onOutcome(response, failure, true));
+            }
+        });
+        return attempt.result;
+    }
+
+    /**
+     * Adds the share of the hedges of an attempt to the budget.
+     * @return {@code true} if the attempt may be hedged: the hedge delay is known and the budget holds a hedge.
+     */
+    private synchronized boolean creditHedgeBudget() {
+        hedgeBudget = Math.min(MAX_HEDGE_BUDGET, hedgeBudget + maxHedgeRatio);
+        return hedgeDelayNanos >= 0 && hedgeBudget >= 1;
+    }
+
+    /**
+     * Takes a hedge from the budget.
+     * @return {@code true} if the budget held a hedge.
+     */
+    private synchronized boolean debitHedgeBudget() {
+        if (hedgeBudget < 1) {
+            return false;
+        }
+        hedgeBudget--;
+        return true;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        if (hedgePercentile == 0) {
+            return;
+        }
+        latencies[(int) (latencyCount % LATENCY_WINDOW)] = nanos;
+        latencyCount++;
+        if (latencyCount >= MIN_LATENCY_SAMPLES && (latencyCount % HEDGE_DELAY_REFRESH == 0 || hedgeDelayNanos < 0)) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_WINDOW));
+            Arrays.sort(window);
+            long percentile = window[(int) Math.min(window.length - 1, Math.ceil(hedgePercentile * window.length) - 1)];
+            hedgeDelayNanos = Math.max(minHedgeDelayNanos, percentile);
+        }
+    }
+
+    private long backoffNanos(int attempt) {
+        long ceiling = initialBackoffNanos << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxBackoffNanos) {
+            ceiling = maxBackoffNanos;
+        }
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static CompletableFuture<String> start(Supplier<CompletableFuture<String>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while ((failure instanceof CompletionException || failure instanceof ExecutionException) && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    /**
+     * The race of an attempt and of its hedge: the first response wins, the attempt fails only once both failed.
+     * Once the result is complete, by the winner or by the caller cancelling it, the call still running is cancelled.
+     */
+    private final class HedgedAttempt {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final long start;
+        /** The calls of the attempt, the first one and the hedge. Guarded by {@code this}. */
+        private final List<CompletableFuture<String>> calls = new ArrayList<>(2);
+        private int pending = 1;
+
+        private HedgedAttempt(long start) {
+            this.start = start;
+            result.whenComplete((response, failure) -> cancelCalls());
+        }
+
+        /**
+         * Registers a call of the attempt, cancelled right away if the result is already complete.
+         * @param call The call.
+         */
+        private void track(CompletableFuture<String> call) {
+            synchronized (this) {
+                if (!result.isDone()) {
+                    calls.add(call);
+                    return;
+                }
+            }
+            call.cancel(true);
+        }
+
+        private void cancelCalls() {
+            List<CompletableFuture<String>> running;
+            synchronized (this) {
+                running = List.copyOf(calls);
+                calls.clear();
+            }
+            for (CompletableFuture<String> call : running) {
+                call.cancel(true);
+            }
+        }
+
+        /**
+         * @return {@code true} if the hedge must be sent: the attempt is still running and the budget allows it.
+         */
+        private boolean fire() {
+            synchronized (this) {
+                if (result.isDone() || pending == 0) {
+                    return false;
+                }
+            }
+            if (!debitHedgeBudget()) {
+                return false;
+            }
+            synchronized (this) {
+                if (result.isDone() || pending == 0) {
+                    return false;
+                }
+                pending++;
+                return true;
+            }
+        }
+
+        private void onOutcome(String response, Throwable failure, boolean fromHedge) {
+            boolean failed;
+            synchronized (this) {
+                pending--;
+                failed = failure != null && pending == 0;
+            }
+            if (failure == null) {
+                if (result.complete(response)) {
+                    recordLatency(System.nanoTime() - start);
+                    if (fromHedge) {
+                        hedgesWon.increment();
+                    }
+                }
+            } else if (failed) {
+                result.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Builder of {@link ResilientLLM}.
+     *
+     * @author Olalekan
+     * @since 1.1.0
+     */
+    public static final class Builder {
+        private final LLM delegate;
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private Predicate<Throwable> retryOn = ResilientLLM::isTransient;
+        private double hedgePercentile;
+        private Duration minHedgeDelay = Duration.ofMillis(100);
+        private double maxHedgeRatio = 0.1;
+
+        private Builder(LLM delegate) {
+            if (delegate == null) {
+                throw new IllegalArgumentException("The LLM to make resilient must not be null");
+            }
+            this.delegate = delegate;
+        }
+
+        /**
+         * @param maxAttempts The maximum number of attempts of a call, at least 1 (no retry). Defaults to 3.
+         * @return This builder.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1, was " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff The upper bound of the random delay before the first retry, doubled at each retry.
+         * Defaults to 200 ms.
+         * @return This builder.
+         */
+        public Builder initialBackoff(Duration initialBackoff) {
+            if (initialBackoff == null || initialBackoff.isNegative()) {
+                throw new IllegalArgumentException("initialBackoff must not be null nor negative, was " + initialBackoff);
+            }
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * @param maxBackoff The largest upper bound of the random delay before a retry. Defaults to 10 s.
+         * @return This builder.
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            if (maxBackoff == null || maxBackoff.isNegative()) {
+                throw new IllegalArgumentException("maxBackoff must not be null nor negative, was " + maxBackoff);
+            }
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * @param retryOn Decides whether the error of an attempt is transient, so the call is attempted again.
+         * Defaults to {@link ResilientLLM#isTransient(Throwable)}.
+         * @return This builder.
+         */
+        public Builder retryOn(Predicate<Throwable> retryOn) {
+            if (retryOn == null) {
+                throw new IllegalArgumentException("retryOn must not be null");
+            }
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        /**
+         * @param hedgePercentile The percentile of the recent latencies (e.g., 0.95) after which an attempt still
+         * running is duplicated, between 0 (exclusive) and 1 (exclusive), or 0 (the default) to disable hedging.
+         * @return This builder.
+         */
+        public Builder hedgePercentile(double hedgePercentile) {
+            if (!(hedgePercentile >= 0 && hedgePercentile < 1)) {
+                throw new IllegalArgumentException("hedgePercentile must be at least 0 and less than 1, was " + hedgePercentile);
+            }
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        /**
+         * @param minHedgeDelay The shortest delay after which an attempt is hedged. Defaults to 100 ms.
+         * @return This builder.
+         */
+        public Builder minHedgeDelay(Duration minHedgeDelay) {
+            if (minHedgeDelay == null || minHedgeDelay.isNegative()) {
+                throw new IllegalArgumentException("minHedgeDelay must not be null nor negative, was " + minHedgeDelay);
+            }
+            this.minHedgeDelay = minHedgeDelay;
+            return this;
+        }
+
+        /**
+         * @param maxHedgeRatio The maximum number of hedges per call, on average, between 0 and 1. Defaults to 0.1,
+         * i.e., at most 10% extra requests.
+         * @return This builder.
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            if (!(maxHedgeRatio >= 0 && maxHedgeRatio <= 1)) {
+                throw new IllegalArgumentException("maxHedgeRatio must be between 0 and 1, was " + maxHedgeRatio);
+            }
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * @return The resilient LLM.
+         */
+        public ResilientLLM build() {
+            return new ResilientLLM(this);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The persistent tier of {@link CachingLLM}: an append-only file of LLM responses, indexed in memory by key.
+ *
+ * <p>Each record is {@code [key length][key][expiry epoch millis][value length][value]}, the lengths being
+ * {@code int}s and the strings UTF-8. A key written again supersedes its previous records. When the file is opened,
+ * it is memory-mapped and scanned once to build the index; the records found are then read from the mapping, the
+ * records appended afterwards from the file. A record left incomplete by a crash is cut off.</p>
+ *
+ * <p>At most {@code maxEntries} values are kept, the oldest written ones are dropped first. The records superseded,
+ * expired or dropped are dead: the file is rewritten without them, when it is opened or as values are written, once
+ * they take more space than the live ones.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+final class ResponseFile implements AutoCloseable {
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int EXPIRY_BYTES = Long.BYTES;
+    /** The size under which the dead records are not worth rewriting the file while it is in use. */
+    private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final int maxEntries;
+    /** The live records in the order they were written. */
+    private final Map<String, Location> index = new LinkedHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer mapping;
+    private long size;
+    private long liveBytes;
+
+    private ResponseFile(Path path, int maxEntries) {
+        this.path = path;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Opens the file, creating it if it does not exist, and indexes its live records.
+     * @param path The path of the file.
+     * @param maxEntries The maximum number of values kept, at least 1.
+     * @return The opened file.
+     * @throws UncheckedIOException If the file cannot be read or written.
+     */
+    static ResponseFile open(Path path, int maxEntries) {
+        ResponseFile responseFile = new ResponseFile(path, maxEntries);
+        try {
+            responseFile.load();
+        } catch (IOException e) {
+            responseFile.close();
+            throw new UncheckedIOException("Unable to open the LLM response cache file " + path, e);
+        }
+        return responseFile;
+    }
+
+    /**
+     * @param key The key.
+     * @return The value, or {@code null} if there is none, it has expired or the file is closed.
+     */
+    synchronized String get(String key) {
+        if (channel == null) {
+            return null;
+        }
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (location.isExpired(System.currentTimeMillis())) {
+            index.remove(key);
+            liveBytes -= location.recordBytes();
+            return null;
+        }
+        try {
+            return read(location);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the LLM response cache file " + path, e);
+        }
+    }
+
+    /**
+     * Appends the value, dropping the oldest values beyond the maximum and rewriting the file once most of it is dead.
+     * @param key The key.
+     * @param value The value.
+     * @param expiresAtMillis The epoch millis after which the value has expired, 0 if it never expires.
+     */
+    synchronized void put(String key, String value, long expiresAtMillis) {
+        if (channel == null) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + EXPIRY_BYTES + HEADER_BYTES + valueBytes.length)
+                .putInt(keyBytes.length).put(keyBytes)
+                .putLong(expiresAtMillis)
+                .putInt(valueBytes.length).put(valueBytes)
+                .flip();
+        long valuePosition = size + HEADER_BYTES + keyBytes.length + EXPIRY_BYTES + HEADER_BYTES;
+
+        try {
+            long position = size;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the LLM response cache file " + path, e);
+        }
+        size += record.capacity();
+        Location previous = index.remove(key);
+        if (previous != null) {
+            liveBytes -= previous.recordBytes();
+        }
+        Location location = new Location(valuePosition, keyBytes.length, valueBytes.length, expiresAtMillis);
+        index.put(key, location);
+        liveBytes += location.recordBytes();
+        evictOldest();
+
+        if (size >= MIN_COMPACTION_BYTES && size - liveBytes > liveBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to compact the LLM response cache file " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Forgets every value and empties the file.
+     */
+    synchronized void clear() {
+        index.clear();
+        liveBytes = 0;
+        if (channel == null) {
+            return;
+        }
+        try {
+            mapping = null;
+            channel.truncate(0);
+            size = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to clear the LLM response cache file " + path, e);
+        }
+    }
+
+    /**
+     * Closes the file. The values are no longer found and new ones are no longer written.
+     */
+    @Override
+    public synchronized void close() {
+        index.clear();
+        liveBytes = 0;
+        mapping = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to close the LLM response cache file " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("The file is larger than 2 GB");
+        }
+        mapping = fileSize == 0 ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+        long now = System.currentTimeMillis();
+        int position = 0;
+        while (mapping != null && position + HEADER_BYTES <= fileSize) {
+            int keyLength = mapping.getInt(position);
+            long valueHeader = (long) position + HEADER_BYTES + keyLength + EXPIRY_BYTES;
+            if (keyLength < 0 || valueHeader + HEADER_BYTES > fileSize) {
+                break;
+            }
+            int valueLength = mapping.getInt((int) valueHeader);
+            long end = valueHeader + HEADER_BYTES + valueLength;
+            if (valueLength < 0 || end > fileSize) {
+                break;
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            mapping.get(position + HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            long expiresAtMillis = mapping.getLong(position + HEADER_BYTES + keyLength);
+
+            Location previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.recordBytes();
+            }
+            Location location = new Location(valueHeader + HEADER_BYTES, keyLength, valueLength, expiresAtMillis);
+            if (!location.isExpired(now)) {
+                index.put(key, location);
+                liveBytes += location.recordBytes();
+            }
+            position = (int) end;
+        }
+        size = position;
+
+        if (position < fileSize) {
+            // The last record was not completely written
+            mapping = null;
+            channel.truncate(position);
+            mapping = position == 0 ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+        }
+        evictOldest();
+        if (size - liveBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    private void evictOldest() {
+        Iterator<Location> oldest = index.values().iterator();
+        while (index.size() > maxEntries) {
+            liveBytes -= oldest.next().recordBytes();
+            oldest.remove();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Location> compactedIndex = new LinkedHashMap<>();
+        long compactedSize = 0;
+
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] valueBytes = read(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + EXPIRY_BYTES + HEADER_BYTES + valueBytes.length)
+                        .putInt(keyBytes.length).put(keyBytes)
+                        .putLong(entry.getValue().expiresAtMillis)
+                        .putInt(valueBytes.length).put(valueBytes)
+                        .flip();
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+                long valuePosition = compactedSize + HEADER_BYTES + keyBytes.length + EXPIRY_BYTES + HEADER_BYTES;
+                compactedIndex.put(entry.getKey(), new Location(valuePosition, keyBytes.length, valueBytes.length, entry.getValue().expiresAtMillis));
+                compactedSize += record.capacity();
+            }
+            target.force(true);
+        }
+
+        mapping = null;
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapping = compactedSize == 0 ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, compactedSize);
+        index.clear();
+        index.putAll(compactedIndex);
+        size = compactedSize;
+        liveBytes = compactedSize;
+    }
+
+    private String read(Location location) throws IOException {
+        byte[] value = new byte[location.length];
+        if (mapping != null && location.position + location.length <= mapping.capacity()) {
+            mapping.get((int) location.position, value);
+        } else {
+            // Appended after the file was mapped
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            long position = location.position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                position += read;
+            }
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Location {
+        private final long position;
+        private final int keyLength;
+        private final int length;
+        private final long expiresAtMillis;
+
+        private Location(long position, int keyLength, int length, long expiresAtMillis) {
+            this.position = position;
+            this.keyLength = keyLength;
+            this.length = length;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long nowMillis) {
+            return expiresAtMillis != 0 && nowMillis >= expiresAtMillis;
+        }
+
+        private long recordBytes() {
+            return HEADER_BYTES + keyLength + EXPIRY_BYTES + HEADER_BYTES + length;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.lekan128.aiagent.api.metrics;
+
+/**
+ * Receives the measurements of an {@code Agent}: the latencies of the phases of its calls and of the tool calls, and
+ * the sizes of its prompts and responses.
+ *
+ * <p>Every agent keeps its measurements in an {@link InMemoryAgentMetrics}, read with
+ * {@code Agent#getMetricsSnapshot()}. An implementation of this interface given to
+ * {@code Agent#setMetricsExporter(AgentMetrics)} also receives every measurement, e.g., to forward it to the metrics
+ * registry of the application:</p>
+ * <pre>{@code
+ * agent.setMetricsExporter(new AgentMetrics() {
+ *     public void recordLatency(String name, long nanos, boolean success) {
+ *         Timer.builder(name).tag("outcome", success ? "success" : "error").register(registry).record(nanos, TimeUnit.NANOSECONDS);
+ *     }
+ *     public void recordSize(String name, long size) {
+ *         DistributionSummary.builder(name).register(registry).record(size);
+ *     }
+ * });
+ * }</pre>
+ *
+ * <p>The methods are called by the threads running the agent, concurrently, so implementations must be thread-safe,
+ * fast, and must not throw.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public interface AgentMetrics {
+    /** The latency of a whole call of the agent. */
+    String CALL = "agent.call";
+    /** The latency of the planning call of the LLM, until the whole plan (or direct answer) is read. */
+    String PLANNING = "agent.planning";
+    /** The latency added by the tool calls: from the moment the plan is read (or found in the cache) until every tool call is done. */
+    String EXECUTION = "agent.execution";
+    /** The latency of the final call of the LLM. */
+    String SYNTHESIS = "agent.synthesis";
+    /** The prefix of the latency of each tool method, followed by {@code className#methodName}. Cached results are not measured. */
+    String TOOL_PREFIX = "tool.";
+    /** The size in chars of the prompts of the planning calls. */
+    String PLANNING_PROMPT_CHARS = "agent.planning.prompt.chars";
+    /** The size in chars of the responses of the planning calls. */
+    String PLANNING_RESPONSE_CHARS = "agent.planning.response.chars";
+    /** The size in chars of the prompts of the final calls. */
+    String SYNTHESIS_PROMPT_CHARS = "agent.synthesis.prompt.chars";
+    /** The size in chars of the responses of the final calls. */
+    String SYNTHESIS_RESPONSE_CHARS = "agent.synthesis.response.chars";
+
+    /**
+     * Records the duration of an operation.
+     * @param name The name of the operation, one of the constants of this interface or a {@link #TOOL_PREFIX tool} name.
+     * @param nanos The duration in nanoseconds.
+     * @param success {@code false} if the operation failed.
+     */
+    void recordLatency(String name, long nanos, boolean success);
+
+    /**
+     * Records a size.
+     * @param name The name of the size, one of the constants of this interface.
+     * @param size The size, not negative.
+     */
+    void recordSize(String name, long size);
+}
@@ -0,0 +1,79 @@
+package io.github.lekan128.aiagent.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, with buckets of logarithmic width.
+ *
+ * <p>The values below {@value #SUB_BUCKETS} have a bucket each. Above, each power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so a value is known within 1/{@value #SUB_BUCKETS} (6.25%) of its
+ * magnitude, whatever the magnitude, with {@value #BUCKET_COUNT} buckets covering every {@code long}. Recording is
+ * one increment of a bucket and of striped counters, without allocation nor lock.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+final class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param value The value, negative values are recorded as 0.
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return A snapshot of the values recorded so far. Values recorded while it is taken may be partly included.
+     */
+    HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        long snapshotCount = count.sum();
+        return new HistogramSnapshot(snapshotCount, sum.sum(), snapshotCount == 0 ? 0 : min.get(), max.get(), counts);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The highest value recorded in the bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.lekan128.aiagent.api.metrics;
+
+/**
+ * An immutable snapshot of the values recorded by a histogram of an {@link InMemoryAgentMetrics}.
+ *
+ * <p>The percentiles are computed from buckets of logarithmic width: a percentile is the highest value of its bucket
+ * (never above the maximum), at most 6.25% above the exact value.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+    private final long[] bucketCounts;
+
+    HistogramSnapshot(long count, long sum, long min, long max, long[] bucketCounts) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of the values recorded.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return The smallest value recorded, 0 if none was recorded.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return The largest value recorded, 0 if none was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The mean of the values recorded, 0 if none was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100, e.g., 99.9.
+     * @return The value below which the given percentage of the values fall, 0 if none was recorded.
+     * @throws IllegalArgumentException If the percentile is not between 0 and 100.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100, was " + percentile);
+        }
+        long total = 0;
+        for (long bucketCount : bucketCounts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+            seen += bucketCounts[bucket];
+            if (seen >= rank) {
+                return Math.min(Histogram.highestValueOf(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return The median.
+     */
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    /**
+     * @return The 90th percentile.
+     */
+    public long getP90() {
+        return getValueAtPercentile(90);
+    }
+
+    /**
+     * @return The 99th percentile.
+     */
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{" +
+                "count=" + count +
+                ", mean=" + getMean() +
+                ", min=" + min +
+                ", p50=" + getP50() +
+                ", p90=" + getP90() +
+                ", p99=" + getP99() +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.lekan128.aiagent.api.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link AgentMetrics} kept by every agent: one histogram per latency and per size, and the number of failures of
+ * each operation.
+ *
+ * <p>Recording a value takes no lock and allocates nothing once the histogram of its name exists. The histograms are
+ * never reset, they describe everything recorded since the agent was created.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class InMemoryAgentMetrics implements AgentMetrics {
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> sizes = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLatency(String name, long nanos, boolean success) {
+        histogram(latencies, name).record(nanos);
+        if (!success) {
+            LongAdder errorCount = errors.get(name);
+            if (errorCount == null) {
+                errorCount = errors.computeIfAbsent(name, ignored -> new LongAdder());
+            }
+            errorCount.increment();
+        }
+    }
+
+    @Override
+    public void recordSize(String name, long size) {
+        histogram(sizes, name).record(size);
+    }
+
+    private static Histogram histogram(Map<String, Histogram> histograms, String name) {
+        Histogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, ignored -> new Histogram());
+    }
+
+    /**
+     * @return A snapshot of the latencies in nanoseconds, successes and failures together, sorted by name.
+     */
+    public Map<String, HistogramSnapshot> getLatencies() {
+        return snapshot(latencies);
+    }
+
+    /**
+     * @return The number of failures of each operation that failed at least once, sorted by name.
+     */
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((name, errorCount) -> snapshot.put(name, errorCount.sum()));
+        return snapshot;
+    }
+
+    /**
+     * @return A snapshot of the sizes, sorted by name.
+     */
+    public Map<String, HistogramSnapshot> getSizes() {
+        return snapshot(sizes);
+    }
+
+    private static Map<String, HistogramSnapshot> snapshot(Map<String, Histogram> histograms) {
+        Map<String, HistogramSnapshot> snapshot = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshot.put(name, histogram.snapshot()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.lekan128.aiagent.api.metrics;
+
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of the metrics of an agent: the latencies and sizes recorded by its
+ * {@link InMemoryAgentMetrics}, and the statistics of its caches. The maps are sorted by name.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class MetricsSnapshot {
+    private final Map<String, HistogramSnapshot> latencies;
+    private final Map<String, Long> errorCounts;
+    private final Map<String, HistogramSnapshot> sizes;
+    private final CacheStats planCacheStats;
+    private final Map<String, CacheStats> toolCacheStats;
+
+    /**
+     * @param latencies The latencies in nanoseconds, keyed by the names of {@link AgentMetrics}.
+     * @param errorCounts The number of failures of each operation that failed at least once.
+     * @param sizes The sizes, keyed by the names of {@link AgentMetrics}.
+     * @param planCacheStats The statistics of the plan cache, {@code null} if it is disabled.
+     * @param toolCacheStats The statistics of the result cache of each cacheable tool.
+     */
+    public MetricsSnapshot(Map<String, HistogramSnapshot> latencies, Map<String, Long> errorCounts, Map<String, HistogramSnapshot> sizes,
+                           CacheStats planCacheStats, Map<String, CacheStats> toolCacheStats) {
+        this.latencies = Collections.unmodifiableMap(new TreeMap<>(latencies));
+        this.errorCounts = Collections.unmodifiableMap(new TreeMap<>(errorCounts));
+        this.sizes = Collections.unmodifiableMap(new TreeMap<>(sizes));
+        this.planCacheStats = planCacheStats;
+        this.toolCacheStats = Collections.unmodifiableMap(new TreeMap<>(toolCacheStats));
+    }
+
+    /**
+     * @return The latencies in nanoseconds, keyed by the names of {@link AgentMetrics} (e.g., {@link AgentMetrics#PLANNING}).
+     */
+    public Map<String, HistogramSnapshot> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @param name The name of the operation, e.g., {@link AgentMetrics#SYNTHESIS}.
+     * @return The latencies of the operation in nanoseconds, {@code null} if none was recorded.
+     */
+    public HistogramSnapshot getLatency(String name) {
+        return latencies.get(name);
+    }
+
+    /**
+     * @return The number of failures of each operation that failed at least once.
+     */
+    public Map<String, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
+    /**
+     * @param name The name of the operation, e.g., {@link AgentMetrics#TOOL_PREFIX} followed by a tool name.
+     * @return The number of failures of the operation.
+     */
+    public long getErrorCount(String name) {
+        return errorCounts.getOrDefault(name, 0L);
+    }
+
+    /**
+     * @return The sizes, keyed by the names of {@link AgentMetrics} (e.g., {@link AgentMetrics#SYNTHESIS_PROMPT_CHARS}).
+     */
+    public Map<String, HistogramSnapshot> getSizes() {
+        return sizes;
+    }
+
+    /**
+     * @return The statistics of the plan cache, {@code null} if it is disabled.
+     */
+    public CacheStats getPlanCacheStats() {
+        return planCacheStats;
+    }
+
+    /**
+     * @return The statistics of the result cache of each cacheable tool called so far.
+     */
+    public Map<String, CacheStats> getToolCacheStats() {
+        return toolCacheStats;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "latencies=" + latencies +
+                ", errorCounts=" + errorCounts +
+                ", sizes=" + sizes +
+                ", planCacheStats=" + planCacheStats +
+                ", toolCacheStats=" + toolCacheStats +
+                '}';
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.lekan128.aiagent.api.prompt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, precompiled prompt made of literal text and named {@code ${slot}} placeholders.
+ *
+ * <p>The text is parsed once by {@link #of(String)}. The slots whose values do not change between requests
+ * (e.g., the tool catalog or the output format) are filled once with {@link #bind(Map)}, which merges them into the
+ * surrounding text. Rendering a request then only appends the few remaining segments and the dynamic values, into a
+ * builder sized exactly once.</p>
+ *
+ * <p>The slots filled by the {@code Agent} are named by the constants of this class. A custom template given to
+ * {@code AgentConfig} must contain the slots it needs, e.g., {@link #QUERY}; the slots it leaves out are not rendered.
+ * The values are inserted as they are, they are never parsed as templates.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class PromptTemplate {
+    /** The JSON catalog of the available tools (plan and direct answer prompts). */
+    public static final String TOOLS = "tools";
+    /** The query of the user (every prompt). */
+    public static final String QUERY = "query";
+    /** The format the response of the LLM must follow (plan, direct answer and final prompts). */
+    public static final String OUTPUT_FORMAT = "outputFormat";
+    /** The format of the response when the LLM answers without tools (direct answer prompt). */
+    public static final String ANSWER_FORMAT = "answerFormat";
+    /** The persona the LLM adopts (direct answer and final prompts). */
+    public static final String PERSONA = "persona";
+    /** The history of the conversation (direct answer and final prompts). */
+    public static final String CHAT_HISTORY = "chatHistory";
+    /** The JSON results of the tool calls (final prompt). */
+    public static final String TOOL_RESULTS = "toolResults";
+
+    /** The literal text around the slots, always one more than the slots. */
+    private final List<String> literals;
+    private final List<String> slots;
+    private final int literalLength;
+
+    private PromptTemplate(List<String> literals, List<String> slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a template.
+     * @param text The text of the template, in which {@code ${name}} marks a slot. The names are made of letters, digits and underscores.
+     * @return The template.
+     * @throws IllegalArgumentException If a slot is not closed or has an invalid name.
+     */
+    public static PromptTemplate of(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int position = 0;
+        int start;
+        while ((start = text.indexOf("${", position)) >= 0) {
+            int end = text.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed slot at index " + start + " of the prompt template");
+            }
+            String name = text.substring(start + 2, end);
+            if (!name.matches("\\w+")) {
+                throw new IllegalArgumentException("Invalid slot name '" + name + "' at index " + start + " of the prompt template");
+            }
+            literals.add(text.substring(position, start));
+            slots.add(name);
+            position = end + 1;
+        }
+        literals.add(text.substring(position));
+
+        return new PromptTemplate(List.copyOf(literals), List.copyOf(slots));
+    }
+
+    /**
+     * @return The names of the slots left to fill, in order of first appearance.
+     */
+    public Set<String> getSlots() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(slots));
+    }
+
+    /**
+     * @param name The name of a slot.
+     * @return {@code true} if the slot is left to fill.
+     */
+    public boolean hasSlot(String name) {
+        return slots.contains(name);
+    }
+
+    /**
+     * Fills some of the slots once, for every later rendering.
+     * @param values The values of the slots to fill. The other slots are kept.
+     * @return A new template in which the given slots are part of the literal text.
+     */
+    public PromptTemplate bind(Map<String, String> values) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> boundSlots = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder(literals.get(0));
+        for (int i = 0; i < slots.size(); i++) {
+            String value = values.get(slots.get(i));
+            if (value != null) {
+                literal.append(value);
+            } else {
+                boundLiterals.add(literal.toString());
+                boundSlots.add(slots.get(i));
+                literal.setLength(0);
+            }
+            literal.append(literals.get(i + 1));
+        }
+        boundLiterals.add(literal.toString());
+
+        return new PromptTemplate(List.copyOf(boundLiterals), List.copyOf(boundSlots));
+    }
+
+    /**
+     * Renders the prompt.
+     * @param values The values of every slot left to fill.
+     * @return The prompt.
+     * @throws IllegalArgumentException If a slot has no value.
+     */
+    public String render(Map<String, ? extends CharSequence> values) {
+        int length = literalLength;
+        for (String slot : slots) {
+            length += valueOf(slot, values).length();
+        }
+        StringBuilder prompt = new StringBuilder(length);
+        renderTo(prompt, values);
+        return prompt.toString();
+    }
+
+    /**
+     * Appends the rendered prompt to the target.
+     * @param target The builder receiving the prompt.
+     * @param values The values of every slot left to fill.
+     * @throws IllegalArgumentException If a slot has no value.
+     */
+    public void renderTo(StringBuilder target, Map<String, ? extends CharSequence> values) {
+        target.append(literals.get(0));
+        for (int i = 0; i < slots.size(); i++) {
+            target.append(valueOf(slots.get(i), values)).append(literals.get(i + 1));
+        }
+    }
+
+    /**
+     * Appends the rendered prompt to the target, the value of one slot being written directly into the target, e.g.,
+     * a large JSON document that would otherwise be built in its own buffer and copied.
+     * @param target The builder receiving the prompt.
+     * @param values The values of every other slot left to fill.
+     * @param writtenSlot The slot whose value is written by {@code slotWriter}.
+     * @param slotWriter Appends the value of {@code writtenSlot} to the target, once per occurrence of the slot.
+     * @throws IOException If {@code slotWriter} fails.
+     * @throws IllegalArgumentException If a slot has no value.
+     */
+    public void renderTo(StringBuilder target, Map<String, ? extends CharSequence> values, String writtenSlot, SlotWriter slotWriter) throws IOException {
+        target.append(literals.get(0));
+        for (int i = 0; i < slots.size(); i++) {
+            String slot = slots.get(i);
+            if (slot.equals(writtenSlot)) {
+                slotWriter.write(target);
+            } else {
+                target.append(valueOf(slot, values));
+            }
+            target.append(literals.get(i + 1));
+        }
+    }
+
+    /**
+     * @return The length of the literal text, i.e., of the prompt without the values of the slots left to fill.
+     */
+    public int getLiteralLength() {
+        return literalLength;
+    }
+
+    /**
+     * Writes the value of a slot into the prompt being rendered, see
+     * {@link #renderTo(StringBuilder, Map, String, SlotWriter)}.
+     */
+    @FunctionalInterface
+    public interface SlotWriter {
+        /**
+         * @param target The builder receiving the prompt, the value is appended to it.
+         * @throws IOException If the value cannot be written.
+         */
+        void write(StringBuilder target) throws IOException;
+    }
+
+    private static CharSequence valueOf(String slot, Map<String, ? extends CharSequence> values) {
+        CharSequence value = values.get(slot);
+        if (value == null) {
+            throw new IllegalArgumentException("No value for the slot ${" + slot + "} of the prompt template");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.lekan128.aiagent.api.tool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compile-time generated index of the tool methods (methods annotated with {@code @AiToolMethod}) of an application.
+ *
+ * <p>Implementations are generated by the ai-agent-processor annotation processor and registered in
+ * {@code META-INF/services/io.github.lekan128.aiagent.api.tool.ToolIndex}. When at least one index is found
+ * through {@link java.util.ServiceLoader}, the {@code Agent} uses it instead of scanning the classes it covers
+ * at runtime. Classpath scanning remains the fallback for the classes of the tools packages no index covers.</p>
+ *
+ * <p>An index only covers the classes of the compilation that generated it. An incremental compilation regenerates the
+ * index with the recompiled tool classes only, the other tool classes are then scanned. A class recompiled without
+ * the processor while still covered by an older index is not detected, a full rebuild fixes it.</p>
+ *
+ * <p>Users are not expected to implement this interface by hand.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ * @see ToolInvoker
+ */
+public interface ToolIndex {
+
+    /**
+     * Retrieves the description of every indexed tool.
+     *
+     * @return A JSON array of tool descriptions, in the same format as the one built from the
+     * {@code @AiToolMethod} and {@code @ArgDesc} annotations at runtime.
+     */
+    String getCatalogJson();
+
+    /**
+     * Retrieves the direct-call dispatchers of the indexed tools.
+     *
+     * <p>Only tools that are accessible from generated code (public methods of public classes) have an invoker.
+     * The other tools are invoked through reflection.</p>
+     *
+     * @return The invokers, keyed by {@link #key(String, String, List)}.
+     */
+    Map<String, ToolInvoker> getInvokers();
+
+    /**
+     * Retrieves the classes this index covers. Their tools are read from the index, the other classes are scanned.
+     *
+     * @return The binary names of the covered classes, e.g., "org.example.ProductService". Empty by default, i.e.,
+     * every class is scanned and the indexed tools are only used when the scan does not find them.
+     */
+    default Set<String> getCoveredClassNames() {
+        return Set.of();
+    }
+
+    /**
+     * Builds the key identifying a tool method.
+     *
+     * @param className The fully qualified (binary) name of the class declaring the tool, e.g., "org.example.ProductService".
+     * @param methodName The name of the tool method.
+     * @param parameterTypeNames The names of the parameter types as returned by {@link Class#getName()}, e.g., "int", "java.lang.String".
+     * @return The key of the tool, e.g., "org.example.ProductService#findProduct(java.lang.String,int)".
+     */
+    static String key(String className, String methodName, List<String> parameterTypeNames) {
+        return className + '#' + methodName + '(' + String.join(",", parameterTypeNames) + ')';
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.lekan128.aiagent.api.tool;
+
+/**
+ * Supplies the instances on which the non-static tool methods (methods annotated with {@code @AiToolMethod}) are called.
+ *
+ * <p>By default the {@code Agent} creates tool instances with their public no-arg constructor and manages them
+ * according to the {@link ToolScope} declared with {@link io.github.lekan128.aiagent.api.annotation.ToolLifecycle}
+ * (one cached instance per class if nothing is declared). Implement this interface to let another component,
+ * e.g., a dependency injection container, create or own the tool instances:</p>
+ * <pre>{@code
+ * agent.setDefaultToolInstanceProvider(toolClass -> applicationContext.getBean(toolClass));
+ * agent.registerToolInstanceProvider(ProductService.class, toolClass -> productService);
+ * }</pre>
+ *
+ * <p>Implementations must be thread-safe, tools may be called concurrently.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ * @see ToolScope
+ */
+@FunctionalInterface
+public interface ToolInstanceProvider {
+
+    /**
+     * Retrieves an instance of the tool class to call a tool method on.
+     *
+     * @param toolClass The class declaring the tool method.
+     * @return An instance of {@code toolClass}.
+     * @throws Exception If the instance cannot be provided.
+     */
+    Object acquire(Class<?> toolClass) throws Exception;
+
+    /**
+     * Gives back an instance after the tool method returned. Does nothing by default.
+     *
+     * @param toolClass The class declaring the tool method.
+     * @param instance The instance returned by {@link #acquire(Class)}.
+     */
+    default void release(Class<?> toolClass, Object instance) {
+    }
+}
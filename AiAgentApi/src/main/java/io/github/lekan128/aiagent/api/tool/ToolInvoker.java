@@ -0,0 +1,26 @@
+package io.github.lekan128.aiagent.api.tool;
+
+/**
+ * A direct-call dispatcher for a single tool method (a method annotated with {@code @AiToolMethod}).
+ *
+ * <p>Invokers are generated at compile time by the ai-agent-processor annotation processor and
+ * exposed through a {@link ToolIndex}. They call the tool method directly instead of going through
+ * {@code java.lang.reflect.Method#invoke}.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ * @see ToolIndex
+ */
+@FunctionalInterface
+public interface ToolInvoker {
+
+    /**
+     * Invokes the tool method.
+     *
+     * @param instance The instance the method is called on, or {@code null} if the method is static.
+     * @param args The already converted arguments, in the order of the method parameters.
+     * @return The value returned by the tool, or {@code null} if the method is {@code void}.
+     * @throws Exception Any exception thrown by the tool method itself.
+     */
+    Object invoke(Object instance, Object[] args) throws Exception;
+}
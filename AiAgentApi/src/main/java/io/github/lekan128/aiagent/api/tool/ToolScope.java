@@ -0,0 +1,19 @@
+package io.github.lekan128.aiagent.api.tool;
+
+/**
+ * The lifecycle of the instances on which non-static tool methods are called.
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ * @see io.github.lekan128.aiagent.api.annotation.ToolLifecycle
+ */
+public enum ToolScope {
+    /** One instance per tool class, created on first use and reused by every call. This is the default. */
+    SINGLETON,
+    /** One instance per tool class for each call of the {@code Agent}, shared by all the steps of that call and given back to the provider when the call ends. */
+    PER_RUN,
+    /** A new instance for every tool call. */
+    PER_CALL,
+    /** Instances are borrowed from a pool with a maximum size, callers wait when every instance is in use. */
+    POOLED
+}
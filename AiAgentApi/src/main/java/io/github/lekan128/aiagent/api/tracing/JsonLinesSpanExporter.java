@@ -0,0 +1,252 @@
+package io.github.lekan128.aiagent.api.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link SpanExporter} appending each span as one line of JSON to a file.
+ *
+ * <pre>{@code
+ * JsonLinesSpanExporter exporter = JsonLinesSpanExporter.builder(Path.of("agent-traces.jsonl")).build();
+ * agent.setSpanExporter(exporter);
+ * ...
+ * exporter.close();
+ * }</pre>
+ *
+ * <p>{@link #export(Span)} only puts the span in a bounded queue, it never blocks nor writes: a background thread
+ * takes the spans by batches, serializes them and writes each batch at once. When the queue is full, e.g., the disk
+ * cannot keep up, the new spans are dropped and counted by {@link #getDroppedCount()} rather than slowing the agent
+ * down. An attribute that cannot be serialized is written as its {@code toString()}, a span that cannot be written
+ * at all is dropped and counted as well.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class JsonLinesSpanExporter implements SpanExporter, AutoCloseable {
+    /** The maximum number of spans waiting to be written when none is configured. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    /** The maximum number of spans written at once when none is configured. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Path file;
+    private final BlockingQueue<Span> queue;
+    private final int batchSize;
+    private final Writer writer;
+    private final Thread writerThread;
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile boolean closed;
+
+    private JsonLinesSpanExporter(Builder builder) {
+        this.file = builder.file;
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        this.batchSize = builder.batchSize;
+        try {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the trace file " + file, e);
+        }
+        this.writerThread = new Thread(this::writeSpans, "ai-agent-span-exporter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @param file The file the spans are appended to, created if it does not exist.
+     * @return A new builder.
+     */
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+
+    /**
+     * Queues the span to be written, or drops it if the queue is full or the exporter is closed.
+     * @param span The span.
+     */
+    @Override
+    public void export(Span span) {
+        if (closed || !queue.offer(span)) {
+            droppedCount.increment();
+        } else if (closed && queue.remove(span)) {
+            // closed meanwhile, the writing thread may have stopped without taking it
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * @return The number of spans written to the file so far.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return The number of spans dropped so far, because the queue was full, the exporter was closed, or the span or
+     * the file could not be written.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Writes the spans still queued and closes the file. The spans exported later are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeSpans() {
+        ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
+        List<Span> batch = new ArrayList<>(batchSize);
+        StringBuilder lines = new StringBuilder();
+        try {
+            while (true) {
+                Span first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                int spanCount = 0;
+                for (Span span : batch) {
+                    try {
+                        lines.append(toJson(mapper, span)).append('\n');
+                        spanCount++;
+                    } catch (RuntimeException e) {
+                        droppedCount.increment();
+                    }
+                }
+                write(lines, spanCount);
+                lines.setLength(0);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // exported concurrently with close, or left when interrupted
+            while (queue.poll() != null) {
+                droppedCount.increment();
+            }
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // nothing left to write
+            }
+        }
+    }
+
+    private void write(CharSequence lines, int spanCount) {
+        try {
+            writer.append(lines);
+            writer.flush();
+            writtenCount.addAndGet(spanCount);
+        } catch (IOException | RuntimeException e) {
+            droppedCount.add(spanCount);
+        }
+    }
+
+    private static String toJson(ObjectMapper mapper, Span span) {
+        try {
+            return mapper.writeValueAsString(span);
+        } catch (JsonProcessingException e) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key, String.valueOf(value)));
+            Span printableSpan = new Span(span.getTraceId(), span.getSpanId(), span.getParentSpanId(), span.getName(),
+                    span.getStartEpochMillis(), span.getDurationNanos(), span.getError(), attributes);
+            try {
+                return mapper.writeValueAsString(printableSpan);
+            } catch (JsonProcessingException unexpected) {
+                throw new IllegalStateException("Unable to serialize the span " + span, unexpected);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JsonLinesSpanExporter{" +
+                "file=" + file +
+                ", writtenCount=" + writtenCount +
+                ", droppedCount=" + droppedCount +
+                '}';
+    }
+
+    /**
+     * Builder of {@link JsonLinesSpanExporter}.
+     *
+     * @author Olalekan
+     * @since 1.1.0
+     */
+    public static final class Builder {
+        private final Path file;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+
+        private Builder(Path file) {
+            if (file == null) {
+                throw new IllegalArgumentException("The trace file must not be null");
+            }
+            this.file = file;
+        }
+
+        /**
+         * @param queueCapacity The maximum number of spans waiting to be written, at least 1. Defaults to {@value JsonLinesSpanExporter#DEFAULT_QUEUE_CAPACITY}.
+         * @return This builder.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be at least 1, was " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param batchSize The maximum number of spans written at once, at least 1. Defaults to {@value JsonLinesSpanExporter#DEFAULT_BATCH_SIZE}.
+         * @return This builder.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be at least 1, was " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @return The exporter, its file is opened and its writing thread started.
+         * @throws UncheckedIOException If the file cannot be opened.
+         */
+        public JsonLinesSpanExporter build() {
+            return new JsonLinesSpanExporter(this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.lekan128.aiagent.api.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A finished operation of an agent call, handed to the {@link SpanExporter} of the agent.
+ *
+ * <p>A call of an agent is one trace: a root span named {@value #CALL}, with a child span for each phase
+ * ({@value #PLANNING}, {@value #EXECUTION}, {@value #SYNTHESIS}). The span of each tool call
+ * ({@code tool.className#methodName}) is a child of the {@value #EXECUTION} span. The spans of a trace share its {@link #getTraceId()} and point to their parent
+ * with {@link #getParentSpanId()}.</p>
+ *
+ * <p>The attribute values are the objects of the call (e.g., the prompts or the arguments of a tool), they are not
+ * copied.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class Span {
+    /** The root span of an agent call. */
+    public static final String CALL = "agent.call";
+    /** The planning call of the LLM, with its prompt and its response. */
+    public static final String PLANNING = "agent.planning";
+    /** The execution of the plan, parent of the tool calls. */
+    public static final String EXECUTION = "agent.execution";
+    /** The final call of the LLM, with its prompt and its response. */
+    public static final String SYNTHESIS = "agent.synthesis";
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startEpochMillis;
+    private final long durationNanos;
+    private final String error;
+    private final Map<String, Object> attributes;
+
+    /**
+     * @param traceId The identifier of the trace, shared by every span of an agent call.
+     * @param spanId The identifier of the span.
+     * @param parentSpanId The identifier of the parent span, {@code null} for the root span.
+     * @param name The name of the operation.
+     * @param startEpochMillis When the operation started, in milliseconds since the epoch.
+     * @param durationNanos The duration of the operation in nanoseconds.
+     * @param error The failure of the operation, {@code null} if it succeeded.
+     * @param attributes The attributes of the operation, in the order they were set.
+     */
+    public Span(String traceId, String spanId, String parentSpanId, String name, long startEpochMillis, long durationNanos, String error, Map<String, Object> attributes) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startEpochMillis = startEpochMillis;
+        this.durationNanos = durationNanos;
+        this.error = error;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+    /**
+     * @return The identifier of the trace, shared by every span of an agent call.
+     */
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return The identifier of the span.
+     */
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return The identifier of the parent span, {@code null} for the root span.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * @return The name of the operation, e.g., {@code agent.planning}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return When the operation started, in milliseconds since the epoch.
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * @return The duration of the operation in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return The failure of the operation, {@code null} if it succeeded.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return The attributes of the operation, in the order they were set.
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "Span{" +
+                "traceId='" + traceId + '\'' +
+                ", spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", name='" + name + '\'' +
+                ", startEpochMillis=" + startEpochMillis +
+                ", durationNanos=" + durationNanos +
+                ", error='" + error + '\'' +
+                ", attributes=" + attributes.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.lekan128.aiagent.api.tracing;
+
+/**
+ * Receives the {@link Span}s of the calls of an agent, set with {@code Agent#setSpanExporter(SpanExporter)}.
+ *
+ * <p>{@link #export(Span)} is called by the thread finishing the operation, on the path of the request, concurrently:
+ * implementations must be thread-safe, must hand the span over without blocking (e.g., to a queue, as
+ * {@link JsonLinesSpanExporter} does), and must not throw.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public interface SpanExporter {
+
+    /**
+     * Hands over a finished span.
+     * @param span The span.
+     */
+    void export(Span span);
+}
@@ -0,0 +1,48 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingLLMTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void callsTheWrappedLLMOnlyOnMisses() {
+        FakeLLM delegate = new FakeLLM();
+        try (CachingLLM llm = CachingLLM.builder(delegate).persistentFile(directory.resolve("responses.bin")).build()) {
+            CompletableFuture<String> first = llm.callAsync("What  is the price?");
+            delegate.call(0).complete("10");
+
+            assertEquals("10", first.join());
+            // Same prompt once the whitespace is normalized
+            assertEquals("10", llm.callAsync("What is the price?").join());
+            assertEquals(1, delegate.calls.size());
+        }
+
+        FakeLLM reopenedDelegate = new FakeLLM();
+        try (CachingLLM llm = CachingLLM.builder(reopenedDelegate).persistentFile(directory.resolve("responses.bin")).build()) {
+            assertEquals("10", llm.call("What is the price?"));
+            assertEquals(1, llm.getPersistentHitCount());
+            assertTrue(reopenedDelegate.calls.isEmpty());
+        }
+    }
+
+    @Test
+    void cancelsTheCallOfTheWrappedLLM() {
+        FakeLLM delegate = new FakeLLM();
+        try (CachingLLM llm = CachingLLM.builder(delegate).build()) {
+            llm.callAsync("async").cancel(true);
+            llm.callStream("stream", chunk -> {}).cancel(true);
+
+            assertTrue(delegate.call(0).isCancelled());
+            assertTrue(delegate.call(1).isCancelled());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An LLM whose calls stay pending until the test completes them, to observe what the wrappers do with them.
+ */
+class FakeLLM extends LLM {
+    /** The futures of the calls made so far, in order. */
+    final List<CompletableFuture<String>> calls = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String getModelName() {
+        return "fake";
+    }
+
+    @Override
+    public String call(String prompt) {
+        return callAsync(prompt).join();
+    }
+
+    @Override
+    public CompletableFuture<String> callAsync(String prompt) {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    }
+
+    @Override
+    public CompletableFuture<String> callStream(String prompt, Consumer<String> chunkConsumer) {
+        CompletableFuture<String> call = callAsync(prompt);
+        call.thenAccept(chunkConsumer);
+        return call;
+    }
+
+    /**
+     * @return The future of the {@code index}-th call.
+     */
+    CompletableFuture<String> call(int index) {
+        return calls.get(index);
+    }
+
+    /**
+     * Waits until {@code count} calls were made, the wrappers may start them from a timer.
+     */
+    void awaitCalls(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.size() < count) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Timed out waiting for " + count + " calls, " + calls.size() + " were made");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitedLLMTest {
+
+    @Test
+    void admitsTheBurstThenSpreadsTheCalls() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate).requestsPerSecond(10).requestBurst(2).build();
+
+        llm.callAsync("first");
+        llm.callAsync("second");
+        long start = System.nanoTime();
+        llm.callAsync("third");
+        assertEquals(2, delegate.calls.size());
+
+        delegate.awaitCalls(3);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "the third call waited for its turn");
+        RateLimitStats stats = llm.getStats();
+        assertEquals(3, stats.getAdmittedCount());
+        assertEquals(1, stats.getWaitedCount());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    void limitsTheEstimatedTokens() {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate)
+                .tokensPerMinute(60)
+                .tokenEstimator(String::length)
+                .maxQueuedCalls(0)
+                .build();
+
+        llm.callAsync("x".repeat(60));
+        CompletableFuture<String> rejected = llm.callAsync("x");
+
+        assertEquals(1, delegate.calls.size());
+        assertInstanceOf(RateLimitExceededException.class, assertThrows(CompletionException.class, rejected::join).getCause());
+    }
+
+    @Test
+    void rejectsTheCallsBeyondTheQueue() {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate)
+                .requestsPerSecond(1)
+                .maxQueuedCalls(1)
+                .maxQueueWait(Duration.ofSeconds(10))
+                .build();
+
+        llm.callAsync("admitted");
+        CompletableFuture<String> queued = llm.callAsync("queued");
+        CompletableFuture<String> rejected = llm.callAsync("rejected");
+
+        assertFalse(queued.isDone());
+        RateLimitExceededException exception = assertInstanceOf(RateLimitExceededException.class,
+                assertThrows(CompletionException.class, rejected::join).getCause());
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertEquals(1, llm.getStats().getQueueDepth());
+        assertEquals(1, llm.getStats().getRejectedCount());
+        queued.cancel(true);
+    }
+
+    @Test
+    void rejectsTheCallsThatWouldWaitTooLong() {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate)
+                .requestsPerSecond(1)
+                .maxQueueWait(Duration.ofMillis(500))
+                .build();
+
+        llm.callAsync("admitted");
+
+        assertThrows(RateLimitExceededException.class, () -> llm.call("rejected"));
+        assertEquals(1, delegate.calls.size());
+    }
+
+    @Test
+    void leavesTheQueueWhenCancelledWhileWaiting() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate).requestsPerSecond(5).requestBurst(1).build();
+
+        llm.callAsync("admitted");
+        CompletableFuture<String> waiting = llm.callAsync("waiting");
+        assertEquals(1, llm.getStats().getQueueDepth());
+        waiting.cancel(true);
+
+        assertEquals(0, llm.getStats().getQueueDepth());
+        // Past the turn of the cancelled call
+        Thread.sleep(400);
+        assertEquals(1, delegate.calls.size());
+    }
+
+    @Test
+    void cancelsTheCallOfTheWrappedLLM() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        RateLimitedLLM llm = RateLimitedLLM.builder(delegate).requestsPerSecond(20).requestBurst(1).build();
+
+        llm.callAsync("admitted");
+        CompletableFuture<String> waited = llm.callStream("waited", chunk -> {});
+        delegate.awaitCalls(2);
+        waited.cancel(true);
+
+        assertTrue(delegate.call(1).isCancelled());
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientLLMTest {
+    private static final UncheckedIOException TRANSIENT = new UncheckedIOException(new IOException("connection reset"));
+
+    @Test
+    void retriesTheTransientFailures() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate).maxAttempts(3).initialBackoff(Duration.ofMillis(1)).build();
+
+        CompletableFuture<String> response = llm.callAsync("prompt");
+        delegate.call(0).completeExceptionally(TRANSIENT);
+        delegate.awaitCalls(2);
+        delegate.call(1).complete("answer");
+
+        assertEquals("answer", response.join());
+        assertEquals(1, llm.getStats().getRetryCount());
+        assertEquals(0, llm.getStats().getFailureCount());
+    }
+
+    @Test
+    void failsOnceTheAttemptsAreExhausted() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate).maxAttempts(3).initialBackoff(Duration.ofMillis(1)).build();
+
+        CompletableFuture<String> response = llm.callAsync("prompt");
+        for (int attempt = 0; attempt < 3; attempt++) {
+            delegate.awaitCalls(attempt + 1);
+            delegate.call(attempt).completeExceptionally(TRANSIENT);
+        }
+
+        assertSame(TRANSIENT, assertThrows(CompletionException.class, response::join).getCause());
+        assertEquals(3, delegate.calls.size());
+        ResilienceStats stats = llm.getStats();
+        assertEquals(3, stats.getAttemptCount());
+        assertEquals(2, stats.getRetryCount());
+        assertEquals(1, stats.getFailureCount());
+    }
+
+    @Test
+    void doesNotRetryThePermanentFailures() {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate).initialBackoff(Duration.ofMillis(1)).build();
+        IllegalArgumentException permanent = new IllegalArgumentException("invalid prompt");
+
+        CompletableFuture<String> response = llm.callStream("prompt", chunk -> {});
+        delegate.call(0).completeExceptionally(permanent);
+
+        assertSame(permanent, assertThrows(CompletionException.class, response::join).getCause());
+        assertEquals(1, delegate.calls.size());
+    }
+
+    @Test
+    void cancelsTheRunningAttempt() {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate).build();
+
+        llm.callAsync("async").cancel(true);
+        llm.callStream("stream", chunk -> {}).cancel(true);
+
+        assertTrue(delegate.call(0).isCancelled());
+        assertTrue(delegate.call(1).isCancelled());
+        assertEquals(0, llm.getStats().getRetryCount());
+    }
+
+    @Test
+    void startsNoRetryOnceCancelledDuringTheBackoff() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate)
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(100))
+                .build();
+
+        CompletableFuture<String> response = llm.callAsync("prompt");
+        delegate.call(0).completeExceptionally(TRANSIENT);
+        response.cancel(true);
+
+        // Past the longest backoff: a retry started before the cancellation is cancelled, none is started after it
+        Thread.sleep(300);
+        assertTrue(delegate.calls.size() <= 2);
+        assertTrue(delegate.calls.stream().allMatch(CompletableFuture::isDone));
+        assertTrue(delegate.calls.size() == 1 || delegate.call(1).isCancelled());
+    }
+
+    @Test
+    void cancelsTheAttemptAndItsHedge() throws Exception {
+        FakeLLM delegate = new FakeLLM();
+        ResilientLLM llm = ResilientLLM.builder(delegate)
+                .hedgePercentile(0.5)
+                .minHedgeDelay(Duration.ofMillis(10))
+                .maxHedgeRatio(1)
+                .build();
+        // The latencies needed before any attempt is hedged
+        for (int i = 0; i < ResilientLLM.MIN_LATENCY_SAMPLES; i++) {
+            CompletableFuture<String> response = llm.callAsync("warm up");
+            delegate.call(i).complete("answer");
+            response.join();
+        }
+
+        CompletableFuture<String> response = llm.callAsync("prompt");
+        int primary = ResilientLLM.MIN_LATENCY_SAMPLES;
+        delegate.awaitCalls(primary + 2);
+        response.cancel(true);
+
+        assertEquals(1, llm.getStats().getHedgesFired());
+        assertTrue(delegate.call(primary).isCancelled());
+        assertTrue(delegate.call(primary + 1).isCancelled());
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.lekan128.aiagent.api.llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheValuesAgainOnceReopened() {
+        Path path = directory.resolve("responses.bin");
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            file.put("a", "first", 0);
+            file.put("b", "second", 0);
+            file.put("a", "superseded", 0);
+        }
+
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            assertEquals("superseded", file.get("a"));
+            assertEquals("second", file.get("b"));
+            assertNull(file.get("c"));
+        }
+    }
+
+    @Test
+    void dropsTheOldestValuesBeyondTheMaximum() {
+        Path path = directory.resolve("responses.bin");
+        try (ResponseFile file = ResponseFile.open(path, 2)) {
+            file.put("a", "1", 0);
+            file.put("b", "2", 0);
+            file.put("c", "3", 0);
+
+            assertNull(file.get("a"));
+            assertEquals("2", file.get("b"));
+            assertEquals("3", file.get("c"));
+        }
+
+        try (ResponseFile file = ResponseFile.open(path, 1)) {
+            assertNull(file.get("b"));
+            assertEquals("3", file.get("c"));
+        }
+    }
+
+    @Test
+    void rewritesTheFileOnceMostOfItIsDead() throws Exception {
+        Path path = directory.resolve("responses.bin");
+        String value = "x".repeat(1024);
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            for (int i = 0; i < 200; i++) {
+                file.put("key", value + i, 0);
+            }
+            // 200 records of 1 KB were written, the dead ones are dropped as the file grows
+            assertTrue(Files.size(path) < 128 * 1024, "size " + Files.size(path));
+            assertEquals(value + 199, file.get("key"));
+        }
+
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            assertEquals(value + 199, file.get("key"));
+            // Compacted when opened, a single record is left
+            assertTrue(Files.size(path) < 2 * 1024, "size " + Files.size(path));
+        }
+    }
+
+    @Test
+    void forgetsTheExpiredValues() {
+        Path path = directory.resolve("responses.bin");
+        long now = System.currentTimeMillis();
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            file.put("expired", "old", now - 1);
+            file.put("alive", "new", now + 60_000);
+
+            assertNull(file.get("expired"));
+            assertEquals("new", file.get("alive"));
+        }
+
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            assertNull(file.get("expired"));
+            assertEquals("new", file.get("alive"));
+        }
+    }
+
+    @Test
+    void cutsOffARecordLeftIncomplete() throws Exception {
+        Path path = directory.resolve("responses.bin");
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            file.put("a", "complete", 0);
+        }
+        long completeSize = Files.size(path);
+        // The header of a record whose key was never written
+        Files.write(path, ByteBuffer.allocate(Integer.BYTES).putInt(100).array(), StandardOpenOption.APPEND);
+
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            assertEquals("complete", file.get("a"));
+            file.put("b", "appended", 0);
+            assertEquals("appended", file.get("b"));
+        }
+        try (ResponseFile file = ResponseFile.open(path, 10)) {
+            assertEquals("complete", file.get("a"));
+            assertEquals("appended", file.get("b"));
+            assertTrue(Files.size(path) > completeSize);
+        }
+    }
+
+    @Test
+    void ignoresTheCallsMadeOnceClosed() {
+        Path path = directory.resolve("responses.bin");
+        ResponseFile file = ResponseFile.open(path, 10);
+        file.put("a", "value", 0);
+        file.close();
+
+        assertNull(file.get("a"));
+        file.put("b", "value", 0);
+        assertNull(file.get("b"));
+        file.close();
+
+        try (ResponseFile reopened = ResponseFile.open(path, 10)) {
+            assertEquals("value", reopened.get("a"));
+            assertNull(reopened.get("b"));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.lekan128.aiagent.api.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLinesSpanExporterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheSpansAndDropsTheOthers() throws Exception {
+        Path file = directory.resolve("traces.jsonl");
+        JsonLinesSpanExporter exporter = JsonLinesSpanExporter.builder(file).build();
+
+        exporter.export(span("first", Map.of("tokens", 12)));
+        exporter.export(span("unwritable", Map.of("value", new Unprintable())));
+        exporter.export(span("second", Map.of("tokens", 7)));
+        exporter.close();
+        exporter.export(span("late", Map.of()));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"first\""));
+        assertTrue(lines.get(1).contains("\"second\""));
+        assertEquals(2, exporter.getWrittenCount());
+        assertEquals(2, exporter.getDroppedCount());
+    }
+
+    @Test
+    void dropsTheSpansBeyondTheQueue() throws Exception {
+        Path file = directory.resolve("traces.jsonl");
+        JsonLinesSpanExporter exporter = JsonLinesSpanExporter.builder(file).queueCapacity(1).build();
+
+        for (int i = 0; i < 1000; i++) {
+            exporter.export(span("span " + i, Map.of()));
+        }
+        exporter.close();
+
+        assertEquals(1000, exporter.getWrittenCount() + exporter.getDroppedCount());
+        assertEquals(exporter.getWrittenCount(), Files.readAllLines(file).size());
+    }
+
+    private static Span span(String name, Map<String, Object> attributes) {
+        return new Span("trace", name, null, name, System.currentTimeMillis(), 1_000, null, attributes);
+    }
+
+    /** Neither serializable as a bean nor printable. */
+    public static class Unprintable {
+        public String getValue() {
+            throw new IllegalStateException("not serializable");
+        }
+
+        @Override
+        public String toString() {
+            throw new IllegalStateException("not printable");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.lekan128.aiagent.benchmarks;
+
+import io.github.lekan128.aiagent.api.Agent;
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.llm.LLM;
+import io.github.lekan128.aiagent.impl.AgentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures complete calls of an agent against an in-process LLM answering immediately, so the measurements are the
+ * cost of the library itself: building the planning prompt, reading the plan, calling the tools, building the final
+ * prompt and reading the response.
+ *
+ * <p>{@code toolCalls} is the number of independent tool calls of the plan, 0 for a query needing no tool.
+ * With {@code planCache}, every call after the first one reuses the plan and skips the planning call.</p>
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar AgentBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentBenchmark {
+    private static final String QUERY = "What are the names of the products 1234ABC?";
+    private static final String PERSONA = "A product describer";
+
+    @Param({"0", "2", "10"})
+    private int toolCalls;
+
+    @Param({"false", "true"})
+    private boolean planCache;
+
+    private Agent agent;
+    private LLM llm;
+
+    @Setup
+    public void setUp() {
+        agent = AgentFactory.createAgent(AgentConfig.builder()
+                .toolsPackages(BenchmarkTools.class.getPackageName())
+                .planCacheSize(planCache ? AgentConfig.DEFAULT_PLAN_CACHE_SIZE : 0)
+                .build());
+        llm = new FakeLLM(plan(toolCalls));
+    }
+
+    @Benchmark
+    public Answer useAgent() throws Exception {
+        return agent.useAgent(QUERY, PERSONA, llm, Answer.class);
+    }
+
+    @Benchmark
+    public Answer useAgentAsync() {
+        return agent.useAgentAsync(QUERY, PERSONA, llm, Answer.class).join();
+    }
+
+    private static String plan(int toolCalls) {
+        StringBuilder plan = new StringBuilder("[");
+        for (int i = 0; i < toolCalls; i++) {
+            if (i > 0) {
+                plan.append(',');
+            }
+            plan.append("{\"className\":\"").append(BenchmarkTools.class.getName())
+                    .append("\",\"methodName\":\"findProductName\",\"methodArguments\":[{\"type\":\"java.lang.String\",\"value\":\"")
+                    .append(1234 + i).append("ABC\"}]}");
+        }
+        return plan.append(']').toString();
+    }
+
+    /**
+     * The response type of the benchmarked calls.
+     */
+    public static class Answer {
+        public String summary;
+        public int productCount;
+    }
+
+    /**
+     * Answers the planning prompt with a fixed plan and the final prompt with a fixed answer, without waiting.
+     */
+    private static final class FakeLLM extends LLM {
+        private static final String ANSWER = """
+                ```json
+                {"summary":"The products are Product 1234ABC and Product 1235ABC","productCount":2}
+                ```""";
+
+        private final String plan;
+
+        private FakeLLM(String plan) {
+            this.plan = plan;
+        }
+
+        @Override
+        public String getModelName() {
+            return "fake";
+        }
+
+        @Override
+        public String call(String prompt) {
+            // Only the final prompt has the results of the tools
+            return prompt.contains("[TOOL_RESULTS]") ? ANSWER : plan;
+        }
+    }
+}
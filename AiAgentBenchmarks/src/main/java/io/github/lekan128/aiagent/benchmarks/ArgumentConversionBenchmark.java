@@ -0,0 +1,81 @@
+package io.github.lekan128.aiagent.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionCaller;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionInvocableMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the arguments sent by the LLM become the arguments of a tool: reading the plan, converting
+ * primitive values, and converting a JSON object to the parameter type with {@link ObjectMapper#convertValue}.
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar ArgumentConversionBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentConversionBenchmark {
+    private static final TypeReference<List<ReflectionInvocableMethod>> PLAN_TYPE = new TypeReference<>() {};
+    private static final String PRIMITIVE_PLAN = """
+            [{"className":"io.github.lekan128.aiagent.benchmarks.BenchmarkTools","methodName":"findPrice",
+              "methodArguments":[{"type":"java.lang.String","value":"Product 1234ABC"},{"type":"int","value":3}]}]
+            """;
+    private static final String OBJECT_PLAN = """
+            [{"className":"io.github.lekan128.aiagent.benchmarks.BenchmarkTools","methodName":"describeOrder",
+              "methodArguments":[{"type":"io.github.lekan128.aiagent.benchmarks.BenchmarkOrder",
+                                  "value":{"productName":"Product 1234ABC","quantity":3,"tags":["gift","express"]}}]}]
+            """;
+
+    private ObjectMapper mapper;
+    private List<ReflectionInvocableMethod> primitivePlan;
+    private List<ReflectionInvocableMethod> objectPlan;
+    private Map<String, Object> order;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = ObjectMapperSingleton.getObjectMapper();
+        primitivePlan = mapper.readValue(PRIMITIVE_PLAN, PLAN_TYPE);
+        objectPlan = mapper.readValue(OBJECT_PLAN, PLAN_TYPE);
+        order = Map.of("productName", "Product 1234ABC", "quantity", 3, "tags", List.of("gift", "express"));
+    }
+
+    @Benchmark
+    public List<ReflectionInvocableMethod> readPlan() throws Exception {
+        return mapper.readValue(OBJECT_PLAN, PLAN_TYPE);
+    }
+
+    @Benchmark
+    public List<MethodExecutionResult> primitiveArguments() throws Exception {
+        return ReflectionCaller.executePipeline(primitivePlan);
+    }
+
+    @Benchmark
+    public List<MethodExecutionResult> objectArgument() throws Exception {
+        return ReflectionCaller.executePipeline(objectPlan);
+    }
+
+    @Benchmark
+    public BenchmarkOrder convertValue() {
+        // The conversion done for the object argument, without the rest of the tool call
+        return mapper.convertValue(order, BenchmarkOrder.class);
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.lekan128.aiagent.benchmarks;
+
+import java.util.List;
+
+/**
+ * An object argument of {@link BenchmarkTools#describeOrder(BenchmarkOrder)}, converted from the JSON object sent by the LLM.
+ */
+public class BenchmarkOrder {
+    private String productName;
+    private int quantity;
+    private List<String> tags;
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+}
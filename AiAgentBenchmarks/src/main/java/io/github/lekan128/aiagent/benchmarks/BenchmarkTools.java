@@ -0,0 +1,25 @@
+package io.github.lekan128.aiagent.benchmarks;
+
+import io.github.lekan128.aiagent.api.annotation.AiToolMethod;
+import io.github.lekan128.aiagent.api.annotation.ArgDesc;
+
+/**
+ * Cheap tools used by the benchmarks, so the measurements show the cost of the library and not of the tools.
+ */
+public class BenchmarkTools {
+
+    @AiToolMethod("Finds the name of a product from its id and returns the name.")
+    public static String findProductName(@ArgDesc("The id of the product") String id) {
+        return "Product " + id;
+    }
+
+    @AiToolMethod("Finds the price of a product from its name and quantity and returns the total price.")
+    public double findPrice(@ArgDesc("The name of the product") String productName, @ArgDesc("The quantity") int quantity) {
+        return productName.length() * 1.5 * quantity;
+    }
+
+    @AiToolMethod("Describes an order and returns the description.")
+    public static String describeOrder(@ArgDesc("The order") BenchmarkOrder order) {
+        return order.getQuantity() + " x " + order.getProductName() + " " + order.getTags();
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.lekan128.aiagent.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+import io.github.lekan128.aiagent.impl.method.caller.PipelineOptions;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionCaller;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionInvocableMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ReflectionCaller#executePipeline(List, PipelineOptions)} on plans of 1 to 50 steps, either
+ * independent steps or a chain where each step takes the result of the previous one through a placeholder.
+ *
+ * <p>{@code concurrent} uses the options of an agent (independent steps run on the executor), {@code sequential}
+ * runs every step on the calling thread, so the difference is the cost of the scheduling.</p>
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar PipelineBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+    @Param({"1", "10", "50"})
+    private int steps;
+
+    @Param({"false", "true"})
+    private boolean placeholders;
+
+    private List<ReflectionInvocableMethod> plan;
+    private PipelineOptions sequentialOptions;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Map<String, Object>> planJson = new ArrayList<>(steps);
+        for (int i = 0; i < steps; i++) {
+            // With placeholders, each step depends on the previous one, so none run concurrently
+            String value = placeholders && i > 0 ? "{{name" + (i - 1) + "}}" : "1234ABC";
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("className", BenchmarkTools.class.getName());
+            step.put("methodName", "findProductName");
+            step.put("methodArguments", List.of(Map.of("type", "java.lang.String", "value", value)));
+            if (placeholders) {
+                step.put("returnObjectKey", "{{name" + i + "}}");
+            }
+            planJson.add(step);
+        }
+        ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
+        plan = mapper.readValue(mapper.writeValueAsString(planJson), new TypeReference<>() {});
+        sequentialOptions = PipelineOptions.builder().maxParallelism(1).build();
+    }
+
+    @Benchmark
+    public List<MethodExecutionResult> concurrent() throws Exception {
+        return ReflectionCaller.executePipeline(plan);
+    }
+
+    @Benchmark
+    public List<MethodExecutionResult> sequential() throws Exception {
+        return ReflectionCaller.executePipeline(plan, sequentialOptions);
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.lekan128.aiagent.impl;
+
+import io.github.lekan128.aiagent.benchmarks.BenchmarkOrder;
+import io.github.lekan128.aiagent.benchmarks.BenchmarkTools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parts of the prompts built from the tools and the response types: scanning and describing the tools
+ * ({@link AiUtil}), the catalog kept by {@link ToolRegistry}, with or without selecting the tools relevant to the query,
+ * and the output formats of {@link Util#convertToString}.
+ *
+ * <p>Declared in the package of the agent to reach its package-private helpers. {@code scanAndDescribeTools} is
+ * {@link AiUtil#getAiToolsAsJson()} on the package of {@link BenchmarkTools} instead of the
+ * {@code AI_TOOLS_PACKAGE} environment variable. It scans the whole benchmarks jar (hundreds of milliseconds), so each
+ * of its iterations is a single call.</p>
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar CatalogBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmark {
+    private static final List<String> TOOLS_PACKAGES = List.of(BenchmarkTools.class.getPackageName());
+
+    private List<Method> toolMethods;
+    private ToolRegistry toolRegistry;
+
+    @Setup
+    public void setUp() {
+        toolMethods = AiUtil.scanAiToolMethods(TOOLS_PACKAGES);
+        toolRegistry = new ToolRegistry(TOOLS_PACKAGES);
+        toolRegistry.getCatalogJson();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public String scanAndDescribeTools() {
+        return AiUtil.toJson(AiUtil.describeMethods(AiUtil.scanAiToolMethods(TOOLS_PACKAGES)));
+    }
+
+    @Benchmark
+    public String describeTools() {
+        return AiUtil.toJson(AiUtil.describeMethods(toolMethods));
+    }
+
+    @Benchmark
+    public String cachedCatalog() {
+        return toolRegistry.getCatalogJson();
+    }
+
+    @Benchmark
+    public String selectedCatalog() {
+        return toolRegistry.getCatalogJson("What is the price of 3 units of product 1234ABC?", 1, Set.of());
+    }
+
+    @Benchmark
+    public String outputFormat() throws Exception {
+        return Util.convertToString(BenchmarkOrder.class, false);
+    }
+}
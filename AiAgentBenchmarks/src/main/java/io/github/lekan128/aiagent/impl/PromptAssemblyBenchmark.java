@@ -0,0 +1,94 @@
+package io.github.lekan128.aiagent.impl;
+
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.benchmarks.BenchmarkOrder;
+import io.github.lekan128.aiagent.benchmarks.BenchmarkTools;
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionInvocableMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the assembly of the two prompts of an agent call, without any LLM: the planning prompt
+ * ({@link AgentImpl#getCompletePromptForPlan(String)}) and the final prompt holding the results of the tool calls
+ * ({@link AgentImpl#getPromptForFinalResult}).
+ *
+ * <p>{@code toolsTopK} 0 sends the whole catalog, rendered once, 1 selects the tool relevant to each query.
+ * {@code toolResults} is the number of results in the final prompt, each a list of {@code resultElements} orders:
+ * the larger results are cut by the limits of the tool results.</p>
+ *
+ * <p>Declared in the package of the agent to reach its package-private methods.</p>
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar PromptAssemblyBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblyBenchmark {
+    private static final String QUERY = "What is the price of 3 units of product 1234ABC?";
+    private static final String PERSONA = "A product describer";
+
+    @Param({"0", "1"})
+    private int toolsTopK;
+
+    @Param({"1", "10"})
+    private int toolResults;
+
+    @Param({"1", "500"})
+    private int resultElements;
+
+    private AgentImpl agent;
+    private List<MethodExecutionResult> executionResults;
+
+    @Setup
+    public void setUp() throws Exception {
+        agent = new AgentImpl(AgentConfig.builder()
+                .toolsPackages(BenchmarkTools.class.getPackageName())
+                .toolsTopK(toolsTopK)
+                .build());
+
+        List<Map<String, Object>> orders = new ArrayList<>(resultElements);
+        for (int i = 0; i < resultElements; i++) {
+            orders.add(Map.of("productName", "Product " + (1234 + i) + "ABC", "quantity", i + 1, "tags", List.of("gift", "express")));
+        }
+        executionResults = new ArrayList<>(toolResults);
+        for (int i = 0; i < toolResults; i++) {
+            ReflectionInvocableMethod request = new ReflectionInvocableMethod();
+            request.setClassName(BenchmarkTools.class.getName());
+            request.setMethodName("describeOrder");
+            request.setMethodArguments(List.of());
+            executionResults.add(new MethodExecutionResult(request, orders));
+        }
+
+        // The templates bound once per catalog and response type are not part of the measurements
+        planPrompt();
+        finalPrompt();
+    }
+
+    @Benchmark
+    public String planPrompt() throws Exception {
+        return agent.getCompletePromptForPlan(QUERY);
+    }
+
+    @Benchmark
+    public String finalPrompt() throws Exception {
+        return agent.getPromptForFinalResult(null, PERSONA, QUERY, executionResults, BenchmarkOrder.class);
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.benchmarks.BenchmarkTools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of one call of a tool through a cached {@link ToolMethodInvoker} with a reflective call on a
+ * cached {@link Method}, with the uncached reflection path it replaced (class, parameter types and method looked up
+ * on every call) and with a direct call.
+ *
+ * <p>The benchmarks module does not run the annotation processor, so the invokers use the dispatchers spun at runtime.</p>
+ *
+ * <p>Declared in the package of the invoker to reach it.</p>
+ *
+ * <p>Run with: {@code java -jar AiAgentBenchmarks/target/benchmarks.jar ToolInvocationBenchmark -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolInvocationBenchmark {
+    private String productId;
+    private String productName;
+    private int quantity;
+    private BenchmarkTools tools;
+    private ToolMethodInvoker staticInvoker;
+    private ToolMethodInvoker instanceInvoker;
+    private Method staticMethod;
+
+    @Setup
+    public void setUp() throws Exception {
+        productId = "1234ABC";
+        productName = "Keyboard";
+        quantity = 3;
+        tools = new BenchmarkTools();
+        staticInvoker = ToolMethodInvoker.create(BenchmarkTools.class.getName(), "findProductName", new Class<?>[]{String.class});
+        instanceInvoker = ToolMethodInvoker.create(BenchmarkTools.class.getName(), "findPrice", new Class<?>[]{String.class, int.class});
+        staticMethod = BenchmarkTools.class.getMethod("findProductName", String.class);
+    }
+
+    @Benchmark
+    public Object cachedInvoker() throws Exception {
+        return staticInvoker.invoke(null, new Object[]{productId});
+    }
+
+    @Benchmark
+    public Object cachedInstanceInvoker() throws Exception {
+        return instanceInvoker.invoke(tools, new Object[]{productName, quantity});
+    }
+
+    @Benchmark
+    public Object cachedMethod() throws Exception {
+        return staticMethod.invoke(null, productId);
+    }
+
+    @Benchmark
+    public Object uncachedReflection() throws Exception {
+        // The lookups done for every step before the invokers were cached
+        Class<?> clazz = Class.forName("io.github.lekan128.aiagent.benchmarks.BenchmarkTools");
+        Class<?>[] paramTypes = {Class.forName("java.lang.String")};
+        Object[] paramValues = {productId};
+        Method method = clazz.getMethod("findProductName", paramTypes);
+        Object instance = null;
+        if (!Modifier.isStatic(method.getModifiers())) {
+            instance = clazz.getDeclaredConstructor().newInstance();
+        }
+        return method.invoke(instance, paramValues);
+    }
+
+    @Benchmark
+    public Object directCall() {
+        return BenchmarkTools.findProductName(productId);
+    }
+}
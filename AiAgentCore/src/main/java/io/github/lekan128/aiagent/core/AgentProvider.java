@@ -2,6 +2,7 @@ package io.github.lekan128.aiagent.core;
 
 import io.github.lekan128.aiagent.impl.AgentFactory;
 import io.github.lekan128.aiagent.api.Agent;
+import io.github.lekan128.aiagent.api.AgentConfig;
 
 /**
  * Provides a guaranteed, thread-safe, singleton instance of the {@link Agent} interface.
@@ -44,4 +45,18 @@ public final class AgentProvider {
         return INSTANCE;
     }
 
+    /**
+     * Creates a new {@link Agent} with its own configuration, independent of the singleton returned by {@link #get()}.
+     *
+     * <p>Use it to run several differently configured agents (e.g., different tools packages or parallelism) in the
+     * same application. Each agent keeps its own tool catalog and tool instances, so it should be created once and reused.</p>
+     *
+     * @param config The {@link AgentConfig} of the agent.
+     * @return A new instance of the {@code Agent}.
+     * @since 1.1.0
+     */
+    public static Agent create(AgentConfig config) {
+        return AgentFactory.createAgent(config);
+    }
+
 }
\ No newline at end of file
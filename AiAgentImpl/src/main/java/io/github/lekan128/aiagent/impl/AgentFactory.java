@@ -1,6 +1,7 @@
 package io.github.lekan128.aiagent.impl;
 
 import io.github.lekan128.aiagent.api.Agent;
+import io.github.lekan128.aiagent.api.AgentConfig;
 
 /**
  * Factory class responsible for the instantiation and configuration of the concrete {@link Agent} implementation.
@@ -33,4 +34,15 @@ public class AgentFactory {
     public static Agent createAgent(){
         return new AgentImpl();
     }
+
+    /**
+     * Creates and returns a new instance of the concrete {@link Agent} implementation with the given configuration.
+     *
+     * @param config The {@link AgentConfig} of the agent.
+     * @return A newly created instance of {@code AgentImpl}, which implements the {@code Agent} contract.
+     * @since 1.1.0
+     */
+    public static Agent createAgent(AgentConfig config){
+        return new AgentImpl(config);
+    }
 }
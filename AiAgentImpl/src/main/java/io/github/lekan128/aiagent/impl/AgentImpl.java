@@ -1,17 +1,45 @@
 package io.github.lekan128.aiagent.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
 import io.github.lekan128.aiagent.api.Agent;
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.AgentTimeoutException;
 import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.api.batch.AgentQuery;
+import io.github.lekan128.aiagent.api.batch.BatchResult;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.cache.LruCache;
+import io.github.lekan128.aiagent.api.conversation.ConversationStore;
+import io.github.lekan128.aiagent.api.conversation.ConversationTurn;
+import io.github.lekan128.aiagent.api.conversation.InMemoryConversationStore;
 import io.github.lekan128.aiagent.api.llm.LLM;
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+import io.github.lekan128.aiagent.api.metrics.InMemoryAgentMetrics;
+import io.github.lekan128.aiagent.api.metrics.MetricsSnapshot;
+import io.github.lekan128.aiagent.api.prompt.PromptTemplate;
 import io.github.lekan128.aiagent.impl.method.caller.ReflectionCaller;
 import io.github.lekan128.aiagent.impl.method.caller.ReflectionInvocableMethod;
+import io.github.lekan128.aiagent.impl.method.caller.PipelineOptions;
+import io.github.lekan128.aiagent.impl.method.caller.PipelineRun;
+import io.github.lekan128.aiagent.impl.method.caller.PlanStreamReader;
+import io.github.lekan128.aiagent.impl.method.caller.ToolInstances;
+import io.github.lekan128.aiagent.impl.method.caller.TraceSpan;
+import io.github.lekan128.aiagent.api.tool.ToolInstanceProvider;
+import io.github.lekan128.aiagent.api.tracing.Span;
+import io.github.lekan128.aiagent.api.tracing.SpanExporter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Concrete, internal implementation of the {@link Agent} interface.
@@ -31,72 +59,7 @@ import java.util.List;
  */
 class AgentImpl implements Agent {
 
-    /**
-     * Executes the main AI Agent workflow, coordinating the user query, LLM calls, and structured response generation.
-     *
-     * <p>The workflow proceeds in three phases:
-     * <ol>
-     * <li>**Planning:** Calls the LLM (via an assumed internal method {@code callWithToolsForPlan})
-     * to determine if any tools are needed, resulting in a list of method execution requests.</li>
-     * <li>**Execution:** Executes the planned tool calls sequentially using {@link ReflectionCaller#executePipeline(List)},
-     * collecting the results.</li>
-     * <li>**Final Response:** Calls the LLM again (via an assumed internal method {@code callForFinalResponse}),
-     * providing the tool results and original query, to generate the final response and map it to the
-     * specified {@code responseClass}.</li>
-     * </ol></p>
-     *
-     * @param <T> The target type to which the LLM's final response should be mapped.
-     * @param userQuery The specific request or question from the user.
-     * @param aiPersona The defined role or personality for the AI to adopt.
-     * @param llm The specific {@link LLM} instance to be used.
-     * @param responseClass The Java class representing the desired structured response type.
-     * @return An instance of type {@code T} containing the structured response data.
-     * @throws JsonProcessingException If there is an error during the final response deserialization.
-     * @throws ClassNotFoundException If a class used in reflection (tool call) cannot be found.
-     * @throws InvocationTargetException If an invoked tool method throws an exception.
-     * @throws NoSuchMethodException If a required constructor or method (in a tool or response class) is not found.
-     * @throws InstantiationException If the system is unable to create a new instance (tool or response class).
-     * @throws IllegalAccessException If the application does not have access to a definition (tool or response class).
-     */
-    @Override
-    public <T> T useAgent(String userQuery, String aiPersona, LLM llm, Class<T> responseClass) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        List<ReflectionInvocableMethod> invocableMethodList = AgentImpl.callWithToolsForPlan(
-                userQuery, llm
-        );
-
-        List<MethodExecutionResult> methodExecutionResults = ReflectionCaller.executePipeline(invocableMethodList);
-
-        T response = AgentImpl.callForFinalResponse(aiPersona, userQuery, methodExecutionResults, llm, responseClass);
-        return response;
-    }
-
-    private static List<ReflectionInvocableMethod> callWithToolsForPlan(String userQuery, LLM llm) throws JsonProcessingException {
-        String completePrompt = getCompletePromptForPlan(userQuery);
-
-
-        String generateContentResponse = llm.call(completePrompt);
-
-        List<ReflectionInvocableMethod> response;
-        ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
-
-        try {
-            response = objectMapper.readValue(generateContentResponse
-                            .replace("```json", "")
-                            .replace("```", ""),
-                    new TypeReference<>() {
-                    });
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Unable to convert " + llm.getModelName() + " generateContentResponse to POJO\n"+e);
-        }
-        return response;
-    }
-
-    private static String getCompletePromptForPlan(String userQuery) throws JsonProcessingException {
-        String toolsJson = AiUtil.getAiToolsAsJson();
-        String outputFormat = Util.convertToString(ReflectionInvocableMethod.class);
-
-
-        String completePrompt = String.format("""
+    private static final PromptTemplate DEFAULT_PLAN_PROMPT = PromptTemplate.of("""
                 [SYSTEM INSTRUCTIONS]
                 You are an expert AI assistant that functions as a tool-use planner".
                 Your sole purpose is to analyze a user's query and generate a JSON plan of tool calls required to fulfill it.
@@ -114,7 +77,7 @@ class AgentImpl implements Agent {
                 8. No Extra Text: Do not provide any explanation, field or text outside of the `Output Format` JSON array.
                             
                 [TOOLS AVAILABLE]
-                %s
+                ${tools}
                             
                 [EXAMPLE]
                 1. User Query: "Find me some information on the product with the id 1234ABC"
@@ -144,42 +107,14 @@ class AgentImpl implements Agent {
                             
                             
                 [TASK]
-                User Query: "<<<%s>>>"
-                Output Format: [%s]
+                User Query: "<<<${query}>>>"
+                Output Format: [${outputFormat}]
                 Your Output:
-                """, toolsJson, userQuery, outputFormat);
-        return completePrompt;
-    }
+                """);
 
-    /**
-     *
-     * @param aiPersona example = "A product describer, that give description of products to be sold online"
-     * */
-    private static <T> T callForFinalResponse(String aiPersona, String userQuery, List<MethodExecutionResult> executionResults, LLM llm, Class<T> responseType) throws JsonProcessingException {
-        String completePrompt = getPromptForFinalResult(aiPersona, userQuery, executionResults, responseType);
-
-
-        String generateContentResponse = llm.call(completePrompt);
-
-        T response;
-
-        ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
-        try {
-            response = objectMapper.readValue(generateContentResponse.replace("```json", "").replace("```", ""), responseType);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Unable to convert " + llm.getModelName() + " generateContentResponse to POJO\n"+e + '\n' + generateContentResponse);
-        }
-        return response;
-    }
-
-    private static <T> String getPromptForFinalResult(String aiPersonality, String userQuery, List<MethodExecutionResult> executionResults, Class<T> responseType) throws JsonProcessingException {
-        String toolResultsJson = ObjectMapperSingleton.getObjectMapper().writeValueAsString(executionResults); // The JSON from your list of ToolExecutionResult
-        String finalOutputFormat = Util.convertToString(responseType);
-        String chatHistoryJson = "";
-
-        String synthesisPrompt = String.format("""
+    private static final PromptTemplate DEFAULT_FINAL_PROMPT = PromptTemplate.of("""
                 [SYSTEM_INSTRUCTIONS]
-                You are %s.
+                You are ${persona}.
                 Your purpose is to synthesize a final answer by analyzing the user's query, the conversation history, and the results from any tools that were called.
                 
                 [RULES]
@@ -190,10 +125,10 @@ class AgentImpl implements Agent {
                 5. Strictly Adhere to Format: Your final output MUST be a single, valid JSON object that conforms to the Final Output Format. Provide no other text.
                                 
                 [CHAT_HISTORY]
-                %s
+                ${chatHistory}
                                 
                 [TOOL_RESULTS]
-                %s
+                ${toolResults}
                                 
                 [EXAMPLE]
                 // Example 1: A multi-step chained query
@@ -226,18 +161,893 @@ class AgentImpl implements Agent {
                 Your Output:{"productName":"SoPure Cream","description":"Unable to find the details.","price":null,"toolsUsed" : [ ]}
                  
                 [TASK]
-                User Query: "<<<%s>>>"
-                Final Output Format: %s
+                User Query: "<<<${query}>>>"
+                Final Output Format: ${outputFormat}
                 Your Output:
-                """, aiPersonality,
-                chatHistoryJson, // A JSON representation of the conversation so far
-                toolResultsJson, // The JSON from your ToolExecutionResult
-                userQuery, // The user's most recent message
-                finalOutputFormat
-        );
+                """);
+
+    private static final PromptTemplate DEFAULT_DIRECT_ANSWER_PROMPT = PromptTemplate.of("""
+                [SYSTEM INSTRUCTIONS]
+                You are ${persona}.
+                You are also an expert tool-use planner. Analyze the user's query and either generate a JSON plan of the tool calls required to fulfill it, or, if no tool is required, answer it directly.
+                
+                [RULES]
+                1. Decide: If the query needs data or actions only the tools below provide, output a plan (rules 2 to 6). Otherwise, output an answer (rule 7).
+                2. Select Tools: From the list of available tools, choose the most appropriate tool(s) to call.
+                3. Generate Arguments: For each tool call, determine the most effective arguments based on the user's query. Do NOT use the entire query as an argument unless it is the most logical.
+                4. Chaining Method Calls:
+                    a. Saving a Result: To save a method's output for a later step, add a `"returnObjectKey"` field to its JSON object. The value should be a descriptive placeholder string, like `{{product_name}}` or `{{search_results}}`.
+                    b. Using a Saved Result: To use a saved result in a subsequent method, set the argument's `"value"` to the exact placeholder string you defined in a previous step (e.g., `"value": "{{product_name}}"`).
+                5. Execution Order: The list of method calls MUST be in the correct sequential order. Any method that uses a placeholder in its arguments must appear AFTER the method that defines that placeholder in its `returnObjectKey`.
+                6. Plan Format: A plan MUST be a valid JSON array of method calls, in the `Plan Format`.
+                7. Answer Format: An answer MUST be a single, valid JSON object that conforms to the `Answer Format`. Use the `[CHAT_HISTORY]` to understand the flow of the conversation. Do not invent facts that would need a tool; use the JSON value `null` for the fields you cannot fill.
+                8. No Extra Text: Output either the JSON array or the JSON object, with no explanation, field or text outside of it.
+                
+                [TOOLS AVAILABLE]
+                ${tools}
+                
+                [CHAT_HISTORY]
+                ${chatHistory}
+                
+                [EXAMPLE]
+                1. User Query: "Find me some information on the product with the id 1234ABC"
+                 Your Output: [
+                    {
+                        "className": "org.example.ProductService",
+                        "methodName": "findProductName",
+                        "methodArguments": [{"type": "java.lang.String", "value": "1234ABC"}],
+                        "returnObjectKey": "{{product_name}}"
+                    },
+                    {
+                        "className":"org.example.web.search.DuckDuckGo",
+                        "methodName":"search",
+                        "methodArguments":[{"type":"java.lang.String","value":"{{product_name}}"}],
+                        "returnObjectKey": "{{search_result}}"
+                    }
+                    ]
+                2. User Query: "What is AI"
+                 Your Output: {"summary":"AI is the development of computer systems performing human-like tasks","researchAbout":"AI (Artificial Intelligence)"}
+                
+                [TASK]
+                User Query: "<<<${query}>>>"
+                Plan Format: [${outputFormat}]
+                Answer Format: ${answerFormat}
+                Your Output:
+                """);
+
+    private final AgentConfig config;
+    private final ToolRegistry toolRegistry;
+    private final ToolInstances toolInstances = new ToolInstances();
+    private final PipelineOptions pipelineOptions;
+    private final PromptTemplate planPromptTemplate;
+    private final PromptTemplate finalPromptTemplate;
+    private final LruCache<Class<?>, PromptTemplate> finalPrompts;
+    /** The template asking for a plan or an answer, {@code null} if the agent does not answer directly. */
+    private final PromptTemplate directAnswerPromptTemplate;
+    /** The direct answer templates in which the output formats are rendered, per response type. */
+    private final LruCache<Class<?>, PromptTemplate> directAnswerPrompts;
+    private volatile BoundPlanPrompt planPrompt;
+    /** The plan prompt template in which only the output format is rendered, for the catalogs selected per query. */
+    private volatile PromptTemplate planPromptWithoutTools;
+    private final Set<String> toolsAlwaysInclude;
+    private final ToolResultsWriter toolResultsWriter;
+    /** The plans of the recent queries, keyed by {@link #planKey(String, String, String, LLM, Class)}, {@code null} if the plan cache is disabled. */
+    private final LruCache<String, List<ReflectionInvocableMethod>> plans;
+    private volatile ConversationStore conversationStore;
+    private final MetricsRecorder metrics = new MetricsRecorder();
+    /** The exporter of the spans of the calls, {@code null} if the calls are not traced. */
+    private volatile SpanExporter spanExporter;
+
+    /**
+     * Creates an agent configured by {@link AgentConfig#getDefault()}, i.e., whose tools are found in the packages
+     * named by the {@code AI_TOOLS_PACKAGE} environment variable.
+     */
+    AgentImpl() {
+        this(AgentConfig.getDefault());
+    }
+
+    /**
+     * Creates an agent with the given configuration.
+     * @param config The {@link AgentConfig} of the agent.
+     */
+    AgentImpl(AgentConfig config) {
+        this(config, new ToolRegistry(config.getToolsPackages()));
+    }
+
+    /**
+     * Creates an agent using the given tool registry.
+     * @param config The {@link AgentConfig} of the agent.
+     * @param toolRegistry The {@link ToolRegistry} holding the tools available to the agent.
+     */
+    AgentImpl(AgentConfig config, ToolRegistry toolRegistry) {
+        this.config = config;
+        this.toolRegistry = toolRegistry;
+        this.pipelineOptions = PipelineOptions.builder()
+                .toolInstances(toolInstances)
+                .executor(config.getToolExecutor())
+                .maxParallelism(config.getMaxParallelism())
+                .logToolResults(config.isLogToolResults())
+                .metrics(metrics)
+                .build();
+        this.planPromptTemplate = config.getPlanPromptTemplate() != null ? config.getPlanPromptTemplate() : DEFAULT_PLAN_PROMPT;
+        this.finalPromptTemplate = config.getFinalPromptTemplate() != null ? config.getFinalPromptTemplate() : DEFAULT_FINAL_PROMPT;
+        this.finalPrompts = new LruCache<>(config.getSchemaCacheSize());
+        if (config.isDirectAnswer()) {
+            this.directAnswerPromptTemplate = config.getDirectAnswerPromptTemplate() != null ? config.getDirectAnswerPromptTemplate() : DEFAULT_DIRECT_ANSWER_PROMPT;
+            this.directAnswerPrompts = new LruCache<>(config.getSchemaCacheSize());
+        } else {
+            this.directAnswerPromptTemplate = null;
+            this.directAnswerPrompts = null;
+        }
+        this.plans = config.getPlanCacheSize() == 0 ? null : new LruCache<>(config.getPlanCacheSize(), Duration.ofSeconds(config.getPlanCacheTtlSeconds()));
+        this.toolsAlwaysInclude = Set.copyOf(config.getToolsAlwaysInclude());
+        this.toolResultsWriter = new ToolResultsWriter(config);
+        this.conversationStore = new InMemoryConversationStore(config.getConversationMaxBytes(), config.getConversationMaxSessions());
+    }
+
+    /**
+     * Executes the main AI Agent workflow, coordinating the user query, LLM calls, and structured response generation.
+     *
+     * <p>The workflow proceeds in three phases:
+     * <ol>
+     * <li>**Planning:** Streams the LLM response (via {@link LLM#callStream(String, java.util.function.Consumer)})
+     * to determine if any tools are needed, reading each planned method execution request as soon as it is generated.
+     * The plan of a query already planned with the same model and tool catalog is reused without calling the LLM.</li>
+     * <li>**Execution:** Dispatches each planned tool call to a pipeline run started with
+     * {@link ReflectionCaller#startPipeline(PipelineOptions)} while the rest of the plan is still being generated,
+     * running the calls that do not depend on each other concurrently, and collecting the results.</li>
+     * <li>**Final Response:** Calls the LLM again (via an assumed internal method {@code callForFinalResponse}),
+     * providing the tool results and original query, to generate the final response and map it to the
+     * specified {@code responseClass}.</li>
+     * </ol></p>
+     *
+     * <p>When {@link AgentConfig#isDirectAnswer()}, the planning call may answer a query needing no tool directly in
+     * the format of {@code responseClass}; the answer is then returned without the final call.</p>
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @return An instance of type {@code T} containing the structured response data.
+     * @throws JsonProcessingException If there is an error during the final response deserialization.
+     * @throws ClassNotFoundException If a class used in reflection (tool call) cannot be found.
+     * @throws InvocationTargetException If an invoked tool method throws an exception.
+     * @throws NoSuchMethodException If a required constructor or method (in a tool or response class) is not found.
+     * @throws InstantiationException If the system is unable to create a new instance (tool or response class).
+     * @throws IllegalAccessException If the application does not have access to a definition (tool or response class).
+     */
+    @Override
+    public <T> T useAgent(String userQuery, String aiPersona, LLM llm, Class<T> responseClass) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return useAgentInSession(null, userQuery, aiPersona, llm, responseClass, config.getTimeoutMillis());
+    }
 
-        return synthesisPrompt;
+    /**
+     * Executes the AI Agent workflow like {@link #useAgent(String, String, LLM, Class)} within the given timeout,
+     * split between the planning call, the tool execution and the final call.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param timeout The timeout of the call, zero for none.
+     * @return An instance of type {@code T} containing the structured response data.
+     */
+    @Override
+    public <T> T useAgent(String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return useAgentInSession(null, userQuery, aiPersona, llm, responseClass, toTimeoutMillis(timeout));
+    }
 
+    /**
+     * Executes the AI Agent workflow like {@link #useAgent(String, String, LLM, Class)}, giving the turns of the
+     * conversation kept by the {@link ConversationStore} to the final call and adding the new turn to them.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @return An instance of type {@code T} containing the structured response data.
+     */
+    @Override
+    public <T> T useAgent(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        requireSessionId(sessionId);
+        return useAgentInSession(sessionId, userQuery, aiPersona, llm, responseClass, config.getTimeoutMillis());
+    }
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgent(String, String, String, LLM, Class)} within the given
+     * timeout, split between the planning call, the tool execution and the final call.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param timeout The timeout of the call, zero for none.
+     * @return An instance of type {@code T} containing the structured response data.
+     */
+    @Override
+    public <T> T useAgent(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        requireSessionId(sessionId);
+        return useAgentInSession(sessionId, userQuery, aiPersona, llm, responseClass, toTimeoutMillis(timeout));
+    }
+
+    private <T> T useAgentInSession(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, long timeoutMillis) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        AgentRun run = AgentRun.start(timeoutMillis, directAnswerPromptTemplate != null);
+        TraceSpan span = startCallSpan(sessionId, userQuery, llm, responseClass);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            PlanOutcome outcome = run.await(planAndExecute(sessionId, userQuery, aiPersona, llm, responseClass, run, span));
+            T response;
+            if (outcome.answer != null) {
+                response = readFinalResponse(sessionId, userQuery, outcome.answer, llm, responseClass);
+            } else if (run.hasDeadline()) {
+                // a blocking call cannot be abandoned, the final call of a call with a deadline is made asynchronously
+                String completePrompt = getPromptForFinalResult(sessionId, aiPersona, userQuery, outcome.results, responseClass);
+                String generateContentResponse = run.await(callForFinalResponseAsync(completePrompt, llm, run, span));
+                response = readFinalResponse(sessionId, userQuery, generateContentResponse, llm, responseClass);
+            } else {
+                response = callForFinalResponse(sessionId, aiPersona, userQuery, outcome.results, llm, responseClass, span);
+            }
+            success = true;
+            span.end(null);
+            return response;
+        } catch (Throwable e) {
+            span.end(e);
+            throw e;
+        } finally {
+            metrics.recordLatency(AgentMetrics.CALL, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Executes the AI Agent workflow like {@link #useAgent(String, String, LLM, Class)}, chaining the planning call,
+     * the tool execution and the final call without blocking the calling thread.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @return A future of the structured response data.
+     */
+    @Override
+    public <T> CompletableFuture<T> useAgentAsync(String userQuery, String aiPersona, LLM llm, Class<T> responseClass) {
+        return useAgentInSessionAsync(null, userQuery, aiPersona, llm, responseClass, config.getTimeoutMillis());
+    }
+
+    /**
+     * Executes the AI Agent workflow like {@link #useAgentAsync(String, String, LLM, Class)} within the given timeout,
+     * split between the planning call, the tool execution and the final call.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param timeout The timeout of the call, zero for none.
+     * @return A future of the structured response data.
+     */
+    @Override
+    public <T> CompletableFuture<T> useAgentAsync(String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) {
+        return useAgentInSessionAsync(null, userQuery, aiPersona, llm, responseClass, toTimeoutMillis(timeout));
+    }
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgent(String, String, String, LLM, Class)}, without blocking
+     * the calling thread.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @return A future of the structured response data.
+     */
+    @Override
+    public <T> CompletableFuture<T> useAgentAsync(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass) {
+        requireSessionId(sessionId);
+        return useAgentInSessionAsync(sessionId, userQuery, aiPersona, llm, responseClass, config.getTimeoutMillis());
+    }
+
+    /**
+     * Executes one turn of a conversation like {@link #useAgentAsync(String, String, String, LLM, Class)} within the
+     * given timeout, split between the planning call, the tool execution and the final call.
+     *
+     * @param <T> The target type to which the LLM's final response should be mapped.
+     * @param sessionId The identifier of the conversation.
+     * @param userQuery The specific request or question from the user.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param timeout The timeout of the call, zero for none.
+     * @return A future of the structured response data.
+     */
+    @Override
+    public <T> CompletableFuture<T> useAgentAsync(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, Duration timeout) {
+        requireSessionId(sessionId);
+        return useAgentInSessionAsync(sessionId, userQuery, aiPersona, llm, responseClass, toTimeoutMillis(timeout));
+    }
+
+    /**
+     * Chains the phases of the call. Cancelling the returned future cancels the pending LLM call and interrupts the
+     * running tool calls.
+     */
+    private <T> CompletableFuture<T> useAgentInSessionAsync(String sessionId, String userQuery, String aiPersona, LLM llm, Class<T> responseClass, long timeoutMillis) {
+        AgentRun run = AgentRun.start(timeoutMillis, directAnswerPromptTemplate != null);
+        TraceSpan span = startCallSpan(sessionId, userQuery, llm, responseClass);
+        long start = System.nanoTime();
+        CompletableFuture<PlanOutcome> execution;
+        try {
+            execution = planAndExecute(sessionId, userQuery, aiPersona, llm, responseClass, run, span);
+        } catch (JsonProcessingException e) {
+            metrics.recordLatency(AgentMetrics.CALL, System.nanoTime() - start, false);
+            span.end(e);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> response = execution
+                .thenCompose(outcome -> {
+                    if (outcome.answer != null) {
+                        return CompletableFuture.completedFuture(outcome.answer);
+                    }
+                    run.checkNotCancelled();
+                    try {
+                        String completePrompt = getPromptForFinalResult(sessionId, aiPersona, userQuery, outcome.results, responseClass);
+                        return callForFinalResponseAsync(completePrompt, llm, run, span);
+                    } catch (JsonProcessingException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .thenApply(finalResponse -> readFinalResponse(sessionId, userQuery, finalResponse, llm, responseClass));
+        response.whenComplete((ignored, failure) -> {
+            metrics.recordLatency(AgentMetrics.CALL, System.nanoTime() - start, failure == null);
+            span.end(failure);
+            if (response.isCancelled()) {
+                run.cancel();
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Runs a batch of queries, at most {@link AgentConfig#getBatchParallelism()} at a time.
+     *
+     * @param <T> The target type to which the LLM's responses should be mapped.
+     * @param queries The queries.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param resultConsumer Receives the result of each query as soon as it completes, {@code null} for none.
+     * @return A future of the results of every query, in the order of the queries.
+     */
+    @Override
+    public <T> CompletableFuture<List<BatchResult<T>>> useAgentBatch(List<AgentQuery> queries, String aiPersona, LLM llm, Class<T> responseClass, Consumer<BatchResult<T>> resultConsumer) {
+        return useAgentBatch(queries, aiPersona, llm, responseClass, config.getBatchParallelism(), resultConsumer);
+    }
+
+    /**
+     * Runs a batch of queries, at most {@code parallelism} at a time, each like
+     * {@link #useAgentAsync(String, String, String, LLM, Class)}. The tool catalog and the output formats are
+     * prepared before the first query, so the first queries running together do not all build them.
+     *
+     * @param <T> The target type to which the LLM's responses should be mapped.
+     * @param queries The queries.
+     * @param aiPersona The defined role or personality for the AI to adopt.
+     * @param llm The specific {@link LLM} instance to be used.
+     * @param responseClass The Java class representing the desired structured response type.
+     * @param parallelism The maximum number of queries running at the same time.
+     * @param resultConsumer Receives the result of each query as soon as it completes, {@code null} for none.
+     * @return A future of the results of every query, in the order of the queries.
+     */
+    @Override
+    public <T> CompletableFuture<List<BatchResult<T>>> useAgentBatch(List<AgentQuery> queries, String aiPersona, LLM llm, Class<T> responseClass, int parallelism, Consumer<BatchResult<T>> resultConsumer) {
+        if (queries == null) {
+            throw new IllegalArgumentException("The queries must not be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        }
+        List<AgentQuery> batch = List.copyOf(queries);
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        try {
+            prepareBatch(responseClass);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return new BatchRun<T>(batch,
+                query -> useAgentInSessionAsync(query.getSessionId(), query.getUserQuery(), aiPersona, llm, responseClass, config.getTimeoutMillis()),
+                parallelism, resultConsumer).start();
+    }
+
+    /**
+     * Builds the parts of the prompts shared by the queries of a batch: the tool catalog and the templates in which
+     * the output formats of the response type are rendered.
+     */
+    private void prepareBatch(Class<?> responseClass) throws JsonProcessingException {
+        toolRegistry.getCatalogJson();
+        getFinalPromptTemplate(responseClass);
+        if (directAnswerPromptTemplate != null) {
+            getDirectAnswerPromptTemplate(responseClass);
+        }
+    }
+
+    /**
+     * Discards the cached tool catalog and the cached plans, the next call of the agent scans the tools packages again.
+     */
+    @Override
+    public void refreshTools() {
+        toolRegistry.invalidate();
+        if (plans != null) {
+            plans.clear();
+        }
+    }
+
+    /**
+     * Uses the given provider for every instance of the tool class.
+     * @param toolClass The class declaring non-static tool methods.
+     * @param provider The provider of its instances.
+     */
+    @Override
+    public void registerToolInstanceProvider(Class<?> toolClass, ToolInstanceProvider provider) {
+        toolInstances.register(toolClass, provider);
+    }
+
+    /**
+     * Replaces how the instances of the tool classes without a registered provider are created.
+     * @param provider The provider creating the tool instances.
+     */
+    @Override
+    public void setDefaultToolInstanceProvider(ToolInstanceProvider provider) {
+        toolInstances.setDefaultProvider(provider);
+    }
+
+    /**
+     * Replaces the store of the conversations.
+     * @param conversationStore The store keeping the turns of each conversation.
+     */
+    @Override
+    public void setConversationStore(ConversationStore conversationStore) {
+        if (conversationStore == null) {
+            throw new IllegalArgumentException("The conversation store must not be null");
+        }
+        this.conversationStore = conversationStore;
+    }
+
+    /**
+     * @return A snapshot of the result cache statistics of the cacheable tools called so far.
+     */
+    @Override
+    public Map<String, CacheStats> getToolCacheStats() {
+        return ReflectionCaller.getToolCacheStats();
+    }
+
+    /**
+     * @return A snapshot of the statistics of the plan cache, or {@code null} if it is disabled.
+     */
+    @Override
+    public CacheStats getPlanCacheStats() {
+        return plans == null ? null : plans.getStats();
+    }
+
+    /**
+     * @return A snapshot of the latencies, sizes and cache statistics of the agent.
+     */
+    @Override
+    public MetricsSnapshot getMetricsSnapshot() {
+        InMemoryAgentMetrics inMemory = metrics.getInMemory();
+        return new MetricsSnapshot(inMemory.getLatencies(), inMemory.getErrorCounts(), inMemory.getSizes(), getPlanCacheStats(), getToolCacheStats());
+    }
+
+    /**
+     * @param exporter The metrics also receiving every measurement of the agent, {@code null} to stop exporting them.
+     */
+    @Override
+    public void setMetricsExporter(AgentMetrics exporter) {
+        metrics.setExporter(exporter);
+    }
+
+    /**
+     * @param exporter The exporter receiving the spans of the calls started from now on, {@code null} to stop tracing.
+     */
+    @Override
+    public void setSpanExporter(SpanExporter exporter) {
+        this.spanExporter = exporter;
+    }
+
+    /**
+     * Starts the root span of a call, {@link TraceSpan#NOOP} if the calls are not traced.
+     */
+    private TraceSpan startCallSpan(String sessionId, String userQuery, LLM llm, Class<?> responseClass) {
+        TraceSpan span = TraceSpan.start(spanExporter, Span.CALL);
+        if (span.isRecording()) {
+            span.attribute("query", userQuery)
+                    .attribute("sessionId", sessionId)
+                    .attribute("model", llm.getModelName())
+                    .attribute("responseClass", responseClass.getName());
+        }
+        return span;
+    }
+
+    /**
+     * Executes the cached plan of the query, if any. Otherwise streams the plan from the LLM and executes each planned
+     * tool call as soon as it has been read, so the tools run while the rest of the plan is still being generated.
+     * The plan is cached once all its tool calls have succeeded.
+     *
+     * <p>When the agent answers directly, the LLM may answer instead of planning: the answer is returned as is and an
+     * empty plan is cached, so the same query later only takes the final call.</p>
+     * @param sessionId The identifier of the conversation, {@code null} outside of a conversation.
+     * @param userQuery The query of the user.
+     * @param aiPersona The persona of a direct answer.
+     * @param llm The {@link LLM} generating the plan.
+     * @param responseClass The format of a direct answer.
+     * @param run The deadline and cancellation of the call, bounding the planning call and the tool calls.
+     * @param span The span of the call, parent of the planning and execution spans.
+     * @return A future of the results of the tool calls, in the order of the plan, or of the direct answer.
+     * @throws JsonProcessingException If the tool catalog or an output format cannot be serialized.
+     */
+    private CompletableFuture<PlanOutcome> planAndExecute(String sessionId, String userQuery, String aiPersona, LLM llm, Class<?> responseClass, AgentRun run, TraceSpan span) throws JsonProcessingException {
+        String planKey = plans == null ? null : planKey(sessionId, userQuery, aiPersona, llm, responseClass);
+        if (planKey != null) {
+            List<ReflectionInvocableMethod> cachedPlan = plans.get(planKey);
+            if (cachedPlan != null) {
+                long executionStart = System.nanoTime();
+                TraceSpan executionSpan = span.startChild(Span.EXECUTION)
+                        .attribute("plan", cachedPlan)
+                        .attribute("cachedPlan", true);
+                PipelineRun pipelineRun = ReflectionCaller.startPipeline(pipelineOptions, executionSpan);
+                for (ReflectionInvocableMethod step : cachedPlan) {
+                    pipelineRun.submit(step);
+                }
+                return measure(run.bound(pipelineRun.complete(), AgentTimeoutException.Phase.EXECUTION, pipelineRun), AgentMetrics.EXECUTION, executionStart)
+                        .whenComplete((ignored, failure) -> executionSpan.end(failure))
+                        .thenApply(PlanOutcome::new);
+            }
+        }
+
+        boolean directAnswer = directAnswerPromptTemplate != null;
+        String planPrompt = directAnswer
+                ? getCompletePromptForDirectAnswer(sessionId, aiPersona, userQuery, responseClass)
+                : getCompletePromptForPlan(userQuery);
+        // the tools run while the plan is streamed, so the execution span starts with the planning span
+        TraceSpan planningSpan = span.startChild(Span.PLANNING).attribute("prompt", planPrompt);
+        TraceSpan executionSpan = span.startChild(Span.EXECUTION);
+        PipelineRun pipelineRun = ReflectionCaller.startPipeline(pipelineOptions, executionSpan);
+        PlanStreamReader planReader = new PlanStreamReader(pipelineRun::submit, directAnswer);
+
+        metrics.recordSize(AgentMetrics.PLANNING_PROMPT_CHARS, planPrompt.length());
+        long planningStart = System.nanoTime();
+        CompletableFuture<String> streaming;
+        try {
+            streaming = llm.callStream(planPrompt, planReader::feed);
+        } catch (RuntimeException e) {
+            streaming = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<String> planning = run.bound(streaming, AgentTimeoutException.Phase.PLANNING, pipelineRun)
+                .whenComplete((planResponse, failure) -> {
+                    planningSpan.attribute("response", planResponse).end(failure);
+                    if (failure != null) {
+                        // the tool calls already read from the stream must not outlive the failed planning
+                        pipelineRun.cancel(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                    }
+                });
+        return measure(planning, AgentMetrics.PLANNING, planningStart)
+                .thenCompose(planResponse -> {
+                    if (planResponse != null) {
+                        metrics.recordSize(AgentMetrics.PLANNING_RESPONSE_CHARS, planResponse.length());
+                    }
+                    List<ReflectionInvocableMethod> invocableMethodList;
+                    try {
+                        invocableMethodList = readPlan(planReader, planResponse, llm);
+                    } catch (RuntimeException e) {
+                        pipelineRun.cancel(e);
+                        throw e;
+                    }
+                    executionSpan.attribute("plan", invocableMethodList);
+                    if (planReader.isAnswer()) {
+                        if (planKey != null) {
+                            plans.put(planKey, List.of());
+                        }
+                        return CompletableFuture.completedFuture(new PlanOutcome(planResponse));
+                    }
+                    return measure(run.bound(pipelineRun.complete(), AgentTimeoutException.Phase.EXECUTION, pipelineRun), AgentMetrics.EXECUTION, System.nanoTime())
+                            .thenApply(methodExecutionResults -> {
+                                if (planKey != null) {
+                                    plans.put(planKey, List.copyOf(invocableMethodList));
+                                }
+                                return new PlanOutcome(methodExecutionResults);
+                            });
+                })
+                .whenComplete((ignored, failure) -> executionSpan.end(failure));
+    }
+
+    /**
+     * The plan depends on the model, on the tools it can choose from and on the query, whose formatting (whitespace runs)
+     * does not matter. The direct answer prompt also contains the persona, the response format and the chat history:
+     * the first two are part of the key, the plans of a conversation are not cached since its history changes with
+     * every call.
+     * @return The key of the plan, {@code null} if it must not be cached.
+     */
+    private String planKey(String sessionId, String userQuery, String aiPersona, LLM llm, Class<?> responseClass) {
+        StringBuilder key = new StringBuilder(userQuery.length() + 32)
+                .append(llm.getModelName()).append('\0')
+                .append(toolRegistry.getCatalogVersion()).append('\0');
+        if (directAnswerPromptTemplate != null) {
+            if (sessionId != null) {
+                return null;
+            }
+            key.append(aiPersona).append('\0')
+                    .append(responseClass.getName()).append('\0');
+        }
+        boolean pendingSpace = false;
+        for (int i = 0; i < userQuery.length(); i++) {
+            char c = userQuery.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            } else {
+                if (pendingSpace && key.charAt(key.length() - 1) != '\0') {
+                    key.append(' ');
+                }
+                pendingSpace = false;
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+
+    private static List<ReflectionInvocableMethod> readPlan(PlanStreamReader planReader, String generateContentResponse, LLM llm) {
+        try {
+            return planReader.finish();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to convert " + llm.getModelName() + " generateContentResponse to POJO\n" + e + '\n' + generateContentResponse);
+        }
+    }
+
+    /**
+     * @return The JSON of the tools relevant to the query, or the complete catalog (same instance) if every tool is sent.
+     */
+    private String getToolsJson(String userQuery) throws JsonProcessingException {
+        if (config.getToolsTopK() > 0) {
+            return toolRegistry.getCatalogJson(userQuery, config.getToolsTopK(), toolsAlwaysInclude);
+        }
+        return toolRegistry.getCatalogJson();
+    }
+
+    /**
+     * Package-private for the benchmarks of the prompt assembly.
+     * @return The prompt asking the LLM for the plan of tool calls of the query.
+     */
+    String getCompletePromptForPlan(String userQuery) throws JsonProcessingException {
+        String toolsJson = toolRegistry.getCatalogJson();
+        if (config.getToolsTopK() > 0) {
+            String selectedToolsJson = getToolsJson(userQuery);
+            if (selectedToolsJson != toolsJson) {
+                // Only the tools relevant to the query are sent, the catalog part differs for each query
+                PromptTemplate template = planPromptWithoutTools;
+                if (template == null) {
+                    String outputFormat = Util.convertToString(ReflectionInvocableMethod.class, config.isLogSchemas());
+                    template = planPromptTemplate.bind(Map.of(PromptTemplate.OUTPUT_FORMAT, outputFormat));
+                    planPromptWithoutTools = template;
+                }
+                return template.render(Map.of(
+                        PromptTemplate.TOOLS, selectedToolsJson,
+                        PromptTemplate.QUERY, userQuery
+                ));
+            }
+        }
+
+        BoundPlanPrompt current = planPrompt;
+        if (current == null || current.toolsJson != toolsJson) {
+            // The catalog changed (or was never used): the static part is rendered once per catalog snapshot
+            String outputFormat = Util.convertToString(ReflectionInvocableMethod.class, config.isLogSchemas());
+            current = new BoundPlanPrompt(toolsJson, planPromptTemplate.bind(Map.of(
+                    PromptTemplate.TOOLS, toolsJson,
+                    PromptTemplate.OUTPUT_FORMAT, outputFormat
+            )));
+            planPrompt = current;
+        }
+
+        return current.template.render(Map.of(PromptTemplate.QUERY, userQuery));
+    }
+
+    private PromptTemplate getDirectAnswerPromptTemplate(Class<?> responseType) throws JsonProcessingException {
+        PromptTemplate template = directAnswerPrompts.get(responseType);
+        if (template == null) {
+            // The output formats are rendered once per response type, the catalog may be selected per query
+            template = directAnswerPromptTemplate.bind(Map.of(
+                    PromptTemplate.OUTPUT_FORMAT, Util.convertToString(ReflectionInvocableMethod.class, config.isLogSchemas()),
+                    PromptTemplate.ANSWER_FORMAT, Util.convertToString(responseType, config.isLogSchemas())
+            ));
+            directAnswerPrompts.put(responseType, template);
+        }
+        return template;
+    }
+
+    private String getCompletePromptForDirectAnswer(String sessionId, String aiPersonality, String userQuery, Class<?> responseType) throws JsonProcessingException {
+        return getDirectAnswerPromptTemplate(responseType).render(Map.of(
+                PromptTemplate.PERSONA, aiPersonality,
+                PromptTemplate.TOOLS, getToolsJson(userQuery),
+                PromptTemplate.CHAT_HISTORY, getChatHistoryJson(sessionId),
+                PromptTemplate.QUERY, userQuery
+        ));
+    }
+
+    /**
+     *
+     * @param aiPersona example = "A product describer, that give description of products to be sold online"
+     * */
+    private <T> T callForFinalResponse(String sessionId, String aiPersona, String userQuery, List<MethodExecutionResult> executionResults, LLM llm, Class<T> responseType, TraceSpan span) throws JsonProcessingException {
+        String completePrompt = getPromptForFinalResult(sessionId, aiPersona, userQuery, executionResults, responseType);
+
+        metrics.recordSize(AgentMetrics.SYNTHESIS_PROMPT_CHARS, completePrompt.length());
+        TraceSpan synthesisSpan = span.startChild(Span.SYNTHESIS).attribute("prompt", completePrompt);
+        long start = System.nanoTime();
+        boolean success = false;
+        String generateContentResponse;
+        try {
+            generateContentResponse = llm.call(completePrompt);
+            success = true;
+        } catch (RuntimeException | Error e) {
+            synthesisSpan.end(e);
+            throw e;
+        } finally {
+            metrics.recordLatency(AgentMetrics.SYNTHESIS, System.nanoTime() - start, success);
+        }
+        synthesisSpan.attribute("response", generateContentResponse).end(null);
+        if (generateContentResponse != null) {
+            metrics.recordSize(AgentMetrics.SYNTHESIS_RESPONSE_CHARS, generateContentResponse.length());
+        }
+
+        return readFinalResponse(sessionId, userQuery, generateContentResponse, llm, responseType);
+    }
+
+    /**
+     * Makes the final call without blocking, bounded by the deadline of the run.
+     */
+    private CompletableFuture<String> callForFinalResponseAsync(String completePrompt, LLM llm, AgentRun run, TraceSpan span) {
+        metrics.recordSize(AgentMetrics.SYNTHESIS_PROMPT_CHARS, completePrompt.length());
+        TraceSpan synthesisSpan = span.startChild(Span.SYNTHESIS).attribute("prompt", completePrompt);
+        long start = System.nanoTime();
+        return measure(run.bound(llm.callAsync(completePrompt), AgentTimeoutException.Phase.SYNTHESIS, null), AgentMetrics.SYNTHESIS, start)
+                .whenComplete((generateContentResponse, failure) -> {
+                    synthesisSpan.attribute("response", generateContentResponse).end(failure);
+                    if (generateContentResponse != null) {
+                        metrics.recordSize(AgentMetrics.SYNTHESIS_RESPONSE_CHARS, generateContentResponse.length());
+                    }
+                });
+    }
+
+    /**
+     * Records the latency of the operation once the future completes.
+     */
+    private <T> CompletableFuture<T> measure(CompletableFuture<T> future, String name, long start) {
+        return future.whenComplete((ignored, failure) -> metrics.recordLatency(name, System.nanoTime() - start, failure == null));
+    }
+
+    /**
+     * Maps the final response and, in a conversation, adds the turn to the conversation once the response is valid.
+     */
+    private <T> T readFinalResponse(String sessionId, String userQuery, String generateContentResponse, LLM llm, Class<T> responseType) {
+        T response;
+
+        String responseJson = generateContentResponse.replace("```json", "").replace("```", "");
+        ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
+        try {
+            response = objectMapper.readValue(responseJson, responseType);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to convert " + llm.getModelName() + " generateContentResponse to POJO\n"+e + '\n' + generateContentResponse);
+        }
+
+        if (sessionId != null) {
+            conversationStore.append(sessionId, new ConversationTurn(userQuery, responseJson.trim(), System.currentTimeMillis()));
+        }
+        return response;
+    }
+
+    /**
+     * Package-private for the benchmarks of the prompt assembly.
+     * @return The prompt asking the LLM for the response, from the results of the tool calls.
+     */
+    <T> String getPromptForFinalResult(String sessionId, String aiPersonality, String userQuery, List<MethodExecutionResult> executionResults, Class<T> responseType) throws JsonProcessingException {
+        String chatHistoryJson = getChatHistoryJson(sessionId);
+        PromptTemplate template = getFinalPromptTemplate(responseType);
+
+        // The results are streamed into the prompt, bounded by the configured limits however large they are
+        StringBuilder prompt = new StringBuilder(template.getLiteralLength() + aiPersonality.length() + chatHistoryJson.length()
+                + userQuery.length() + toolResultsWriter.getCapacityHint(executionResults));
+        try {
+            template.renderTo(prompt, Map.of(
+                    PromptTemplate.PERSONA, aiPersonality,
+                    PromptTemplate.CHAT_HISTORY, chatHistoryJson, // A JSON representation of the conversation so far
+                    PromptTemplate.QUERY, userQuery // The user's most recent message
+            ), PromptTemplate.TOOL_RESULTS, target -> toolResultsWriter.write(target, executionResults)); // The JSON from your ToolExecutionResult
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return prompt.toString();
+    }
+
+    private PromptTemplate getFinalPromptTemplate(Class<?> responseType) throws JsonProcessingException {
+        PromptTemplate template = finalPrompts.get(responseType);
+        if (template == null) {
+            // The static part is rendered once per response type
+            String finalOutputFormat = Util.convertToString(responseType, config.isLogSchemas());
+            template = finalPromptTemplate.bind(Map.of(PromptTemplate.OUTPUT_FORMAT, finalOutputFormat));
+            finalPrompts.put(responseType, template);
+        }
+        return template;
+    }
+
+    /**
+     * @return The JSON of the turns of the conversation, empty outside of a conversation or for a new one.
+     */
+    private String getChatHistoryJson(String sessionId) throws JsonProcessingException {
+        if (sessionId != null) {
+            List<ConversationTurn> history = conversationStore.getHistory(sessionId);
+            if (!history.isEmpty()) {
+                return ObjectMapperSingleton.getObjectMapper().writeValueAsString(history);
+            }
+        }
+        return "";
+    }
+
+    private static long toTimeoutMillis(Duration timeout) {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("The timeout must not be null nor negative, was " + timeout);
+        }
+        return timeout.isZero() ? 0 : Math.max(1, timeout.toMillis());
+    }
+
+    private static void requireSessionId(String sessionId) {
+        if (sessionId == null || sessionId.isBlank()) {
+            throw new IllegalArgumentException("The session id must not be blank");
+        }
+    }
+
+    /**
+     * The outcome of the planning call: the results of the planned tool calls, or the answer of the LLM if it answered
+     * the query directly.
+     */
+    private static final class PlanOutcome {
+        private final List<MethodExecutionResult> results;
+        /** The raw response of the LLM answering directly, {@code null} if it planned. */
+        private final String answer;
+
+        private PlanOutcome(List<MethodExecutionResult> results) {
+            this.results = results;
+            this.answer = null;
+        }
+
+        private PlanOutcome(String answer) {
+            this.results = List.of();
+            this.answer = answer;
+        }
+    }
+
+    /**
+     * The plan prompt template in which the tool catalog and the output format are already rendered.
+     */
+    private static final class BoundPlanPrompt {
+        /** The catalog snapshot the template was rendered with, compared by identity. */
+        private final String toolsJson;
+        private final PromptTemplate template;
+
+        private BoundPlanPrompt(String toolsJson, PromptTemplate template) {
+            this.toolsJson = toolsJson;
+            this.template = template;
+        }
     }
 
 
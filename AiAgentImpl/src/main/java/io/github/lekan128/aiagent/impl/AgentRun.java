@@ -0,0 +1,174 @@
+package io.github.lekan128.aiagent.impl;
+
+import io.github.lekan128.aiagent.api.AgentTimeoutException;
+import io.github.lekan128.aiagent.impl.method.caller.PipelineRun;
+import io.github.lekan128.aiagent.impl.method.caller.ReflectionCaller;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline and the cancellation of one call of an agent.
+ *
+ * <p>The deadline is split between the phases of the call: the planning call must return within 40% of the timeout
+ * (70% when it may answer the query directly), the tool calls must be done by 70% of the timeout, and the final call
+ * takes the rest, at least 30% of the timeout. The time a phase does not use is left to the next ones.</p>
+ *
+ * <p>The LLM calls and the pipeline run of a phase are registered by {@link #bound(CompletableFuture, AgentTimeoutException.Phase, PipelineRun)}.
+ * When a phase runs out of time, or the call is {@link #cancel() cancelled}, the pending LLM calls are cancelled (the
+ * agent stops waiting for them) and the running tool calls are interrupted.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+final class AgentRun {
+    /** The share of the timeout the planning call may use. */
+    static final double PLANNING_SHARE = 0.4;
+    /** The share of the timeout kept for the final call. */
+    static final double SYNTHESIS_SHARE = 0.3;
+
+    private final long timeoutNanos;
+    private final long planningDeadline;
+    private final long executionDeadline;
+    private final long deadline;
+
+    private final Set<CompletableFuture<?>> pendingCalls = ConcurrentHashMap.newKeySet();
+    private volatile PipelineRun pipelineRun;
+    private volatile boolean cancelled;
+
+    private AgentRun(long timeoutNanos, boolean directAnswer) {
+        this.timeoutNanos = timeoutNanos;
+        long start = System.nanoTime();
+        this.deadline = start + timeoutNanos;
+        this.executionDeadline = deadline - (long) (timeoutNanos * SYNTHESIS_SHARE);
+        this.planningDeadline = directAnswer ? executionDeadline : start + (long) (timeoutNanos * PLANNING_SHARE);
+    }
+
+    /**
+     * @param timeoutMillis The timeout of the call in milliseconds, 0 for none.
+     * @param directAnswer {@code true} if the planning call may answer the query.
+     * @return The started run.
+     */
+    static AgentRun start(long timeoutMillis, boolean directAnswer) {
+        return new AgentRun(TimeUnit.MILLISECONDS.toNanos(timeoutMillis), directAnswer);
+    }
+
+    /**
+     * @return {@code true} if the call has a deadline.
+     */
+    boolean hasDeadline() {
+        return timeoutNanos > 0;
+    }
+
+    /**
+     * Registers the pending work of a phase and bounds it by the deadline of the phase.
+     *
+     * @param <T> The type of the result.
+     * @param future The pending LLM call or tool execution of the phase, cancelled when the phase runs out of time.
+     * @param phase The phase.
+     * @param pipelineRun The pipeline run of the phase, cancelled when the phase runs out of time, {@code null} for none.
+     * @return A future completed like {@code future}, or with an {@link AgentTimeoutException} once the deadline of the
+     * phase passes.
+     */
+    <T> CompletableFuture<T> bound(CompletableFuture<T> future, AgentTimeoutException.Phase phase, PipelineRun pipelineRun) {
+        if (pipelineRun != null) {
+            this.pipelineRun = pipelineRun;
+        }
+        pendingCalls.add(future);
+        future.whenComplete((value, failure) -> pendingCalls.remove(future));
+        if (cancelled) {
+            cancel();
+        }
+        if (timeoutNanos == 0) {
+            return future;
+        }
+
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        CompletableFuture<Void> timer = new CompletableFuture<>();
+        future.whenComplete((value, failure) -> {
+            timer.complete(null);
+            if (failure == null) {
+                bounded.complete(value);
+            } else {
+                bounded.completeExceptionally(failure);
+            }
+        });
+        long remaining = Math.max(0, deadlineOf(phase) - System.nanoTime());
+        timer.orTimeout(remaining, TimeUnit.NANOSECONDS).whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                return;
+            }
+            AgentTimeoutException timeout = new AgentTimeoutException("The " + phase.name().toLowerCase()
+                    + " of the agent did not complete within its share of the " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms timeout", phase);
+            if (bounded.completeExceptionally(timeout)) {
+                future.cancel(true);
+                if (pipelineRun != null) {
+                    pipelineRun.cancel(timeout);
+                }
+            }
+        });
+        return bounded;
+    }
+
+    private long deadlineOf(AgentTimeoutException.Phase phase) {
+        switch (phase) {
+            case PLANNING: return planningDeadline;
+            case EXECUTION: return executionDeadline;
+            default: return deadline;
+        }
+    }
+
+    /**
+     * @throws CancellationException If the call has been cancelled, so the next phase is not started.
+     */
+    void checkNotCancelled() {
+        if (cancelled) {
+            throw new CancellationException("The agent call was cancelled");
+        }
+    }
+
+    /**
+     * Cancels the call: the pending LLM calls are cancelled and the running tool calls are interrupted.
+     */
+    void cancel() {
+        cancelled = true;
+        for (CompletableFuture<?> pendingCall : pendingCalls) {
+            pendingCall.cancel(true);
+        }
+        PipelineRun run = pipelineRun;
+        if (run != null) {
+            run.cancel(new CancellationException("The agent call was cancelled"));
+        }
+    }
+
+    /**
+     * Waits for a phase of a synchronous call. The call is cancelled if the waiting thread is interrupted.
+     *
+     * @param <T> The type of the result.
+     * @param future The phase.
+     * @return The result of the phase.
+     * @throws CancellationException If the waiting thread is interrupted, its interrupt status is kept.
+     */
+    <T> T await(CompletableFuture<T> future) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            CancellationException cancellation = new CancellationException("The agent call was interrupted");
+            cancellation.initCause(e);
+            throw cancellation;
+        } catch (ExecutionException e) {
+            throw ReflectionCaller.rethrow(e.getCause());
+        }
+    }
+}
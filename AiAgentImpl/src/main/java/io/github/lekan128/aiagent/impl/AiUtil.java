@@ -3,36 +3,96 @@ package io.github.lekan128.aiagent.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.lekan128.aiagent.impl.method.description.MethodDescription;
 import io.github.lekan128.aiagent.impl.method.description.MethodDescriptor;
+import io.github.lekan128.aiagent.api.AgentConfig;
 import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
 import io.github.lekan128.aiagent.api.annotation.AiToolMethod;
-import io.github.cdimascio.dotenv.Dotenv;
 import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
 import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 
 import java.lang.reflect.Method;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 class AiUtil {
     static String getAiToolsAsJson(){
-        Dotenv dotenv = Dotenv.load();
-        String nameOfPackageWithTools = dotenv.get("AI_TOOLS_PACKAGE");
+        List<String> namesOfPackagesWithTools = AgentConfig.getDefault().getToolsPackages();
+        return toJson(describeMethods(scanAiToolMethods(namesOfPackagesWithTools)));
+    }
+
+    /**
+     * Scans the given packages for methods annotated with {@link AiToolMethod}.
+     * The methods are sorted by class, name and parameter types so the generated catalog is stable between scans.
+     */
+    static List<Method> scanAiToolMethods(List<String> namesOfPackagesWithTools) {
+        return scanAiToolMethods(namesOfPackagesWithTools, Set.of());
+    }
+
+    /**
+     * Scans the given packages for methods annotated with {@link AiToolMethod}, skipping the given classes.
+     * Only the class files of the packages are read, the excluded ones are not even parsed.
+     * @param excludedClassNames The binary names of the classes not to scan, e.g., the ones covered by a tool index.
+     */
+    static List<Method> scanAiToolMethods(List<String> namesOfPackagesWithTools, Set<String> excludedClassNames) {
+        Set<URL> urls = new LinkedHashSet<>();
+        for (String nameOfPackageWithTools : namesOfPackagesWithTools) {
+            urls.addAll(ClasspathHelper.forPackage(nameOfPackageWithTools));
+        }
         Reflections reflections = new Reflections(new ConfigurationBuilder()
-                .setUrls(ClasspathHelper.forPackage(nameOfPackageWithTools))
+                .setUrls(urls)
+                .filterInputsBy(path -> {
+                    if (!path.endsWith(".class")) {
+                        return false;
+                    }
+                    // e.g., "org/example/Tools$Nested.class" -> "org.example.Tools$Nested"
+                    String className = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+                    return !excludedClassNames.contains(className)
+                            && namesOfPackagesWithTools.stream().anyMatch(packageName -> isInPackage(className, packageName));
+                })
                 .setScanners(Scanners.SubTypes, Scanners.TypesAnnotated, Scanners.MethodsAnnotated));
 
         Set<Method> methods = reflections.getMethodsAnnotatedWith(AiToolMethod.class);
-        List<MethodDescription> methodDescriptions = new ArrayList<>();
+        List<Method> sortedMethods = new ArrayList<>(methods.size());
+        for (Method method : methods) {
+            // The scanned URLs are whole classpath roots, which may hold other packages
+            String className = method.getDeclaringClass().getName();
+            if (namesOfPackagesWithTools.stream().anyMatch(packageName -> isInPackage(className, packageName))) {
+                sortedMethods.add(method);
+            }
+        }
+        sortedMethods.sort(Comparator
+                .comparing((Method m) -> m.getDeclaringClass().getName())
+                .thenComparing(Method::getName)
+                .thenComparing(m -> Arrays.toString(m.getParameterTypes())));
+        return sortedMethods;
+    }
+
+    /**
+     * @return {@code true} if the class is in the package or one of its subpackages, {@code com.foo} does not contain
+     * {@code com.foobar.Tools}.
+     */
+    static boolean isInPackage(String className, String packageName) {
+        return className.startsWith(packageName)
+                && (className.length() == packageName.length() || className.charAt(packageName.length()) == '.');
+    }
 
+    static List<MethodDescription> describeMethods(List<Method> methods) {
+        List<MethodDescription> methodDescriptions = new ArrayList<>();
 
         for (Method m : methods) {
             MethodDescription desc = MethodDescriptor.describeMethod(m);
             if (desc != null) methodDescriptions.add(desc);
         }
+        return methodDescriptions;
+    }
 
+    static String toJson(List<MethodDescription> methodDescriptions) {
         String json = null;
         try {
             json = ObjectMapperSingleton.getObjectMapper()
@@ -0,0 +1,144 @@
+package io.github.lekan128.aiagent.impl;
+
+import io.github.lekan128.aiagent.api.batch.AgentQuery;
+import io.github.lekan128.aiagent.api.batch.BatchResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One run of a batch of queries, with at most a given number of queries in flight.
+ *
+ * <p>No thread waits for a query: the completion of a query starts the next one. The starts are serialized by a
+ * work-in-progress counter, so a query completing synchronously does not start the next one recursively.
+ * A failed query is reported as a failed {@link BatchResult}, the other queries go on.</p>
+ *
+ * <p>The result consumer is called once per query as soon as it completes, by the thread completing it, one call at
+ * a time. An exception thrown by the consumer does not stop the batch, the future of the batch fails with the first
+ * one once every query completed.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @param <T> The type of the responses.
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class BatchRun<T> {
+    private final List<AgentQuery> queries;
+    private final Function<AgentQuery, CompletableFuture<T>> runner;
+    private final int parallelism;
+    private final Consumer<BatchResult<T>> resultConsumer;
+
+    private final BatchResult<?>[] results;
+    private final CompletableFuture<List<BatchResult<T>>> completion = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger remaining;
+    /** The index of the next query to start, only touched by the thread holding {@link #wip}. */
+    private int next;
+    private Throwable consumerFailure;
+
+    /**
+     * @param queries The queries, in order.
+     * @param runner Starts the agent on one query.
+     * @param parallelism The maximum number of queries in flight, at least 1.
+     * @param resultConsumer Receives each result as soon as it is known, {@code null} for none.
+     */
+    BatchRun(List<AgentQuery> queries, Function<AgentQuery, CompletableFuture<T>> runner, int parallelism, Consumer<BatchResult<T>> resultConsumer) {
+        this.queries = queries;
+        this.runner = runner;
+        this.parallelism = parallelism;
+        this.resultConsumer = resultConsumer;
+        this.results = new BatchResult<?>[queries.size()];
+        this.remaining = new AtomicInteger(queries.size());
+    }
+
+    /**
+     * Starts the first queries.
+     * @return A future of the results of every query, in the order of the queries.
+     */
+    CompletableFuture<List<BatchResult<T>>> start() {
+        if (queries.isEmpty()) {
+            completion.complete(List.of());
+        } else {
+            drain();
+        }
+        return completion;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return; // The thread holding the counter starts the queries
+        }
+        do {
+            while (next < queries.size() && inFlight.get() < parallelism) {
+                inFlight.incrementAndGet();
+                launch(next++);
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void launch(int index) {
+        AgentQuery query = queries.get(index);
+        CompletableFuture<T> response;
+        try {
+            response = runner.apply(query);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((value, failure) -> {
+            BatchResult<T> result = failure == null
+                    ? BatchResult.success(index, query, value)
+                    : BatchResult.failure(index, query, unwrap(failure));
+            complete(index, result);
+        });
+    }
+
+    private void complete(int index, BatchResult<T> result) {
+        results[index] = result;
+        if (resultConsumer != null) {
+            synchronized (this) {
+                try {
+                    resultConsumer.accept(result);
+                } catch (RuntimeException e) {
+                    if (consumerFailure == null) {
+                        consumerFailure = e;
+                    }
+                }
+            }
+        }
+
+        inFlight.decrementAndGet();
+        if (remaining.decrementAndGet() == 0) {
+            finish();
+        } else {
+            drain();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void finish() {
+        Throwable failure;
+        synchronized (this) {
+            failure = consumerFailure;
+        }
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(List.of((BatchResult<T>[]) results));
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,471 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link JsonGenerator} that keeps the JSON of a value within limits while it is serialized, so a large value is
+ * never written, nor held in memory, in full.
+ *
+ * <ul>
+ * <li>A string longer than the maximum string length is cut and ends with a {@code ...[truncated N chars]} marker.</li>
+ * <li>An array keeps its first elements only, the others are replaced by a {@code ...[N more elements truncated]} marker.</li>
+ * <li>Once the output reaches the size limit, the remaining members and elements of the open objects and arrays are
+ * skipped, a {@code ...[truncated, size limit reached]} marker taking the place of the first skipped one
+ * (in a {@value #TRUNCATED_FIELD} field for an object). The output stays valid JSON.</li>
+ * </ul>
+ *
+ * <p>The limit is checked before each value, so the output may exceed it by one scalar value, itself cut to the
+ * maximum string length.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class BoundedJsonGenerator extends JsonGeneratorDelegate {
+    /** The field marking the truncation of an object. */
+    static final String TRUNCATED_FIELD = "_truncated";
+    private static final String SIZE_LIMIT_MARKER = "...[truncated, size limit reached]";
+
+    private final LongSupplier position;
+    private final int maxStringChars;
+    private final int maxArrayElements;
+    private final Deque<Container> containers = new ArrayDeque<>();
+    private long limit = Long.MAX_VALUE;
+    /** The depth of the nested objects and arrays of the value being skipped, 0 if no value is skipped. */
+    private int skipDepth;
+    private boolean sizeLimitReached;
+
+    /**
+     * @param delegate The generator writing the output.
+     * @param writtenChars The number of chars written to the output so far, excluding those buffered by {@code delegate}.
+     * @param maxStringChars The maximum length of a string.
+     * @param maxArrayElements The maximum number of elements of an array.
+     */
+    BoundedJsonGenerator(JsonGenerator delegate, LongSupplier writtenChars, int maxStringChars, int maxArrayElements) {
+        super(delegate, false);
+        this.position = () -> writtenChars.getAsLong() + Math.max(0, delegate.getOutputBuffered());
+        this.maxStringChars = maxStringChars;
+        this.maxArrayElements = maxArrayElements;
+    }
+
+    /**
+     * Starts a new root value.
+     * @param maxChars The maximum number of chars of the value.
+     */
+    void startValue(long maxChars) {
+        containers.clear();
+        skipDepth = 0;
+        sizeLimitReached = false;
+        limit = position.getAsLong() + maxChars;
+    }
+
+    /**
+     * @return The number of chars written so far, including those buffered.
+     */
+    long getPosition() {
+        return position.getAsLong();
+    }
+
+    /**
+     * Decides whether the next value is written, counting it in its array and truncating its container if needed.
+     * The value of an object member was decided with its field name.
+     */
+    private boolean beforeValue() throws IOException {
+        if (skipDepth > 0) {
+            return false;
+        }
+        Container container = containers.peek();
+        if (container == null) {
+            return true;
+        }
+        if (container.truncated) {
+            return false;
+        }
+        if (!container.array) {
+            return true;
+        }
+
+        container.count++;
+        if (position.getAsLong() >= limit) {
+            truncate(container, SIZE_LIMIT_MARKER);
+            return false;
+        }
+        if (container.count > maxArrayElements) {
+            truncate(container, container.size >= 0
+                    ? "...[" + (container.size - maxArrayElements) + " more elements truncated]"
+                    : "...[more elements truncated]");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean beforeFieldName() throws IOException {
+        if (skipDepth > 0) {
+            return false;
+        }
+        Container container = containers.peek();
+        if (container == null || container.truncated) {
+            return false;
+        }
+        if (position.getAsLong() >= limit) {
+            truncate(container, SIZE_LIMIT_MARKER);
+            return false;
+        }
+        return true;
+    }
+
+    private void truncate(Container container, String marker) throws IOException {
+        container.truncated = true;
+        if (marker == SIZE_LIMIT_MARKER) {
+            if (sizeLimitReached) {
+                return; // One marker is enough, in the innermost truncated container
+            }
+            sizeLimitReached = true;
+        }
+        if (!container.array) {
+            delegate.writeFieldName(TRUNCATED_FIELD);
+        }
+        delegate.writeString(marker);
+    }
+
+    private void startContainer(boolean array, int size, Object forValue) throws IOException {
+        if (!beforeValue()) {
+            skipDepth++;
+            return;
+        }
+        containers.push(new Container(array, size));
+        if (array) {
+            delegate.writeStartArray(forValue, size);
+        } else {
+            delegate.writeStartObject(forValue, size);
+        }
+    }
+
+    private void endContainer(boolean array) throws IOException {
+        if (skipDepth > 0) {
+            skipDepth--;
+            return;
+        }
+        containers.poll();
+        if (array) {
+            delegate.writeEndArray();
+        } else {
+            delegate.writeEndObject();
+        }
+    }
+
+    private void writeBoundedString(String text) throws IOException {
+        if (!beforeValue()) {
+            return;
+        }
+        if (text.length() <= maxStringChars) {
+            delegate.writeString(text);
+        } else {
+            delegate.writeString(text.substring(0, maxStringChars) + "...[truncated " + (text.length() - maxStringChars) + " chars]");
+        }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        startContainer(true, -1, null);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void writeStartArray(int size) throws IOException {
+        startContainer(true, size, null);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        startContainer(true, -1, forValue);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        startContainer(true, size, forValue);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        endContainer(true);
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        startContainer(false, -1, null);
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        startContainer(false, -1, forValue);
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        startContainer(false, size, forValue);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        endContainer(false);
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (beforeFieldName()) {
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (beforeFieldName()) {
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        if (beforeFieldName()) {
+            delegate.writeFieldId(id);
+        }
+    }
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset; i < offset + length; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset; i < offset + length; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeNull();
+        } else {
+            writeBoundedString(text);
+        }
+    }
+
+    @Override
+    public void writeString(char[] buffer, int offset, int length) throws IOException {
+        if (!beforeValue()) {
+            return;
+        }
+        if (length <= maxStringChars) {
+            delegate.writeString(buffer, offset, length);
+        } else {
+            delegate.writeString(new String(buffer, offset, maxStringChars) + "...[truncated " + (length - maxStringChars) + " chars]");
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        writeBoundedString(text.getValue());
+    }
+
+    @Override
+    public void writeString(Reader reader, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeString(reader, length);
+        }
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] buffer, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeRawUTF8String(buffer, offset, length);
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] buffer, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeUTF8String(buffer, offset, length);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (beforeValue()) {
+            delegate.writeRawValue(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeRawValue(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeRawValue(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeBinary(variant, data, offset, length);
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant variant, InputStream data, int dataLength) throws IOException {
+        return beforeValue() ? delegate.writeBinary(variant, data, dataLength) : 0;
+    }
+
+    @Override
+    public void writeNumber(short value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(value);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValue, int offset, int length) throws IOException {
+        if (beforeValue()) {
+            delegate.writeNumber(encodedValue, offset, length);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (beforeValue()) {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if (beforeValue()) {
+            delegate.writeNull();
+        }
+    }
+
+    @Override
+    public void writeEmbeddedObject(Object object) throws IOException {
+        if (beforeValue()) {
+            delegate.writeEmbeddedObject(object);
+        }
+    }
+
+    @Override
+    public void writeObjectRef(Object referenced) throws IOException {
+        if (beforeValue()) {
+            delegate.writeObjectRef(referenced);
+        }
+    }
+
+    private static final class Container {
+        private final boolean array;
+        /** The number of elements of the array if known, -1 otherwise. */
+        private final int size;
+        private int count;
+        private boolean truncated;
+
+        private Container(boolean array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.lekan128.aiagent.impl;
+
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+import io.github.lekan128.aiagent.api.metrics.InMemoryAgentMetrics;
+
+/**
+ * The {@link AgentMetrics} of an agent: every measurement is kept by its {@link InMemoryAgentMetrics} and handed to
+ * the exporter, if one is set.
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+final class MetricsRecorder implements AgentMetrics {
+    private final InMemoryAgentMetrics inMemory = new InMemoryAgentMetrics();
+    private volatile AgentMetrics exporter;
+
+    @Override
+    public void recordLatency(String name, long nanos, boolean success) {
+        inMemory.recordLatency(name, nanos, success);
+        AgentMetrics currentExporter = exporter;
+        if (currentExporter != null) {
+            currentExporter.recordLatency(name, nanos, success);
+        }
+    }
+
+    @Override
+    public void recordSize(String name, long size) {
+        inMemory.recordSize(name, size);
+        AgentMetrics currentExporter = exporter;
+        if (currentExporter != null) {
+            currentExporter.recordSize(name, size);
+        }
+    }
+
+    /**
+     * @return The measurements kept in memory.
+     */
+    InMemoryAgentMetrics getInMemory() {
+        return inMemory;
+    }
+
+    /**
+     * @param exporter The metrics also receiving every measurement, {@code null} for none.
+     */
+    void setExporter(AgentMetrics exporter) {
+        this.exporter = exporter;
+    }
+}
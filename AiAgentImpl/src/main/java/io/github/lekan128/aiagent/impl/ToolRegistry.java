@@ -0,0 +1,274 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.api.tool.ToolIndex;
+import io.github.lekan128.aiagent.impl.method.GeneratedToolIndexes;
+import io.github.lekan128.aiagent.impl.method.description.MethodDescription;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds the catalog of methods annotated with {@code @AiToolMethod} that are available to the {@code Agent}.
+ *
+ * <p>The catalog is built lazily the first time it is needed: the tools packages are scanned once,
+ * every tool is described with {@code MethodDescriptor}, the resolved {@link Method} handles are kept
+ * for lookup and the catalog JSON sent to the LLM is serialized once. Subsequent calls reuse the
+ * same snapshot until {@link #invalidate()} is called.</p>
+ *
+ * <p>For large catalogs, {@link #getCatalogJson(String, int, Collection)} sends only the tools relevant to the query,
+ * selected with a {@link ToolSearchIndex} built once per catalog snapshot.</p>
+ *
+ * <p>If tool indexes generated at compile time by the ai-agent-processor are found (see {@link ToolIndex}),
+ * the tools of the classes they cover are read from them. Coverage is decided per class: the classes of the tools
+ * packages no index covers (e.g., a jar compiled without the processor, or classes recompiled without the processor)
+ * are still scanned.</p>
+ *
+ * <p>This class is thread-safe. Readers never block once the catalog has been built.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class ToolRegistry {
+    private final List<String> toolsPackages;
+    private volatile Catalog catalog;
+    /** The version of the latest catalog built. Guarded by {@code this}. */
+    private int version;
+
+    /**
+     * Creates a registry for the tools found in the given package. No scanning happens until the catalog is first used.
+     * @param toolsPackage The package that contains the methods annotated with {@code @AiToolMethod}.
+     */
+    public ToolRegistry(String toolsPackage) {
+        this(toolsPackage == null ? List.of() : List.of(toolsPackage));
+    }
+
+    /**
+     * Creates a registry for the tools found in the given packages. No scanning happens until the catalog is first used.
+     * @param toolsPackages The packages that contain the methods annotated with {@code @AiToolMethod}.
+     */
+    public ToolRegistry(List<String> toolsPackages) {
+        this.toolsPackages = List.copyOf(toolsPackages);
+    }
+
+    /**
+     * Retrieves the descriptions of all the available tools.
+     * @return An unmodifiable list of {@link MethodDescription}, in a stable order.
+     */
+    public List<MethodDescription> getMethodDescriptions() {
+        return getCatalog().methodDescriptions;
+    }
+
+    /**
+     * Retrieves the pre-serialized JSON catalog of the available tools, as sent to the LLM.
+     * @return The pretty printed JSON array of the tool descriptions.
+     */
+    public String getCatalogJson() {
+        return getCatalog().catalogJson;
+    }
+
+    /**
+     * Retrieves the JSON catalog of the tools most relevant to the query, or the complete catalog if it has no more
+     * than {@code topK} tools.
+     * @param query The query of the user.
+     * @param topK The number of tools selected by relevance, 0 for every tool.
+     * @param alwaysInclude The tools selected whatever the query, as {@code className#methodName} or {@code className}.
+     * @return The JSON array of the selected tool descriptions.
+     */
+    public String getCatalogJson(String query, int topK, Collection<String> alwaysInclude) {
+        Catalog current = getCatalog();
+        if (topK <= 0 || current.methodDescriptions.size() <= topK) {
+            return current.catalogJson;
+        }
+        return current.getSearchIndex().selectJson(query, topK, alwaysInclude);
+    }
+
+    /**
+     * Retrieves the version of the current catalog. Each catalog built by the registry, i.e., the first one and each one
+     * built after {@link #invalidate()}, gets a new version, so two different catalogs never share a version.
+     * @return The version of the catalog.
+     */
+    public int getCatalogVersion() {
+        return getCatalog().version;
+    }
+
+    /**
+     * Retrieves the resolved tool method.
+     * @param className The fully qualified name of the class declaring the tool.
+     * @param methodName The name of the tool method.
+     * @param parameterTypeNames The names of the parameter types (e.g., "int", "java.lang.String").
+     * @return The tool {@link Method}, or {@code null} if no such tool was found when scanning.
+     */
+    public Method getMethod(String className, String methodName, List<String> parameterTypeNames) {
+        return getCatalog().methods.get(ToolIndex.key(className, methodName, parameterTypeNames));
+    }
+
+    /**
+     * Discards the current catalog. The next access scans the tools packages again.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            catalog = null;
+        }
+    }
+
+    private Catalog getCatalog() {
+        Catalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (catalog == null) {
+                catalog = buildCatalog(++version);
+            }
+            return catalog;
+        }
+    }
+
+    private Catalog buildCatalog(int version) {
+        List<MethodDescription> methodDescriptions = new ArrayList<>();
+        Map<String, Method> methodsByKey = new HashMap<>();
+
+        // The indexes only cover the classes of the compilations that ran the processor, every other class is scanned
+        Set<String> indexedClassNames = addIndexedTools(GeneratedToolIndexes.getToolIndexes(), methodDescriptions, methodsByKey);
+        if (!toolsPackages.isEmpty()) {
+            for (Method method : AiUtil.scanAiToolMethods(toolsPackages, indexedClassNames)) {
+                String[] parameterTypeNames = new String[method.getParameterCount()];
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    parameterTypeNames[i] = parameterTypes[i].getName();
+                }
+                String key = ToolIndex.key(method.getDeclaringClass().getName(), method.getName(), List.of(parameterTypeNames));
+                // An index may describe a class it does not list as covered, e.g., one generated by an older processor
+                if (methodsByKey.putIfAbsent(key, method) == null) {
+                    methodDescriptions.addAll(AiUtil.describeMethods(List.of(method)));
+                }
+            }
+        }
+
+        return new Catalog(
+                Collections.unmodifiableList(methodDescriptions),
+                Collections.unmodifiableMap(methodsByKey),
+                AiUtil.toJson(methodDescriptions),
+                version
+        );
+    }
+
+    /**
+     * Adds the indexed tools of the tools packages.
+     * @return The names of every class the indexes cover (see {@link ToolIndex#getCoveredClassNames()}).
+     */
+    private Set<String> addIndexedTools(List<ToolIndex> toolIndexes, List<MethodDescription> methodDescriptions, Map<String, Method> methodsByKey) {
+        Set<String> indexedClassNames = new HashSet<>();
+        for (ToolIndex toolIndex : toolIndexes) {
+            List<MethodDescription> indexedDescriptions;
+            try {
+                indexedDescriptions = ObjectMapperSingleton.getObjectMapper()
+                        .readValue(toolIndex.getCatalogJson(), new TypeReference<List<MethodDescription>>() {});
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Unable to read the tool index " + toolIndex.getClass().getName() + "\n" + e);
+            }
+
+            indexedClassNames.addAll(toolIndex.getCoveredClassNames());
+            for (MethodDescription description : indexedDescriptions) {
+                if (!isInToolsPackages(description.getClassName())) {
+                    continue;
+                }
+                List<String> parameterTypeNames = new ArrayList<>();
+                for (MethodDescription.Parameter parameter : description.getMethodArguments()) {
+                    parameterTypeNames.add(parameter.getType());
+                }
+                methodDescriptions.add(description);
+                methodsByKey.put(
+                        ToolIndex.key(description.getClassName(), description.getMethodName(), parameterTypeNames),
+                        resolveMethod(description, parameterTypeNames, toolIndex.getClass().getClassLoader())
+                );
+            }
+        }
+        return indexedClassNames;
+    }
+
+    private boolean isInToolsPackages(String className) {
+        if (toolsPackages.isEmpty()) {
+            return true;
+        }
+        for (String toolsPackage : toolsPackages) {
+            if (AiUtil.isInPackage(className, toolsPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method resolveMethod(MethodDescription description, List<String> parameterTypeNames, ClassLoader classLoader) {
+        try {
+            Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.size()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = classFromName(parameterTypeNames.get(i), classLoader);
+            }
+            return Class.forName(description.getClassName(), false, classLoader)
+                    .getDeclaredMethod(description.getMethodName(), parameterTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new IllegalStateException("The tool index is out of date, unable to find the tool "
+                    + description.getClassName() + "#" + description.getMethodName(), e);
+        }
+    }
+
+    private static Class<?> classFromName(String typeName, ClassLoader classLoader) throws ClassNotFoundException {
+        switch (typeName) {
+            case "boolean": return boolean.class;
+            case "byte": return byte.class;
+            case "short": return short.class;
+            case "int": return int.class;
+            case "long": return long.class;
+            case "char": return char.class;
+            case "float": return float.class;
+            case "double": return double.class;
+            default: return Class.forName(typeName, false, classLoader);
+        }
+    }
+
+    private static final class Catalog {
+        private final List<MethodDescription> methodDescriptions;
+        private final Map<String, Method> methods;
+        private final String catalogJson;
+        private final int version;
+        private volatile ToolSearchIndex searchIndex;
+
+        private Catalog(List<MethodDescription> methodDescriptions, Map<String, Method> methods, String catalogJson, int version) {
+            this.methodDescriptions = methodDescriptions;
+            this.methods = methods;
+            this.catalogJson = catalogJson;
+            this.version = version;
+        }
+
+        /**
+         * The index is built the first time a selection is needed, once per catalog snapshot.
+         */
+        private ToolSearchIndex getSearchIndex() {
+            ToolSearchIndex current = searchIndex;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (searchIndex == null) {
+                    searchIndex = new ToolSearchIndex(methodDescriptions);
+                }
+                return searchIndex;
+            }
+        }
+    }
+}
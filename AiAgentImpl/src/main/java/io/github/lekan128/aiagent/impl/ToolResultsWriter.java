@@ -0,0 +1,121 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Serializes the results of the tool calls for the final prompt, as a JSON array of {@code {"request", "response"}}
+ * objects, within the limits of the {@link AgentConfig}.
+ *
+ * <p>The results are streamed by a {@link BoundedJsonGenerator} straight into the target buffer: each result is cut
+ * to its own size limit, and the results that no longer fit in the total size limit are replaced by a marker. Long
+ * strings and large arrays are shortened with explicit markers.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class ToolResultsWriter {
+    private final int maxResultChars;
+    private final int maxTotalChars;
+    private final int maxStringChars;
+    private final int maxArrayElements;
+
+    /**
+     * @param config The configuration holding the limits of the tool results.
+     */
+    ToolResultsWriter(AgentConfig config) {
+        this.maxResultChars = config.getToolResultMaxChars();
+        this.maxTotalChars = config.getToolResultsMaxChars();
+        this.maxStringChars = config.getToolResultMaxStringChars();
+        this.maxArrayElements = config.getToolResultMaxElements();
+    }
+
+    /**
+     * @param executionResults The results of the tool calls.
+     * @return The capacity to reserve for the serialized results.
+     */
+    int getCapacityHint(List<MethodExecutionResult> executionResults) {
+        return (int) Math.min(maxTotalChars + 256L, (long) maxResultChars * executionResults.size() + 256L);
+    }
+
+    /**
+     * Appends the JSON array of the results to the target.
+     * @param target The buffer the JSON is appended to.
+     * @param executionResults The results of the tool calls.
+     * @throws IOException If a result cannot be serialized.
+     */
+    void write(StringBuilder target, List<MethodExecutionResult> executionResults) throws IOException {
+        ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
+        StringBuilderWriter writer = new StringBuilderWriter(target);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            BoundedJsonGenerator boundedGenerator = new BoundedJsonGenerator(generator, writer::getWrittenChars, maxStringChars, maxArrayElements);
+
+            generator.writeStartArray();
+            for (int i = 0; i < executionResults.size(); i++) {
+                long remaining = maxTotalChars - boundedGenerator.getPosition();
+                if (remaining <= 0) {
+                    generator.writeString("...[" + (executionResults.size() - i) + " more tool results truncated, size limit reached]");
+                    break;
+                }
+                boundedGenerator.startValue(Math.min(maxResultChars, remaining));
+                objectMapper.writeValue(boundedGenerator, executionResults.get(i));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * A {@link Writer} appending to a {@link StringBuilder}, counting the chars it appended.
+     */
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder target;
+        private long writtenChars;
+
+        private StringBuilderWriter(StringBuilder target) {
+            this.target = target;
+        }
+
+        private long getWrittenChars() {
+            return writtenChars;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            target.append(buffer, offset, length);
+            writtenChars += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            target.append(text, offset, offset + length);
+            writtenChars += length;
+        }
+
+        @Override
+        public void write(int c) {
+            target.append((char) c);
+            writtenChars++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.impl.method.description.MethodDescription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory BM25 index of the tools of a catalog, selecting the tools relevant to a query so only those are sent
+ * to the LLM in the planning prompt.
+ *
+ * <p>Each tool is indexed by its description, the name of its method and of its class, and the names, descriptions
+ * and fields of its arguments. The words are split on camel case and non alphanumeric characters, lower-cased, and
+ * a plural {@code s} is removed. The JSON of each tool is serialized once, so a selection is only concatenated.</p>
+ *
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class ToolSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "get", "how", "in", "is", "it", "me",
+            "my", "of", "on", "or", "that", "the", "this", "to", "what", "which", "with", "you", "your"
+    );
+
+    private final List<MethodDescription> tools;
+    private final String[] toolsJson;
+    /** The postings of each term: pairs of (tool index, term frequency). */
+    private final Map<String, int[]> postings;
+    private final int[] toolLengths;
+    private final double averageToolLength;
+
+    /**
+     * Indexes the tools.
+     * @param tools The descriptions of the tools, in the order of the catalog.
+     */
+    ToolSearchIndex(List<MethodDescription> tools) {
+        this.tools = tools;
+        this.toolsJson = new String[tools.size()];
+        this.toolLengths = new int[tools.size()];
+
+        ObjectWriter writer = ObjectMapperSingleton.getObjectMapper().writerWithDefaultPrettyPrinter();
+        Map<String, List<int[]>> termPostings = new HashMap<>();
+        long totalLength = 0;
+        for (int i = 0; i < tools.size(); i++) {
+            MethodDescription tool = tools.get(i);
+            try {
+                toolsJson[i] = writer.writeValueAsString(tool);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Unable to serialize the tool " + tool.getClassName() + "#" + tool.getMethodName() + "\n" + e);
+            }
+
+            Map<String, Integer> termFrequencies = new HashMap<>();
+            for (String term : tokenize(textOf(tool))) {
+                termFrequencies.merge(term, 1, Integer::sum);
+                toolLengths[i]++;
+            }
+            totalLength += toolLengths[i];
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                termPostings.computeIfAbsent(entry.getKey(), term -> new ArrayList<>()).add(new int[]{i, entry.getValue()});
+            }
+        }
+        this.averageToolLength = tools.isEmpty() ? 0 : (double) totalLength / tools.size();
+
+        this.postings = new HashMap<>(termPostings.size() * 2);
+        for (Map.Entry<String, List<int[]>> entry : termPostings.entrySet()) {
+            int[] flattened = new int[entry.getValue().size() * 2];
+            for (int j = 0; j < entry.getValue().size(); j++) {
+                flattened[2 * j] = entry.getValue().get(j)[0];
+                flattened[2 * j + 1] = entry.getValue().get(j)[1];
+            }
+            postings.put(entry.getKey(), flattened);
+        }
+    }
+
+    /**
+     * Selects the tools most relevant to the query and serializes them like the complete catalog.
+     *
+     * @param query The query of the user.
+     * @param topK The number of tools selected by relevance, at least 1. The tools scoring the same keep the order of the catalog.
+     * @param alwaysInclude The tools selected whatever the query, as {@code className#methodName} (every overload)
+     * or {@code className} (every tool of the class).
+     * @return The JSON array of the selected tools, in the order of the catalog.
+     */
+    String selectJson(String query, int topK, Collection<String> alwaysInclude) {
+        boolean[] selected = select(query, topK, alwaysInclude);
+        StringBuilder json = new StringBuilder(256 * Math.min(topK + alwaysInclude.size(), tools.size())).append("[ ");
+        boolean first = true;
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                if (!first) {
+                    json.append(", ");
+                }
+                json.append(toolsJson[i]);
+                first = false;
+            }
+        }
+        return json.append(" ]").toString();
+    }
+
+    /**
+     * @return For each tool of the catalog, whether it is selected.
+     */
+    private boolean[] select(String query, int topK, Collection<String> alwaysInclude) {
+        double[] scores = score(query);
+        Integer[] ranking = new Integer[tools.size()];
+        for (int i = 0; i < ranking.length; i++) {
+            ranking[i] = i;
+        }
+        Arrays.sort(ranking, (left, right) -> Double.compare(scores[right], scores[left])); // Stable, ties keep the catalog order
+
+        boolean[] selected = new boolean[tools.size()];
+        for (int i = 0; i < Math.min(topK, ranking.length); i++) {
+            selected[ranking[i]] = true;
+        }
+        if (!alwaysInclude.isEmpty()) {
+            for (int i = 0; i < selected.length; i++) {
+                MethodDescription tool = tools.get(i);
+                if (alwaysInclude.contains(tool.getClassName()) || alwaysInclude.contains(tool.getClassName() + "#" + tool.getMethodName())) {
+                    selected[i] = true;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private double[] score(String query) {
+        double[] scores = new double[tools.size()];
+        for (String term : tokenize(query)) {
+            int[] termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            int documentFrequency = termPostings.length / 2;
+            double idf = Math.log(1 + (tools.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int j = 0; j < termPostings.length; j += 2) {
+                int tool = termPostings[j];
+                int frequency = termPostings[j + 1];
+                double norm = K1 * (1 - B + B * toolLengths[tool] / averageToolLength);
+                scores[tool] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+        return scores;
+    }
+
+    private static String textOf(MethodDescription tool) {
+        StringBuilder text = new StringBuilder();
+        text.append(tool.getDescription()).append(' ')
+                .append(tool.getMethodName()).append(' ')
+                .append(tool.getClassName().substring(tool.getClassName().lastIndexOf('.') + 1));
+        if (tool.getMethodArguments() != null) {
+            for (MethodDescription.Parameter parameter : tool.getMethodArguments()) {
+                text.append(' ').append(parameter.getName()).append(' ').append(parameter.getDescription());
+                // The fields of an object argument are nested under "fields", e.g., {"fields": {"productName": {...}}}
+                Object fields = parameter.getFields() == null ? null : parameter.getFields().get("fields");
+                if (fields instanceof Map) {
+                    for (Object field : ((Map<?, ?>) fields).keySet()) {
+                        text.append(' ').append(field);
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean camelCaseBoundary = Character.isUpperCase(c) && i > 0 && Character.isLowerCase(text.charAt(i - 1));
+            if (!Character.isLetterOrDigit(c) || camelCaseBoundary) {
+                addTerm(terms, term);
+                term.setLength(0);
+            }
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, StringBuilder term) {
+        if (term.length() < 2) {
+            return;
+        }
+        String word = term.toString();
+        if (STOP_WORDS.contains(word)) {
+            return;
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        terms.add(word);
+    }
+}
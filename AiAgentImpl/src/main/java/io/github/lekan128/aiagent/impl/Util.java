@@ -9,19 +9,50 @@ import com.github.victools.jsonschema.generator.SchemaGenerator;
 import com.github.victools.jsonschema.generator.SchemaGeneratorConfigBuilder;
 import com.github.victools.jsonschema.generator.SchemaVersion;
 
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 class Util {
+    private static final SchemaGenerator SCHEMA_GENERATOR = new SchemaGenerator(
+            new SchemaGeneratorConfigBuilder(SchemaVersion.DRAFT_2020_12, OptionPreset.PLAIN_JSON).build());
 
-    static String convertToString(Type target) throws JsonProcessingException {
-        SchemaGeneratorConfigBuilder configBuilder = new SchemaGeneratorConfigBuilder(
-                SchemaVersion.DRAFT_2020_12, OptionPreset.PLAIN_JSON);
+    /**
+     * The output formats already generated, the schema of a type never changes. Not bounded: the types are the response
+     * classes of the application, a finite set, and the agents bound their own caches of the prompts built from them.
+     */
+    private static final Map<Type, String> OUTPUT_FORMATS = new ConcurrentHashMap<>();
 
-        SchemaGenerator generator = new SchemaGenerator(configBuilder.build());
-        JsonNode fullSchema = generator.generateSchema(target);
+    /**
+     * Retrieves the output format (flattened JSON schema) of the type, generating it on the first call only.
+     * @param target The type.
+     * @param logSchema {@code true} to print the output format when it is generated.
+     * @return The pretty printed output format.
+     * @throws JsonProcessingException If the output format cannot be serialized.
+     */
+    static String convertToString(Type target, boolean logSchema) throws JsonProcessingException {
+        String outputFormat = OUTPUT_FORMATS.get(target);
+        if (outputFormat != null) {
+            return outputFormat;
+        }
+        try {
+            return OUTPUT_FORMATS.computeIfAbsent(target, type -> {
+                try {
+                    return generateOutputFormat(type, logSchema);
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw (JsonProcessingException) e.getCause();
+        }
+    }
+
+    private static String generateOutputFormat(Type target, boolean logSchema) throws JsonProcessingException {
+        JsonNode fullSchema = SCHEMA_GENERATOR.generateSchema(target);
         JsonNode reducedSchema = fullSchema.get("properties");
 
         Map<String, Object> flatSchema = flattenSchema(reducedSchema);
@@ -29,7 +60,9 @@ class Util {
         ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
         String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(flatSchema);
 
-        System.out.println(json);
+        if (logSchema) {
+            System.out.println(json);
+        }
         return json;
     }
     private static Map<String, Object> flattenSchema(JsonNode propertiesNode) {
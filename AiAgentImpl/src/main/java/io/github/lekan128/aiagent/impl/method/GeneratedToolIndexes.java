@@ -0,0 +1,84 @@
+package io.github.lekan128.aiagent.impl.method;
+
+import io.github.lekan128.aiagent.api.tool.ToolIndex;
+import io.github.lekan128.aiagent.api.tool.ToolInvoker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Loads the {@link ToolIndex} implementations generated at compile time by the ai-agent-processor annotation processor.
+ *
+ * <p>The indexes are discovered once through {@link ServiceLoader}, the first time they are needed.
+ * If none is found the library falls back to scanning the classpath for {@code @AiToolMethod}. A service file naming
+ * an index that cannot be loaded (e.g., a stale entry left after a class was removed) is reported by
+ * {@link #getToolIndexes()} rather than ignored, so the tools it indexes do not silently disappear.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class GeneratedToolIndexes {
+
+    private GeneratedToolIndexes() {
+        // Utility class
+    }
+
+    /**
+     * Retrieves the generated tool indexes found on the classpath.
+     * @return An unmodifiable list of the {@link ToolIndex} found, empty if the annotation processor was not used.
+     * @throws IllegalStateException If a registered tool index cannot be loaded.
+     */
+    public static List<ToolIndex> getToolIndexes() {
+        if (Holder.LOAD_FAILURE != null) {
+            throw new IllegalStateException("Unable to load the generated tool indexes, rebuild the tools with the ai-agent-processor "
+                    + "or remove the stale entry of META-INF/services/" + ToolIndex.class.getName(), Holder.LOAD_FAILURE);
+        }
+        return Holder.TOOL_INDEXES;
+    }
+
+    /**
+     * Retrieves the generated direct-call dispatcher of a tool.
+     * @param key The key of the tool, as built by {@link ToolIndex#key(String, String, List)}.
+     * @return The {@link ToolInvoker}, or {@code null} if the tool has no generated dispatcher.
+     */
+    public static ToolInvoker getInvoker(String key) {
+        return Holder.INVOKERS.get(key);
+    }
+
+    private static final class Holder {
+        /** The failure to load an index, {@code null} if every registered index was loaded. */
+        private static ServiceConfigurationError LOAD_FAILURE;
+        private static final List<ToolIndex> TOOL_INDEXES = loadToolIndexes();
+        private static final Map<String, ToolInvoker> INVOKERS = mergeInvokers(TOOL_INDEXES);
+
+        private static List<ToolIndex> loadToolIndexes() {
+            List<ToolIndex> toolIndexes = new ArrayList<>();
+            try {
+                for (ToolIndex toolIndex : ServiceLoader.load(ToolIndex.class)) {
+                    toolIndexes.add(toolIndex);
+                }
+            } catch (ServiceConfigurationError e) {
+                // Reported by getToolIndexes(), failing the class initialization would hide the cause after the first call
+                LOAD_FAILURE = e;
+            }
+            return Collections.unmodifiableList(toolIndexes);
+        }
+
+        private static Map<String, ToolInvoker> mergeInvokers(List<ToolIndex> toolIndexes) {
+            Map<String, ToolInvoker> invokers = new HashMap<>();
+            for (ToolIndex toolIndex : toolIndexes) {
+                invokers.putAll(toolIndex.getInvokers());
+            }
+            return Collections.unmodifiableMap(invokers);
+        }
+    }
+}
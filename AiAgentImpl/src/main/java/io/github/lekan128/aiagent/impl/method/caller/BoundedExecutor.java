@@ -0,0 +1,65 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Executor} that runs at most a fixed number of tasks at a time on a delegate executor.
+ * Extra tasks are queued, never rejected, and started as soon as a running task finishes.
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class BoundedExecutor implements Executor {
+    private final Executor delegate;
+    private final int maxParallelism;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
+    BoundedExecutor(Executor delegate, int maxParallelism) {
+        this.delegate = delegate;
+        this.maxParallelism = maxParallelism;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pendingTasks.add(task);
+        startPendingTasks();
+    }
+
+    private void startPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            int running = runningTasks.get();
+            if (running >= maxParallelism) {
+                return;
+            }
+            if (!runningTasks.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Runnable task = pendingTasks.poll();
+            if (task == null) {
+                runningTasks.decrementAndGet();
+                continue;
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        runningTasks.decrementAndGet();
+                        startPendingTasks();
+                    }
+                });
+            } catch (RuntimeException e) {
+                runningTasks.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.AgentConfig;
+import io.github.lekan128.aiagent.api.ExecutorSingleton;
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Immutable options of the execution of a pipeline of tool calls by {@link ReflectionCaller}.
+ *
+ * <p>Instances are created with {@link #builder()}. {@link #defaults()} returns the options used when none are given:
+ * the default {@link ToolInstances}, the {@link ExecutorSingleton} executor (virtual threads when the JVM supports them) and at most
+ * {@value #DEFAULT_MAX_PARALLELISM} steps running at the same time.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class PipelineOptions {
+    /** The default maximum number of steps of a pipeline running at the same time. */
+    public static final int DEFAULT_MAX_PARALLELISM = AgentConfig.DEFAULT_MAX_PARALLELISM;
+
+    private static final PipelineOptions DEFAULTS = builder().build();
+
+    private final ToolInstances toolInstances;
+    private final ExecutorService executor;
+    private final int maxParallelism;
+    private final boolean logToolResults;
+    private final AgentMetrics metrics;
+
+    private PipelineOptions(Builder builder) {
+        this.toolInstances = builder.toolInstances;
+        this.executor = builder.executor;
+        this.maxParallelism = builder.maxParallelism;
+        this.logToolResults = builder.logToolResults;
+        this.metrics = builder.metrics;
+    }
+
+    /**
+     * @return The default options.
+     */
+    public static PipelineOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return A new builder, initialized with the default options.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The provider of the instances of the non-static tools.
+     */
+    public ToolInstances getToolInstances() {
+        return toolInstances;
+    }
+
+    /**
+     * @return The executor running the tool calls.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return The maximum number of steps of one pipeline running at the same time. 1 runs the steps one after another on the calling thread.
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /**
+     * @return {@code true} if the result of every tool call is printed.
+     */
+    public boolean isLogToolResults() {
+        return logToolResults;
+    }
+
+    /**
+     * @return The metrics receiving the latency of every tool call, {@code null} if they are not measured.
+     */
+    public AgentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Builder of {@link PipelineOptions}.
+     */
+    public static final class Builder {
+        private ToolInstances toolInstances = ReflectionCaller.DEFAULT_TOOL_INSTANCES;
+        private ExecutorService executor;
+        private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+        private boolean logToolResults;
+        private AgentMetrics metrics;
+
+        private Builder() {
+        }
+
+        /**
+         * @param toolInstances The provider of the instances of the non-static tools.
+         * @return This builder.
+         */
+        public Builder toolInstances(ToolInstances toolInstances) {
+            this.toolInstances = toolInstances;
+            return this;
+        }
+
+        /**
+         * @param executor The executor running the tool calls. Defaults to the {@link ExecutorSingleton} executor.
+         * @return This builder.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param maxParallelism The maximum number of steps of one pipeline running at the same time, at least 1.
+         * @return This builder.
+         */
+        public Builder maxParallelism(int maxParallelism) {
+            if (maxParallelism < 1) {
+                throw new IllegalArgumentException("maxParallelism must be at least 1, was " + maxParallelism);
+            }
+            this.maxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * @param logToolResults {@code true} to print the result of every tool call.
+         * @return This builder.
+         */
+        public Builder logToolResults(boolean logToolResults) {
+            this.logToolResults = logToolResults;
+            return this;
+        }
+
+        /**
+         * @param metrics The metrics receiving the latency of every tool call, {@code null} (the default) to not measure them.
+         * @return This builder.
+         */
+        public Builder metrics(AgentMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @return The options.
+         */
+        public PipelineOptions build() {
+            if (executor == null) {
+                executor = ExecutorSingleton.getExecutor();
+            }
+            return new PipelineOptions(this);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * One execution of a pipeline of tool calls, where the steps run as soon as the steps they depend on are done.
+ *
+ * <p>A step depends on an earlier step when one of its argument values is the placeholder defined by the
+ * {@code returnObjectKey} of that step (the latest one, if several steps define the same placeholder).
+ * Steps without dependencies between them run concurrently, at most {@link PipelineOptions#getMaxParallelism()}
+ * at a time. The results are always reported in the order the steps were submitted.</p>
+ *
+ * <p>Steps are submitted one by one with {@link #submit(ReflectionInvocableMethod)}, so a run can start before
+ * the whole plan is known. {@link #complete()} is called once every step has been submitted.
+ * Runs are started with {@link ReflectionCaller#startPipeline(PipelineOptions, TraceSpan)}, each tool call is traced as a
+ * child of the given span.</p>
+ *
+ * <p>A step calling a tool method with an {@link io.github.lekan128.aiagent.api.annotation.AiToolMethod#timeoutMillis()}
+ * fails as soon as the timeout passes, and its thread is interrupted. {@link #cancel(Throwable)} fails every step not
+ * done yet and interrupts the running ones, e.g., when the deadline of the agent passes.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class PipelineRun {
+    private final PipelineOptions options;
+    private final TraceSpan parentSpan;
+    private final Executor executor;
+    private final ToolInstances.RunInstances runInstances = new ToolInstances.RunInstances();
+
+    private final List<ReflectionInvocableMethod> steps = new ArrayList<>();
+    private final List<CompletableFuture<Object>> stepResults = new ArrayList<>();
+    /** The result of the latest step defining each placeholder. */
+    private final Map<String, CompletableFuture<Object>> placeholders = new HashMap<>();
+    private final Set<StepExecution> runningSteps = ConcurrentHashMap.newKeySet();
+    /** The failure of every step once the run is cancelled. Guarded by {@code this}. */
+    private Throwable cancellation;
+    /** Whether no step will be called anymore, set by {@link #complete()} and {@link #cancel(Throwable)}. Guarded by {@code this}. */
+    private boolean finished;
+    /** Whether the {@link io.github.lekan128.aiagent.api.tool.ToolScope#PER_RUN} instances were given back. Guarded by {@code this}. */
+    private boolean instancesReleased;
+
+    PipelineRun(PipelineOptions options, TraceSpan parentSpan) {
+        this.options = options;
+        this.parentSpan = parentSpan;
+        this.executor = new BoundedExecutor(options.getExecutor(), options.getMaxParallelism());
+    }
+
+    /**
+     * Schedules a step, it starts as soon as the steps it depends on are done.
+     * @param step The step, submitted after every step it depends on.
+     */
+    public synchronized void submit(ReflectionInvocableMethod step) {
+        Map<String, CompletableFuture<Object>> dependencies = new HashMap<>();
+        if (step.getMethodArguments() != null) {
+            for (MethodArgument argument : step.getMethodArguments()) {
+                Object value = argument.getValue();
+                if (value instanceof String && placeholders.containsKey(value)) {
+                    dependencies.put((String) value, placeholders.get(value));
+                }
+            }
+        }
+
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        if (cancellation != null) {
+            result.completeExceptionally(cancellation);
+        } else if (dependencies.isEmpty()) {
+            executor.execute(() -> call(step, Map.of(), result));
+        } else {
+            CompletableFuture
+                    .allOf(dependencies.values().toArray(new CompletableFuture<?>[0]))
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                            return;
+                        }
+                        Map<String, Object> context = new HashMap<>();
+                        dependencies.forEach((placeholder, dependency) -> context.put(placeholder, dependency.join()));
+                        executor.execute(() -> call(step, context, result));
+                    });
+        }
+
+        steps.add(step);
+        stepResults.add(result);
+        if (step.getReturnObjectKey() != null) {
+            placeholders.put(step.getReturnObjectKey(), result);
+        }
+    }
+
+    /**
+     * Signals that every step has been submitted.
+     * @return The results of the steps in the order they were submitted, or the failure of the first failed step.
+     */
+    public synchronized CompletableFuture<List<MethodExecutionResult>> complete() {
+        List<ReflectionInvocableMethod> submittedSteps = List.copyOf(steps);
+        List<CompletableFuture<Object>> submittedResults = List.copyOf(stepResults);
+
+        return CompletableFuture
+                .allOf(submittedResults.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, failure) -> {
+                    finish();
+                    List<MethodExecutionResult> results = new ArrayList<>(submittedSteps.size());
+                    for (int i = 0; i < submittedSteps.size(); i++) {
+                        results.add(new MethodExecutionResult(submittedSteps.get(i), submittedResults.get(i).join()));
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * Fails every step not done yet with the given failure and interrupts the steps running. The steps submitted
+     * later fail immediately.
+     * @param failure The failure of the steps, e.g., an {@link io.github.lekan128.aiagent.api.AgentTimeoutException}.
+     */
+    public void cancel(Throwable failure) {
+        List<CompletableFuture<Object>> submittedResults;
+        synchronized (this) {
+            if (cancellation != null) {
+                return;
+            }
+            cancellation = failure;
+            submittedResults = List.copyOf(stepResults);
+        }
+        for (CompletableFuture<Object> result : submittedResults) {
+            result.completeExceptionally(failure);
+        }
+        for (StepExecution execution : runningSteps) {
+            execution.interrupt();
+        }
+        finish();
+    }
+
+    private void finish() {
+        synchronized (this) {
+            finished = true;
+        }
+        releaseInstancesIfIdle();
+    }
+
+    /**
+     * Gives back the {@link io.github.lekan128.aiagent.api.tool.ToolScope#PER_RUN} instances once the run is
+     * finished and the last running step returned, a cancelled step can still be running when its result fails.
+     */
+    private void releaseInstancesIfIdle() {
+        synchronized (this) {
+            if (!finished || instancesReleased || !runningSteps.isEmpty()) {
+                return;
+            }
+            instancesReleased = true;
+        }
+        runInstances.release();
+    }
+
+    private void call(ReflectionInvocableMethod step, Map<String, Object> context, CompletableFuture<Object> result) {
+        StepExecution execution = new StepExecution(result);
+        runningSteps.add(execution);
+        try {
+            if (result.isDone()) {
+                // cancelled while waiting for its turn
+                return;
+            }
+            result.complete(ReflectionCaller.callMethodWithContext(step, context, options, runInstances, execution, parentSpan));
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            runningSteps.remove(execution);
+            execution.finish();
+            releaseInstancesIfIdle();
+        }
+    }
+}
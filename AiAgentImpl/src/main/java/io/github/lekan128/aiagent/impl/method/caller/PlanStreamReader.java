@@ -0,0 +1,169 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally reads the JSON plan (array of {@link ReflectionInvocableMethod}) streamed by the LLM and hands
+ * over each step as soon as its JSON object is closed, before the rest of the plan has been generated.
+ *
+ * <p>The text is fed chunk by chunk with {@link #feed(String)} to a non-blocking Jackson parser. Anything before
+ * the opening {@code [} (e.g., a Markdown {@code ```json} fence) and after the closing {@code ]} is ignored.
+ * A parsing failure stops the reading, it is reported by {@link #finish()}.</p>
+ *
+ * <p>A reader accepting answers also recognizes a response starting with a JSON object instead of the plan array:
+ * the LLM answered the query directly, {@link #isAnswer()} is then {@code true} and nothing is read.</p>
+ *
+ * <p>This class is not thread-safe, the chunks of one response must be fed by one thread at a time.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class PlanStreamReader {
+    private final Consumer<ReflectionInvocableMethod> stepConsumer;
+    private final ObjectMapper objectMapper = ObjectMapperSingleton.getObjectMapper();
+    private final List<ReflectionInvocableMethod> steps = new ArrayList<>();
+    private final JsonParser parser;
+    private final boolean acceptsAnswer;
+
+    private boolean started;
+    private boolean answer;
+    private boolean done;
+    private int depth;
+    private TokenBuffer currentStep;
+    private Exception failure;
+
+    /**
+     * @param stepConsumer Receives each step of the plan, in order, as soon as it has been read.
+     */
+    public PlanStreamReader(Consumer<ReflectionInvocableMethod> stepConsumer) {
+        this(stepConsumer, false);
+    }
+
+    /**
+     * @param stepConsumer Receives each step of the plan, in order, as soon as it has been read.
+     * @param acceptsAnswer {@code true} if the response may be a JSON object answering the query instead of a plan.
+     */
+    public PlanStreamReader(Consumer<ReflectionInvocableMethod> stepConsumer, boolean acceptsAnswer) {
+        this.stepConsumer = stepConsumer;
+        this.acceptsAnswer = acceptsAnswer;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create the plan parser", e);
+        }
+    }
+
+    /**
+     * Reads the next chunk of the LLM response.
+     * @param chunk The text of the chunk.
+     */
+    public void feed(String chunk) {
+        if (done || answer || failure != null || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('[');
+            int objectStart = acceptsAnswer ? chunk.indexOf('{') : -1;
+            if (objectStart >= 0 && (start < 0 || objectStart < start)) {
+                answer = true;
+                return;
+            }
+            if (start < 0) {
+                return;
+            }
+            started = true;
+            chunk = chunk.substring(start);
+        }
+
+        try {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            readAvailableTokens();
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @return {@code true} if the response is a JSON object answering the query rather than a plan, only possible if
+     * the reader accepts answers.
+     */
+    public boolean isAnswer() {
+        return answer;
+    }
+
+    /**
+     * Signals the end of the LLM response.
+     * @return Every step read, in order, none if the response is an answer.
+     * @throws IOException If the response is neither a complete, valid plan nor an answer.
+     */
+    public List<ReflectionInvocableMethod> finish() throws IOException {
+        if (answer) {
+            return steps;
+        }
+        if (failure == null && !done) {
+            failure = new IOException(started ? "The plan is incomplete" : acceptsAnswer ? "No JSON array or object found" : "No JSON array found");
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+        return steps;
+    }
+
+    private void readAvailableTokens() throws IOException {
+        JsonToken token;
+        while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (depth == 0) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a JSON array but found " + token);
+                }
+                depth++;
+                continue;
+            }
+
+            if (currentStep == null) {
+                if (token == JsonToken.END_ARRAY) {
+                    done = true;
+                } else if (token == JsonToken.START_OBJECT) {
+                    currentStep = new TokenBuffer(parser);
+                    currentStep.copyCurrentEvent(parser);
+                    depth++;
+                } else {
+                    throw new IOException("Expected a JSON object for a plan step but found " + token);
+                }
+                continue;
+            }
+
+            currentStep.copyCurrentEvent(parser);
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                depth++;
+            } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                depth--;
+                if (depth == 1) {
+                    ReflectionInvocableMethod step = objectMapper.readValue(currentStep.asParser(objectMapper), ReflectionInvocableMethod.class);
+                    currentStep = null;
+                    steps.add(step);
+                    stepConsumer.accept(step);
+                }
+            }
+        }
+    }
+}
@@ -3,23 +3,30 @@ package io.github.lekan128.aiagent.impl.method.caller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+import io.github.lekan128.aiagent.api.tool.ToolIndex;
 import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
 import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Core utility class responsible for executing a sequence of method calls
  * based on LLM-generated reflection requests, managing method context between calls.
  *
  * <p>This class enables the sequential execution of tool calls (using the output of one method as the argument for the next), allowing the output
- * of one method to be used as the input (via the shared context map) for a subsequent method.</p>
+ * of one method to be used as the input (via the shared context map) for a subsequent method.
+ * Tool calls that do not depend on each other run concurrently.</p>
  *
  * <p><strong>Note:</strong> This class is internal-facing and manages complex reflection and
  * argument matching, making its methods prone to throwing numerous checked exceptions.</p>
@@ -32,6 +39,12 @@ import java.util.Map;
  * @since 1.0.0
  */
 public class ReflectionCaller {
+    /** Resolved tool methods, keyed by class name, method name and the parameter type names sent by the LLM. */
+    private static final Map<String, ToolMethodInvoker> INVOKERS = new ConcurrentHashMap<>();
+
+    /** Tool instances used when the caller does not provide its own, e.g., outside an {@code Agent}. */
+    static final ToolInstances DEFAULT_TOOL_INSTANCES = new ToolInstances();
+
     private static Object invokeMethodFromJson(String json) throws Exception {
         ObjectMapper mapper = ObjectMapperSingleton.getObjectMapper();
         ReflectionInvocableMethod request = mapper.readValue(json, ReflectionInvocableMethod.class);
@@ -40,52 +53,134 @@ public class ReflectionCaller {
     }
 
     private static Object invokeMethod(ReflectionInvocableMethod request) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        Object result = ReflectionCaller.callMethod(
-                request.getClassName(),
-                request.getMethodName(),
-                request.getMethodArguments(),
-                null
-        );
-
-        System.out.println("Result = " + result);
-        return result;
+        ToolInstances.RunInstances runInstances = new ToolInstances.RunInstances();
+        try {
+            return callMethodWithContext(request, null, PipelineOptions.defaults(), runInstances, null, TraceSpan.NOOP);
+        } finally {
+            runInstances.release();
+        }
     }
 
     private static Object callMethod(
             String className,
             String methodName,
             List<MethodArgument> args,
-            Map<String,Object> methodArgumentPlaceHolders
+            Map<String,Object> methodArgumentPlaceHolders,
+            PipelineOptions options,
+            ToolInstances.RunInstances runInstances,
+            StepExecution execution,
+            TraceSpan parentSpan
     ) throws NoSuchMethodException, ClassNotFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
-        Class<?> clazz = Class.forName(className);
-        Object instance = null;
+        ToolMethodInvoker invoker = getInvoker(className, methodName, args);
 
-        // Convert argument type names to Class objects
-        Class<?>[] paramTypes = new Class<?>[args.size()];
         Object[] paramValues = new Object[args.size()];
 
         for (int i = 0; i < args.size(); i++) {
-            String typeName = args.get(i).getType();
             Object rawValue = args.get(i).getValue();
 
             // Resolve placeholder if present
             Object resolvedValue =
                     methodArgumentPlaceHolders == null ? rawValue : resolvePlaceholders(rawValue, methodArgumentPlaceHolders);
 
-            Class<?> paramType = getClassFromName(typeName);
-            paramTypes[i] = paramType;
-            paramValues[i] = convertValue(resolvedValue, paramType);
+            paramValues[i] = invoker.convertArgument(i, resolvedValue);
+        }
+
+        TraceSpan span = parentSpan.startChild(invoker.getMetricName());
+        if (span.isRecording()) {
+            span.attribute("arguments", Arrays.asList(paramValues));
+        }
+        try {
+            Object result = invokeCached(invoker, paramValues, options, runInstances, execution, span);
+            span.end(null);
+            return result;
+        } catch (Throwable e) {
+            span.end(e);
+            throw e;
+        }
+    }
 
+    private static Object invokeCached(ToolMethodInvoker invoker, Object[] paramValues, PipelineOptions options, ToolInstances.RunInstances runInstances, StepExecution execution, TraceSpan span) throws InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchMethodException {
+        ToolResultCache resultCache = invoker.getResultCache();
+        if (resultCache == null) {
+            return invoke(invoker, paramValues, options, runInstances, execution);
+        }
+        Object cached = resultCache.get(paramValues);
+        if (cached != ToolResultCache.MISS) {
+            span.attribute("cached", true);
+            return cached;
         }
+        Object result = invoke(invoker, paramValues, options, runInstances, execution);
+        resultCache.put(paramValues, result);
+        return result;
+    }
 
-        Method method = clazz.getMethod(methodName, paramTypes);
+    private static Object invoke(ToolMethodInvoker invoker, Object[] paramValues, PipelineOptions options, ToolInstances.RunInstances runInstances, StepExecution execution) throws InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchMethodException {
+        if (execution != null && invoker.getTimeoutMillis() > 0) {
+            execution.startTimer(invoker);
+        }
 
         // Check if static
-        if (!Modifier.isStatic(method.getModifiers())) {
-            instance = clazz.getDeclaredConstructor().newInstance();
+        if (invoker.isStatic()) {
+            return invokeMeasured(invoker, null, paramValues, options.getMetrics());
         }
 
-        return method.invoke(instance, paramValues);
+        ToolInstances.Lease lease = options.getToolInstances().acquire(invoker.getDeclaringClass(), runInstances);
+        try {
+            return invokeMeasured(invoker, lease.getInstance(), paramValues, options.getMetrics());
+        } finally {
+            lease.release();
+        }
+    }
+
+    private static Object invokeMeasured(ToolMethodInvoker invoker, Object instance, Object[] paramValues, AgentMetrics metrics) throws InvocationTargetException, IllegalAccessException {
+        if (metrics == null) {
+            return invoker.invoke(instance, paramValues);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invoker.invoke(instance, paramValues);
+            success = true;
+            return result;
+        } finally {
+            metrics.recordLatency(invoker.getMetricName(), System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Returns the statistics of the result caches of the tools marked
+     * {@link io.github.lekan128.aiagent.api.annotation.AiToolMethod#cacheable()} called so far.
+     *
+     * @return A snapshot of the statistics, keyed by the tool class name, method name and parameter types.
+     * @since 1.1.0
+     */
+    public static Map<String, CacheStats> getToolCacheStats() {
+        return ToolMethodInvoker.getResultCacheStats();
+    }
+
+    /**
+     * Retrieves the cached invoker of the method, resolving the class, the parameter types and the method on the first call.
+     */
+    private static ToolMethodInvoker getInvoker(String className, String methodName, List<MethodArgument> args) throws ClassNotFoundException, NoSuchMethodException {
+        List<String> typeNames = new ArrayList<>(args.size());
+        for (MethodArgument arg : args) {
+            typeNames.add(arg.getType());
+        }
+        String key = ToolIndex.key(className, methodName, typeNames);
+
+        ToolMethodInvoker invoker = INVOKERS.get(key);
+        if (invoker != null) {
+            return invoker;
+        }
+
+        // Convert argument type names to Class objects
+        Class<?>[] paramTypes = new Class<?>[typeNames.size()];
+        for (int i = 0; i < paramTypes.length; i++) {
+            paramTypes[i] = getClassFromName(typeNames.get(i));
+        }
+        invoker = ToolMethodInvoker.create(className, methodName, paramTypes);
+        ToolMethodInvoker existing = INVOKERS.putIfAbsent(key, invoker);
+        return existing == null ? invoker : existing;
     }
 
     private static List<MethodExecutionResult> executePipelineFromJsonList(String jsonList) throws JsonProcessingException, ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
@@ -95,7 +190,7 @@ public class ReflectionCaller {
     }
 
     /**
-     * Executes a pipeline of method calls sequentially, maintaining an execution context
+     * Executes a pipeline of method calls, maintaining an execution context
      * to pass results between stages.
      *
      * <p>Imp. details</p>
@@ -106,8 +201,8 @@ public class ReflectionCaller {
      * stored in the context map using that key.</li>
      * <li>The execution result is added to the final result list.</li>
      * </ol>
-     * <p>The process assumes the existence of the internal {@code callMethodWithContext} method
-     * for argument matching and invocation.</p>
+     * <p>Steps that do not depend on each other's placeholders run concurrently, see
+     * {@link #executePipeline(List, PipelineOptions)}.</p>
      *
      * @param requests A list of {@link ReflectionInvocableMethod} objects defining the pipeline steps.
      * @return A list of {@link MethodExecutionResult} objects, detailing the outcome of each step.
@@ -118,28 +213,135 @@ public class ReflectionCaller {
      * @throws IllegalAccessException If the method or class is not accessible.
      */
     public static List<MethodExecutionResult> executePipeline(List<ReflectionInvocableMethod> requests) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        return executePipeline(requests, PipelineOptions.defaults());
+    }
+
+    /**
+     * Executes a pipeline of method calls, running concurrently the steps that do not depend on each other.
+     *
+     * <p>A step depends on an earlier step when one of its argument values is the placeholder defined by the
+     * {@code returnObjectKey} of that step. Independent steps run on {@link PipelineOptions#getExecutor()}, at most
+     * {@link PipelineOptions#getMaxParallelism()} at a time. The results keep the order of {@code requests}.
+     * Plans of a single step, or a max parallelism of 1, run sequentially on the calling thread, where the
+     * {@link io.github.lekan128.aiagent.api.annotation.AiToolMethod#timeoutMillis()} of the tools is not enforced.</p>
+     *
+     * @param requests A list of {@link ReflectionInvocableMethod} objects defining the pipeline steps.
+     * @param options The {@link PipelineOptions} of the execution.
+     * @return A list of {@link MethodExecutionResult} objects, detailing the outcome of each step.
+     * @throws ClassNotFoundException If the class specified in a request cannot be found.
+     * @throws InvocationTargetException If the invoked method throws an exception.
+     * @throws NoSuchMethodException If the method specified in a request cannot be found with matching arguments.
+     * @throws InstantiationException If an instance of the tool class cannot be provided.
+     * @throws IllegalAccessException If the method or class is not accessible.
+     */
+    public static List<MethodExecutionResult> executePipeline(List<ReflectionInvocableMethod> requests, PipelineOptions options) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (requests.size() <= 1 || options.getMaxParallelism() <= 1) {
+            return executePipelineSequentially(requests, options);
+        }
+        try {
+            return executePipelineAsync(requests, options).join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Executes a pipeline of method calls without blocking the calling thread, running concurrently the steps that do
+     * not depend on each other (see {@link #executePipeline(List, PipelineOptions)}).
+     *
+     * @param requests A list of {@link ReflectionInvocableMethod} objects defining the pipeline steps.
+     * @param options The {@link PipelineOptions} of the execution.
+     * @return A future of the {@link MethodExecutionResult}s in the order of {@code requests}. It completes
+     * exceptionally with the exception of the first failed step.
+     */
+    public static CompletableFuture<List<MethodExecutionResult>> executePipelineAsync(List<ReflectionInvocableMethod> requests, PipelineOptions options) {
+        PipelineRun run = startPipeline(options);
+        for (ReflectionInvocableMethod request : requests) {
+            run.submit(request);
+        }
+        return run.complete();
+    }
+
+    /**
+     * Starts an empty pipeline run, to which the steps are submitted one by one as soon as they are known
+     * (e.g., while the plan is still being streamed by the LLM). Each step is dispatched as soon as the steps
+     * it depends on are done.
+     *
+     * @param options The {@link PipelineOptions} of the execution.
+     * @return The {@link PipelineRun}, on which {@link PipelineRun#complete()} is called once every step has been submitted.
+     */
+    public static PipelineRun startPipeline(PipelineOptions options) {
+        return startPipeline(options, TraceSpan.NOOP);
+    }
+
+    /**
+     * Starts an empty pipeline run like {@link #startPipeline(PipelineOptions)}, tracing each tool call as a child of
+     * the given span.
+     *
+     * @param options The {@link PipelineOptions} of the execution.
+     * @param parentSpan The span of the execution, {@link TraceSpan#NOOP} for none.
+     * @return The {@link PipelineRun}, on which {@link PipelineRun#complete()} is called once every step has been submitted.
+     */
+    public static PipelineRun startPipeline(PipelineOptions options, TraceSpan parentSpan) {
+        return new PipelineRun(options, parentSpan);
+    }
+
+    private static List<MethodExecutionResult> executePipelineSequentially(List<ReflectionInvocableMethod> requests, PipelineOptions options) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
         Map<String, Object> context = new HashMap<>();
+        ToolInstances.RunInstances runInstances = new ToolInstances.RunInstances();
         List<MethodExecutionResult> results = new ArrayList<>();
 
-        for (ReflectionInvocableMethod req : requests) {
-            Object result = callMethodWithContext(req, context);
-            if (req.getReturnObjectKey() != null) {
-                context.put(req.getReturnObjectKey(), result);
-            }
+        try {
+            for (ReflectionInvocableMethod req : requests) {
+                Object result = callMethodWithContext(req, context, options, runInstances, null, TraceSpan.NOOP);
+                if (req.getReturnObjectKey() != null) {
+                    context.put(req.getReturnObjectKey(), result);
+                }
 
-            results.add(new MethodExecutionResult(req, result));
+                results.add(new MethodExecutionResult(req, result));
+            }
+        } finally {
+            runInstances.release();
         }
         return results;
     }
 
-    //context is the possible result substitution
-    private static Object callMethodWithContext(ReflectionInvocableMethod request, Map<String, Object> context) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        return callMethod(
+    /**
+     * Rethrows the failure of a step with its original type.
+     * @param failure The failure, possibly wrapped in a {@link CompletionException}.
+     * @return Never returns, declared so callers can write {@code throw rethrow(cause)}.
+     */
+    public static RuntimeException rethrow(Throwable failure) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof ClassNotFoundException) throw (ClassNotFoundException) failure;
+        if (failure instanceof InvocationTargetException) throw (InvocationTargetException) failure;
+        if (failure instanceof NoSuchMethodException) throw (NoSuchMethodException) failure;
+        if (failure instanceof InstantiationException) throw (InstantiationException) failure;
+        if (failure instanceof IllegalAccessException) throw (IllegalAccessException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        throw new RuntimeException(failure);
+    }
+
+    //context is the possible result substitution, execution is the step of a pipeline run (null when called sequentially), parentSpan traces the tool call
+    static Object callMethodWithContext(ReflectionInvocableMethod request, Map<String, Object> context, PipelineOptions options, ToolInstances.RunInstances runInstances, StepExecution execution, TraceSpan parentSpan) throws ClassNotFoundException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        Object result = callMethod(
                 request.getClassName(),
                 request.getMethodName(),
                 request.getMethodArguments(),
-                context
+                context,
+                options,
+                runInstances,
+                execution,
+                parentSpan
         );
+
+        if (options.isLogToolResults()) {
+            System.out.println("Result = " + result);
+        }
+        return result;
     }
 
     private static Class<?> getClassFromName(String typeName) throws ClassNotFoundException {
@@ -161,28 +363,32 @@ public class ReflectionCaller {
         }
         return rawValue;
     }
-    private static Object convertValue(Object value, Class<?> targetType) {
-        if (value == null) return null;
+    /**
+     * Chooses, once per parameter type, how a raw value deserialized from the LLM response is converted to that type.
+     */
+    static Function<Object, Object> converterFor(Class<?> targetType) {
         if (targetType == int.class || targetType == Integer.class) {
-            return ((Number) value).intValue();
+            return value -> value == null ? null : ((Number) value).intValue();
         }
         if (targetType == long.class || targetType == Long.class) {
-            return ((Number) value).longValue();
+            return value -> value == null ? null : ((Number) value).longValue();
         }
         if (targetType == double.class || targetType == Double.class) {
-            return ((Number) value).doubleValue();
+            return value -> value == null ? null : ((Number) value).doubleValue();
         }
         if (targetType == boolean.class || targetType == Boolean.class) {
-            return Boolean.valueOf(value.toString());
+            return value -> value == null ? null : Boolean.valueOf(value.toString());
         }
         if (targetType == String.class) {
-            return value.toString();
+            return value -> value == null ? null : value.toString();
         }
-        if (value instanceof Map) { //it gets automatically converted into a map
-            // Re-use Jackson to map Map -> targetType
-            return ObjectMapperSingleton.getObjectMapper().convertValue(value, targetType);
-        }
-        return value; // let Java handle Strings, objects, etc.
+        return value -> {
+            if (value instanceof Map) { //it gets automatically converted into a map
+                // Re-use Jackson to map Map -> targetType
+                return ObjectMapperSingleton.getObjectMapper().convertValue(value, targetType);
+            }
+            return value; // let Java handle Strings, objects, etc.
+        };
     }
 
 }
@@ -0,0 +1,87 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.AgentTimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The running call of one step of a {@link PipelineRun}, which can be interrupted when the step times out or the run
+ * is cancelled.
+ *
+ * <p>The thread running the step is only interrupted until {@link #finish()} is called, and an interruption sent for
+ * the step is cleared by {@link #finish()}, so it never reaches the next task of the thread.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+final class StepExecution {
+    private final CompletableFuture<Object> result;
+    /** The thread running the step, {@code null} once it is finished. Guarded by {@code this}. */
+    private Thread thread;
+    private boolean interrupted;
+    private CompletableFuture<Void> timer;
+
+    /**
+     * @param result The result of the step, completed exceptionally when the step times out.
+     */
+    StepExecution(CompletableFuture<Object> result) {
+        this.result = result;
+        this.thread = Thread.currentThread();
+    }
+
+    /**
+     * Fails the step and interrupts it once the tool method has run for its timeout.
+     * @param invoker The invoker of the tool method about to be called, with a timeout.
+     */
+    void startTimer(ToolMethodInvoker invoker) {
+        long timeoutMillis = invoker.getTimeoutMillis();
+        CompletableFuture<Void> stepTimer = new CompletableFuture<>();
+        synchronized (this) {
+            if (thread == null) {
+                return;
+            }
+            timer = stepTimer;
+        }
+        stepTimer.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((ignored, failure) -> {
+            if (failure != null && result.completeExceptionally(new AgentTimeoutException(
+                    "The tool " + invoker.getToolName() + " did not return within " + timeoutMillis + " ms", AgentTimeoutException.Phase.TOOL))) {
+                interrupt();
+            }
+        });
+    }
+
+    /**
+     * Interrupts the thread running the step, if it is still running.
+     */
+    synchronized void interrupt() {
+        if (thread != null) {
+            interrupted = true;
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Called by the thread running the step once the tool method returned, stops the timer and clears the
+     * interruption sent for the step.
+     */
+    void finish() {
+        CompletableFuture<Void> stepTimer;
+        boolean clearInterrupt;
+        synchronized (this) {
+            thread = null;
+            stepTimer = timer;
+            clearInterrupt = interrupted;
+        }
+        if (stepTimer != null) {
+            stepTimer.complete(null);
+        }
+        if (clearInterrupt) {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.annotation.ToolLifecycle;
+import io.github.lekan128.aiagent.api.tool.ToolInstanceProvider;
+import io.github.lekan128.aiagent.api.tool.ToolScope;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the instances on which the non-static tool methods are called, for one {@code Agent}.
+ *
+ * <p>A {@link ToolInstanceProvider} registered for a class owns the instances of that class entirely.
+ * For the other classes the instances are created by the default provider (the public no-arg constructor unless
+ * replaced) and managed according to the {@link ToolScope} declared with {@link ToolLifecycle}
+ * ({@link ToolScope#SINGLETON} if nothing is declared).</p>
+ *
+ * <p>Every instance is given back to the provider that supplied it: {@code Lease.release()} after the tool call, or
+ * {@code RunInstances.release()} at the end of the run for the {@link ToolScope#PER_RUN} scope. Replacing the default
+ * provider retires the singletons and the pools of the previous one: their instances are handed back to the previous
+ * provider once no tool call uses them anymore.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class ToolInstances {
+    private static final ToolInstanceProvider NO_ARG_CONSTRUCTOR = toolClass -> toolClass.getDeclaredConstructor().newInstance();
+
+    private final Map<Class<?>, ToolInstanceProvider> registeredProviders = new ConcurrentHashMap<>();
+    private volatile Map<Class<?>, ToolInstanceProvider> scopedProviders = new ConcurrentHashMap<>();
+    private volatile ToolInstanceProvider defaultProvider = NO_ARG_CONSTRUCTOR;
+
+    /**
+     * Uses the given provider for every instance of the tool class, regardless of its {@link ToolLifecycle}.
+     * @param toolClass The class declaring the tool methods.
+     * @param provider The provider of its instances.
+     */
+    public void register(Class<?> toolClass, ToolInstanceProvider provider) {
+        registeredProviders.put(toolClass, provider);
+    }
+
+    /**
+     * Replaces how the instances of the tool classes without a registered provider are created.
+     * The instances are still managed according to the {@link ToolLifecycle} of their class.
+     * Instances already cached (singletons and pools) are discarded and handed back to the previous provider once idle.
+     * @param provider The provider creating the tool instances.
+     */
+    public synchronized void setDefaultProvider(ToolInstanceProvider provider) {
+        Map<Class<?>, ToolInstanceProvider> retired = scopedProviders;
+        defaultProvider = provider;
+        scopedProviders = new ConcurrentHashMap<>();
+        retired.forEach((toolClass, scoped) -> {
+            if (scoped instanceof SingletonProvider) {
+                ((SingletonProvider) scoped).retire(toolClass);
+            } else if (scoped instanceof PooledProvider) {
+                ((PooledProvider) scoped).retire(toolClass);
+            }
+        });
+    }
+
+    /**
+     * Retrieves an instance of the tool class.
+     *
+     * @param toolClass The class declaring the tool method.
+     * @param runInstances The instances of the current run, used by the {@link ToolScope#PER_RUN} scope.
+     * @return The instance of the tool class, to give back with {@link Lease#release()}.
+     * @throws InstantiationException If the instance cannot be created.
+     * @throws IllegalAccessException If the constructor is not accessible.
+     * @throws InvocationTargetException If the constructor throws an exception.
+     * @throws NoSuchMethodException If the tool class has no no-arg constructor and no provider was registered for it.
+     */
+    Lease acquire(Class<?> toolClass, RunInstances runInstances) throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        ToolInstanceProvider registered = registeredProviders.get(toolClass);
+        if (registered != null) {
+            return new Lease(registered, toolClass, acquire(registered, toolClass));
+        }
+
+        ToolLifecycle lifecycle = toolClass.getAnnotation(ToolLifecycle.class);
+        if (lifecycle != null && lifecycle.value() == ToolScope.PER_RUN) {
+            // The steps of a run can execute concurrently
+            synchronized (runInstances) {
+                Lease lease = runInstances.leases.get(toolClass);
+                if (lease == null) {
+                    ToolInstanceProvider provider = defaultProvider;
+                    lease = new Lease(provider, toolClass, acquire(provider, toolClass));
+                    runInstances.leases.put(toolClass, lease);
+                }
+                // Given back by the run once it is done
+                return new Lease(null, toolClass, lease.instance);
+            }
+        }
+        ToolInstanceProvider scoped = scopedProviders.computeIfAbsent(toolClass, this::createScopedProvider);
+        return new Lease(scoped, toolClass, acquire(scoped, toolClass));
+    }
+
+    private ToolInstanceProvider createScopedProvider(Class<?> toolClass) {
+        ToolLifecycle lifecycle = toolClass.getAnnotation(ToolLifecycle.class);
+        ToolScope scope = lifecycle == null ? ToolScope.SINGLETON : lifecycle.value();
+        ToolInstanceProvider factory = defaultProvider;
+
+        switch (scope) {
+            case PER_CALL:
+                return factory;
+            case POOLED:
+                return new PooledProvider(factory, lifecycle.maxPoolSize());
+            default:
+                return new SingletonProvider(factory);
+        }
+    }
+
+    private static Object acquire(ToolInstanceProvider provider, Class<?> toolClass) throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        try {
+            return provider.acquire(toolClass);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw (InstantiationException) new InstantiationException("Unable to provide an instance of " + toolClass.getName() + ": " + e).initCause(e);
+        }
+    }
+
+    /**
+     * An instance retrieved with {@link #acquire(Class, RunInstances)}, with the provider to give it back to.
+     */
+    static final class Lease {
+        private final ToolInstanceProvider provider;
+        private final Class<?> toolClass;
+        private final Object instance;
+
+        private Lease(ToolInstanceProvider provider, Class<?> toolClass, Object instance) {
+            this.provider = provider;
+            this.toolClass = toolClass;
+            this.instance = instance;
+        }
+
+        /**
+         * @return The instance to call the tool method on.
+         */
+        Object getInstance() {
+            return instance;
+        }
+
+        /**
+         * Gives the instance back to the provider that supplied it, once the tool method returned.
+         */
+        void release() {
+            if (provider != null) {
+                provider.release(toolClass, instance);
+            }
+        }
+    }
+
+    /**
+     * The {@link ToolScope#PER_RUN} instances of one run, shared by its steps. Thread-safe.
+     */
+    static final class RunInstances {
+        /** Guarded by {@code this}. */
+        private final Map<Class<?>, Lease> leases = new HashMap<>();
+
+        /**
+         * Gives every instance of the run back to the provider that supplied it, once no step uses them anymore.
+         */
+        void release() {
+            List<Lease> released;
+            synchronized (this) {
+                released = List.copyOf(leases.values());
+                leases.clear();
+            }
+            for (Lease lease : released) {
+                lease.release();
+            }
+        }
+    }
+
+    private static final class SingletonProvider implements ToolInstanceProvider {
+        private final ToolInstanceProvider factory;
+        /** The number of tool calls using the instance, so a retired instance is only handed back once idle. */
+        private final AtomicInteger borrowers = new AtomicInteger();
+        private volatile Object instance;
+        private volatile boolean retired;
+
+        private SingletonProvider(ToolInstanceProvider factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public Object acquire(Class<?> toolClass) throws Exception {
+            // Counted before reading retired, so retire() either sees the borrower or this call sees retired
+            borrowers.incrementAndGet();
+            try {
+                Object current = instance;
+                if (current != null && !retired) {
+                    return current;
+                }
+                synchronized (this) {
+                    if (instance == null) {
+                        instance = factory.acquire(toolClass);
+                    }
+                    return instance;
+                }
+            } catch (Exception | Error e) {
+                release(toolClass, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public void release(Class<?> toolClass, Object released) {
+            if (borrowers.decrementAndGet() == 0 && retired) {
+                handBack(toolClass);
+            }
+        }
+
+        /**
+         * Hands the instance back to the factory once no tool call uses it anymore.
+         */
+        private void retire(Class<?> toolClass) {
+            retired = true;
+            handBack(toolClass);
+        }
+
+        private synchronized void handBack(Class<?> toolClass) {
+            if (instance != null && borrowers.get() == 0) {
+                factory.release(toolClass, instance);
+                instance = null;
+            }
+        }
+    }
+
+    private static final class PooledProvider implements ToolInstanceProvider {
+        private final ToolInstanceProvider factory;
+        private final Semaphore permits;
+        private final Queue<Object> idleInstances = new ConcurrentLinkedQueue<>();
+        private volatile boolean retired;
+
+        private PooledProvider(ToolInstanceProvider factory, int maxPoolSize) {
+            if (maxPoolSize < 1) {
+                throw new IllegalArgumentException("maxPoolSize must be at least 1, was " + maxPoolSize);
+            }
+            this.factory = factory;
+            this.permits = new Semaphore(maxPoolSize, true);
+        }
+
+        @Override
+        public Object acquire(Class<?> toolClass) throws Exception {
+            permits.acquire();
+            try {
+                Object instance = idleInstances.poll();
+                return instance != null ? instance : factory.acquire(toolClass);
+            } catch (Exception | Error e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void release(Class<?> toolClass, Object instance) {
+            idleInstances.offer(instance);
+            permits.release();
+            if (retired) {
+                drain(toolClass);
+            }
+        }
+
+        /**
+         * Hands the idle instances back to the factory, and every instance released from now on.
+         */
+        private void retire(Class<?> toolClass) {
+            retired = true;
+            drain(toolClass);
+        }
+
+        private void drain(Class<?> toolClass) {
+            for (Object instance; (instance = idleInstances.poll()) != null; ) {
+                factory.release(toolClass, instance);
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.annotation.AiToolMethod;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.metrics.AgentMetrics;
+import io.github.lekan128.aiagent.api.tool.ToolIndex;
+import io.github.lekan128.aiagent.api.tool.ToolInvoker;
+import io.github.lekan128.aiagent.impl.method.GeneratedToolIndexes;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A resolved, ready to call tool method, cached by {@link ReflectionCaller} so the class, the parameter types
+ * and the method are looked up only once per (class name, method name, parameter types).
+ *
+ * <p>The call goes through, in order of preference: the dispatcher generated at compile time by the annotation
+ * processor, a dispatcher spun at runtime with {@link LambdaMetafactory}, a {@link MethodHandle} adapted to
+ * {@code (Object, Object[])Object}, or {@link Method#invoke} when the method is not accessible to a
+ * {@code MethodHandle} lookup. The argument converters are chosen once per parameter.</p>
+ *
+ * <p>Both dispatchers are direct calls: the spun one is a class implementing one of the {@code CallN} interfaces
+ * with a plain call to the tool method, so a call costs an interface call and the argument casts. The {@code MethodHandle} is only the fallback (void methods, more than
+ * {@link #MAX_SPUN_ARITY} arguments, classes the lookup cannot define a class next to): held in an instance field,
+ * the JIT cannot constant-fold it and a call costs about as much as a reflective call on a cached {@link Method}.</p>
+ *
+ * <p>Failures are reported like {@link Method#invoke}: an argument that does not match its parameter type is an
+ * {@link IllegalArgumentException}, and only what the tool method throws is wrapped in an
+ * {@link InvocationTargetException}. An {@link Error} is rethrown unchanged.</p>
+ *
+ * <p>The invokers of a tool method marked {@link AiToolMethod#cacheable()} share one {@link ToolResultCache}.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class ToolMethodInvoker {
+    /** The result caches of the cacheable tool methods, keyed by {@link ToolIndex#key(String, String, List)}. */
+    private static final Map<String, ToolResultCache> RESULT_CACHES = new ConcurrentHashMap<>();
+    /** The highest number of arguments, the instance included, of a dispatcher spun with {@link LambdaMetafactory}. */
+    static final int MAX_SPUN_ARITY = 5;
+    /** The interfaces implemented by the spun dispatchers, by arity. Public so a class of any package can implement them. */
+    private static final List<Class<?>> CALL_TYPES = List.of(Call0.class, Call1.class, Call2.class, Call3.class, Call4.class, Call5.class);
+
+    private final Class<?> declaringClass;
+    private final Method method;
+    private final Class<?>[] parameterTypes;
+    /** The parameter types, primitive types replaced by their wrapper, to check the arguments. */
+    private final Class<?>[] boxedParameterTypes;
+    private final boolean isStatic;
+    private final List<Function<Object, Object>> argumentConverters;
+    /** The generated or spun dispatcher, {@code null} if the tool is called through the {@link MethodHandle}. */
+    private final ToolInvoker directInvoker;
+    private final MethodHandle methodHandle;
+    private final ToolResultCache resultCache;
+    private final long timeoutMillis;
+    private final String metricName;
+
+    private ToolMethodInvoker(Class<?> declaringClass, Method method, List<Function<Object, Object>> argumentConverters, ToolInvoker directInvoker, MethodHandle methodHandle, ToolResultCache resultCache, long timeoutMillis) {
+        this.declaringClass = declaringClass;
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.boxedParameterTypes = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            boxedParameterTypes[i] = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+        }
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+        this.argumentConverters = argumentConverters;
+        this.directInvoker = directInvoker;
+        this.methodHandle = methodHandle;
+        this.resultCache = resultCache;
+        this.timeoutMillis = timeoutMillis;
+        this.metricName = AgentMetrics.TOOL_PREFIX + getToolName();
+    }
+
+    /**
+     * Resolves the tool method and prepares its invoker.
+     *
+     * @param className The fully qualified name of the class declaring the method.
+     * @param methodName The name of the method.
+     * @param parameterTypes The resolved parameter types.
+     * @return The prepared invoker.
+     * @throws ClassNotFoundException If the class cannot be found.
+     * @throws NoSuchMethodException If no public method matches the name and parameter types.
+     * @throws IllegalArgumentException If the cache or timeout attributes of the {@link AiToolMethod} annotation are invalid.
+     */
+    static ToolMethodInvoker create(String className, String methodName, Class<?>[] parameterTypes) throws ClassNotFoundException, NoSuchMethodException {
+        Class<?> clazz = Class.forName(className);
+        Method method = clazz.getMethod(methodName, parameterTypes);
+
+        List<Function<Object, Object>> argumentConverters = new ArrayList<>(parameterTypes.length);
+        List<String> parameterTypeNames = new ArrayList<>(parameterTypes.length);
+        for (Class<?> parameterType : parameterTypes) {
+            argumentConverters.add(ReflectionCaller.converterFor(parameterType));
+            parameterTypeNames.add(parameterType.getName());
+        }
+
+        String toolKey = ToolIndex.key(className, methodName, parameterTypeNames);
+        ToolInvoker directInvoker = GeneratedToolIndexes.getInvoker(toolKey);
+        MethodHandle methodHandle = null;
+        if (directInvoker == null) {
+            methodHandle = toMethodHandle(method);
+            if (methodHandle != null) {
+                directInvoker = spinInvoker(method);
+            }
+            if (directInvoker != null) {
+                methodHandle = null;
+            }
+        }
+        AiToolMethod toolMethod = method.getAnnotation(AiToolMethod.class);
+        ToolResultCache resultCache = resultCacheFor(toolKey, toolMethod);
+        long timeoutMillis = toolMethod == null ? 0 : toolMethod.timeoutMillis();
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis must not be negative, was " + timeoutMillis);
+        }
+        return new ToolMethodInvoker(clazz, method, argumentConverters, directInvoker, methodHandle, resultCache, timeoutMillis);
+    }
+
+    private static ToolResultCache resultCacheFor(String toolKey, AiToolMethod toolMethod) {
+        ToolResultCache resultCache = RESULT_CACHES.get(toolKey);
+        if (resultCache != null) {
+            return resultCache;
+        }
+        resultCache = ToolResultCache.create(toolMethod);
+        if (resultCache == null) {
+            return null;
+        }
+        ToolResultCache existing = RESULT_CACHES.putIfAbsent(toolKey, resultCache);
+        return existing == null ? resultCache : existing;
+    }
+
+    /**
+     * @return A snapshot of the result cache statistics of every cacheable tool method called so far, keyed by
+     * {@link ToolIndex#key(String, String, List)}.
+     */
+    static Map<String, CacheStats> getResultCacheStats() {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        RESULT_CACHES.forEach((toolKey, resultCache) -> stats.put(toolKey, resultCache.getStats()));
+        return stats;
+    }
+
+    private static MethodHandle toMethodHandle(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // e.g., public method of a non-public class, left to Method#invoke so the error stays the same
+            return null;
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    }
+
+    /**
+     * Spins a class calling the tool method directly with {@link LambdaMetafactory}. The class is defined next to the
+     * class declaring the tool (same class loader and nest), so it can see the same classes the tool sees.
+     * Only called for a method the lookup of this class can access, so the tools reachable stay the same.
+     *
+     * @return The dispatcher, or {@code null} if the method cannot be called that way.
+     */
+    private static ToolInvoker spinInvoker(Method method) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int arity = method.getParameterCount() + (isStatic ? 0 : 1);
+        if (method.getReturnType() == void.class || arity > MAX_SPUN_ARITY) {
+            // A void method cannot implement a method returning Object
+            return null;
+        }
+        Object call;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle target = lookup.unreflect(method);
+            Class<?> callType = CALL_TYPES.get(arity);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "call", MethodType.methodType(callType),
+                    MethodType.genericMethodType(arity), target, target.type().wrap());
+            call = callSite.getTarget().invoke();
+        } catch (IllegalAccessException | LambdaConversionException | LinkageError e) {
+            // e.g., a class of a named module that does not open its package, or loaded by another class loader
+            return null;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to create the invoker of " + method, e);
+        }
+        return adapt(call, arity, isStatic);
+    }
+
+    /**
+     * Adapts a {@code CallN} to {@code (Object, Object[])Object}, passing the instance first unless the method is static.
+     */
+    private static ToolInvoker adapt(Object call, int arity, boolean isStatic) {
+        switch (arity) {
+            case 0: {
+                Call0 call0 = (Call0) call;
+                return (instance, args) -> call0.call();
+            }
+            case 1: {
+                Call1 call1 = (Call1) call;
+                return isStatic
+                        ? (instance, args) -> call1.call(args[0])
+                        : (instance, args) -> call1.call(instance);
+            }
+            case 2: {
+                Call2 call2 = (Call2) call;
+                return isStatic
+                        ? (instance, args) -> call2.call(args[0], args[1])
+                        : (instance, args) -> call2.call(instance, args[0]);
+            }
+            case 3: {
+                Call3 call3 = (Call3) call;
+                return isStatic
+                        ? (instance, args) -> call3.call(args[0], args[1], args[2])
+                        : (instance, args) -> call3.call(instance, args[0], args[1]);
+            }
+            case 4: {
+                Call4 call4 = (Call4) call;
+                return isStatic
+                        ? (instance, args) -> call4.call(args[0], args[1], args[2], args[3])
+                        : (instance, args) -> call4.call(instance, args[0], args[1], args[2]);
+            }
+            case 5: {
+                Call5 call5 = (Call5) call;
+                return isStatic
+                        ? (instance, args) -> call5.call(args[0], args[1], args[2], args[3], args[4])
+                        : (instance, args) -> call5.call(instance, args[0], args[1], args[2], args[3]);
+            }
+            default:
+                throw new IllegalArgumentException("No call type for " + arity + " arguments");
+        }
+    }
+
+    /**
+     * @return The class declaring the tool method.
+     */
+    Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * @return {@code true} if the tool method is static and does not need an instance.
+     */
+    boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * @return The result cache of the tool method, or {@code null} if it is not {@link AiToolMethod#cacheable()}.
+     */
+    ToolResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @return How long one call of the tool method may run, in milliseconds, 0 for no limit.
+     */
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return The name of the tool method, as {@code className#methodName}.
+     */
+    String getToolName() {
+        return declaringClass.getName() + '#' + method.getName();
+    }
+
+    /**
+     * @return The name of the latency of the tool method in the {@link AgentMetrics}.
+     */
+    String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * Converts a raw argument value (as deserialized from the LLM response) to the type of the parameter.
+     * @param index The index of the parameter.
+     * @param value The raw value.
+     * @return The converted value.
+     */
+    Object convertArgument(int index, Object value) {
+        return argumentConverters.get(index).apply(value);
+    }
+
+    /**
+     * Invokes the tool method.
+     *
+     * @param instance The instance to call the method on, ignored if the method is static.
+     * @param args The converted arguments.
+     * @return The value returned by the method.
+     * @throws InvocationTargetException If the invoked method throws an exception.
+     * @throws IllegalAccessException If the method is not accessible.
+     * @throws IllegalArgumentException If the arguments do not match the parameters of the method.
+     */
+    Object invoke(Object instance, Object[] args) throws InvocationTargetException, IllegalAccessException {
+        if (directInvoker != null) {
+            // Checked first, so a ClassCastException or NullPointerException can only come from the tool itself
+            checkArguments(args);
+            try {
+                return directInvoker.invoke(instance, args);
+            } catch (Exception e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+        if (methodHandle != null) {
+            checkArguments(args);
+            try {
+                return (Object) methodHandle.invokeExact(instance, args);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+        try {
+            return method.invoke(instance, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void checkArguments(Object[] args) {
+        int count = args == null ? 0 : args.length;
+        if (count != parameterTypes.length) {
+            throw new IllegalArgumentException("Wrong number of arguments for " + getToolName() + ": " + count + " instead of " + parameterTypes.length);
+        }
+        for (int i = 0; i < count; i++) {
+            Object arg = args[i];
+            if (arg == null ? parameterTypes[i].isPrimitive() : !boxedParameterTypes[i].isInstance(arg)) {
+                throw new IllegalArgumentException("Argument " + i + " of " + getToolName() + " must be a " + parameterTypes[i].getName()
+                        + ", was " + (arg == null ? "null" : arg.getClass().getName()));
+            }
+        }
+    }
+
+    public interface Call0 { Object call(); }
+
+    public interface Call1 { Object call(Object a0); }
+
+    public interface Call2 { Object call(Object a0, Object a1); }
+
+    public interface Call3 { Object call(Object a0, Object a1, Object a2); }
+
+    public interface Call4 { Object call(Object a0, Object a1, Object a2, Object a3); }
+
+    public interface Call5 { Object call(Object a0, Object a1, Object a2, Object a3, Object a4); }
+}
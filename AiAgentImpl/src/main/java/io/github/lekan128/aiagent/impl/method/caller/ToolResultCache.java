@@ -0,0 +1,120 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.api.annotation.AiToolMethod;
+import io.github.lekan128.aiagent.api.cache.CacheStats;
+import io.github.lekan128.aiagent.api.cache.LruCache;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The cache of the results of one tool marked {@link AiToolMethod#cacheable()}, keyed by the converted argument values.
+ *
+ * <p>Arguments whose class does not override {@link Object#equals(Object)} (e.g., a POJO converted from the plan)
+ * are compared by their JSON tree, so equal calls share their result. {@code null} results are cached too.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+class ToolResultCache {
+    /** Returned by {@link #get(Object[])} when no result is cached. */
+    static final Object MISS = new Object();
+
+    private static final Object NULL_RESULT = new Object();
+
+    private static final ClassValue<Boolean> HAS_VALUE_EQUALITY = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (type.isArray()) {
+                return true;
+            }
+            try {
+                return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private final LruCache<ArgumentsKey, Object> results;
+
+    private ToolResultCache(int maxEntries, Duration ttl) {
+        this.results = new LruCache<>(maxEntries, ttl);
+    }
+
+    /**
+     * Creates the cache of the tool, if it is cacheable.
+     * @param toolMethod The annotation of the tool method, may be {@code null}.
+     * @return The cache, or {@code null} if the tool is not cacheable.
+     * @throws IllegalArgumentException If the cache attributes of the annotation are invalid.
+     */
+    static ToolResultCache create(AiToolMethod toolMethod) {
+        if (toolMethod == null || !toolMethod.cacheable()) {
+            return null;
+        }
+        if (toolMethod.cacheTtlSeconds() < 0) {
+            throw new IllegalArgumentException("cacheTtlSeconds must not be negative, was " + toolMethod.cacheTtlSeconds());
+        }
+        return new ToolResultCache(toolMethod.cacheMaxEntries(), Duration.ofSeconds(toolMethod.cacheTtlSeconds()));
+    }
+
+    /**
+     * @param args The converted arguments of the call.
+     * @return The cached result, possibly {@code null}, or {@link #MISS}.
+     */
+    Object get(Object[] args) {
+        Object result = results.get(new ArgumentsKey(args));
+        if (result == null) {
+            return MISS;
+        }
+        return result == NULL_RESULT ? null : result;
+    }
+
+    /**
+     * @param args The converted arguments of the call.
+     * @param result The result of the call.
+     */
+    void put(Object[] args, Object result) {
+        results.put(new ArgumentsKey(args), result == null ? NULL_RESULT : result);
+    }
+
+    /**
+     * @return A snapshot of the statistics of the cache.
+     */
+    CacheStats getStats() {
+        return results.getStats();
+    }
+
+    private static final class ArgumentsKey {
+        private final Object[] values;
+        private final int hashCode;
+
+        private ArgumentsKey(Object[] args) {
+            this.values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                Object arg = args[i];
+                values[i] = arg == null || HAS_VALUE_EQUALITY.get(arg.getClass())
+                        ? arg
+                        : ObjectMapperSingleton.getObjectMapper().valueToTree(arg);
+            }
+            this.hashCode = Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ArgumentsKey && Arrays.deepEquals(values, ((ArgumentsKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
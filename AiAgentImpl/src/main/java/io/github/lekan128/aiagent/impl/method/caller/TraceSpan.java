@@ -0,0 +1,146 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.tracing.Span;
+import io.github.lekan128.aiagent.api.tracing.SpanExporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A running operation of an agent call, handed to the {@link SpanExporter} as a {@link Span} when it ends.
+ *
+ * <p>When the agent has no exporter, every span is {@link #NOOP}: starting a child, setting an attribute and ending
+ * it do nothing, so a call without tracing only pays for a few calls returning immediately.</p>
+ *
+ * <p>A span is ended once, the later calls of {@link #end(Throwable)} are ignored. This class is thread-safe.</p>
+ *
+ * <p><strong>Internal API:</strong> This class is strictly for internal library use
+ * and is not intended for external consumption. Its methods and structure are subject
+ * to change without notice.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public final class TraceSpan {
+    /** The span of the calls without an exporter, recording nothing. */
+    public static final TraceSpan NOOP = new TraceSpan(null, null, null, null, null);
+
+    private final SpanExporter exporter;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startEpochMillis;
+    private final long startNanos;
+    /** The attributes, {@code null} once the span has ended. Guarded by {@code this}. */
+    private Map<String, Object> attributes;
+
+    private TraceSpan(SpanExporter exporter, String traceId, String spanId, String parentSpanId, String name) {
+        this.exporter = exporter;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startEpochMillis = exporter == null ? 0 : System.currentTimeMillis();
+        this.startNanos = exporter == null ? 0 : System.nanoTime();
+        this.attributes = exporter == null ? null : new LinkedHashMap<>();
+    }
+
+    /**
+     * Starts the root span of a trace.
+     * @param exporter The exporter receiving the spans of the trace, {@code null} for none.
+     * @param name The name of the operation.
+     * @return The span, {@link #NOOP} if there is no exporter.
+     */
+    public static TraceSpan start(SpanExporter exporter, String name) {
+        if (exporter == null) {
+            return NOOP;
+        }
+        return new TraceSpan(exporter, randomHex(2), randomHex(1), null, name);
+    }
+
+    /**
+     * Starts an operation within this one.
+     * @param name The name of the operation.
+     * @return The child span, {@link #NOOP} if this span is.
+     */
+    public TraceSpan startChild(String name) {
+        if (exporter == null) {
+            return NOOP;
+        }
+        return new TraceSpan(exporter, traceId, randomHex(1), spanId, name);
+    }
+
+    /**
+     * @return {@code true} if the span is exported when it ends, so its attributes are worth computing.
+     */
+    public boolean isRecording() {
+        return exporter != null;
+    }
+
+    /**
+     * Sets an attribute, ignored once the span has ended.
+     * @param key The key of the attribute.
+     * @param value The value of the attribute, exported as is.
+     * @return This span.
+     */
+    public TraceSpan attribute(String key, Object value) {
+        if (exporter != null) {
+            synchronized (this) {
+                if (attributes != null) {
+                    attributes.put(key, value);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Ends the operation and exports the span, unless it has already ended.
+     * @param failure The failure of the operation, {@code null} if it succeeded.
+     */
+    public void end(Throwable failure) {
+        if (exporter == null) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        Map<String, Object> endedAttributes;
+        synchronized (this) {
+            endedAttributes = attributes;
+            attributes = null;
+        }
+        if (endedAttributes == null) {
+            return;
+        }
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        exporter.export(new Span(traceId, spanId, parentSpanId, name, startEpochMillis, durationNanos,
+                failure == null ? null : failure.toString(), endedAttributes));
+    }
+
+    private static String randomHex(int longs) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(16 * longs);
+        for (int i = 0; i < longs; i++) {
+            String hex = Long.toHexString(random.nextLong());
+            for (int padding = hex.length(); padding < 16; padding++) {
+                id.append('0');
+            }
+            id.append(hex);
+        }
+        return id.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TraceSpan{" +
+                "traceId='" + traceId + '\'' +
+                ", spanId='" + spanId + '\'' +
+                ", parentSpanId='" + parentSpanId + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
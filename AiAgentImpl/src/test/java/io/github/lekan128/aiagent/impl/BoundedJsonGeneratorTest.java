@@ -0,0 +1,120 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedJsonGeneratorTest {
+    private static final ObjectMapper MAPPER = ObjectMapperSingleton.getObjectMapper();
+    private static final String SIZE_LIMIT_MARKER = "...[truncated, size limit reached]";
+
+    @Test
+    void writesValuesWithinTheLimitsUnchanged() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "Product 1234ABC");
+        value.put("quantities", List.of(1, 2, 3));
+        value.put("price", 12.5);
+
+        assertEquals(MAPPER.writeValueAsString(value), write(value, 1_000, 100, 10));
+    }
+
+    @Test
+    void cutsLongStrings() throws IOException {
+        String json = write(Map.of("text", "abcdefghij"), 1_000, 4, 10);
+
+        assertEquals("abcd...[truncated 6 chars]", MAPPER.readTree(json).get("text").asText());
+    }
+
+    @Test
+    void keepsTheFirstElementsOfLongArrays() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            numbers.add(i);
+        }
+
+        JsonNode array = MAPPER.readTree(write(numbers, 1_000, 100, 3));
+
+        assertEquals(4, array.size());
+        assertEquals(List.of(0, 1, 2), List.of(array.get(0).asInt(), array.get(1).asInt(), array.get(2).asInt()));
+        assertEquals("...[7 more elements truncated]", array.get(3).asText());
+    }
+
+    @Test
+    void skipsTheMembersBeyondTheSizeLimit() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            value.put("field" + i, "value" + i);
+        }
+
+        String json = write(value, 200, 100, 100);
+        JsonNode object = MAPPER.readTree(json);
+
+        assertTrue(object.size() < 100, json);
+        assertEquals("value0", object.get("field0").asText());
+        assertEquals(SIZE_LIMIT_MARKER, object.get(BoundedJsonGenerator.TRUNCATED_FIELD).asText());
+        // The limit is checked before each value, so the output exceeds it by one member at most
+        assertTrue(json.length() < 200 + 64, json);
+    }
+
+    @Test
+    void marksTheSizeLimitOnceInNestedValues() throws IOException {
+        List<Map<String, Object>> orders = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            orders.add(Map.of("id", i, "tags", List.of("gift", "express", "fragile")));
+        }
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("orders", orders);
+        value.put("total", 50);
+
+        String json = write(value, 300, 100, 100);
+        JsonNode root = MAPPER.readTree(json);
+
+        assertEquals(1, json.split("size limit reached", -1).length - 1, json);
+        assertTrue(root.get("orders").size() < 50, json);
+        assertNull(root.get("total"), json);
+    }
+
+    @Test
+    void boundsEachRootValueSeparately() throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            BoundedJsonGenerator bounded = new BoundedJsonGenerator(generator, () -> output.getBuffer().length(), 100, 100);
+            generator.writeStartArray();
+            for (int i = 0; i < 3; i++) {
+                bounded.startValue(30);
+                MAPPER.writeValue(bounded, List.of("first value " + i, "second value " + i, "third value " + i));
+            }
+            generator.writeEndArray();
+        }
+
+        JsonNode results = MAPPER.readTree(output.toString());
+        assertEquals(3, results.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("first value " + i, results.get(i).get(0).asText());
+            assertEquals(SIZE_LIMIT_MARKER, results.get(i).get(results.get(i).size() - 1).asText());
+        }
+    }
+
+    private static String write(Object value, long maxChars, int maxStringChars, int maxArrayElements) throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(output)) {
+            BoundedJsonGenerator bounded = new BoundedJsonGenerator(generator, () -> output.getBuffer().length(), maxStringChars, maxArrayElements);
+            bounded.startValue(maxChars);
+            MAPPER.writeValue(bounded, value);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.lekan128.aiagent.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.github.lekan128.aiagent.api.ObjectMapperSingleton;
+import io.github.lekan128.aiagent.api.annotation.AiToolMethod;
+import io.github.lekan128.aiagent.api.annotation.ArgDesc;
+import io.github.lekan128.aiagent.impl.method.description.MethodDescription;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ToolSearchIndexTest {
+    private static final String TOOLS = Tools.class.getName();
+
+    private final ToolSearchIndex index = new ToolSearchIndex(AiUtil.describeMethods(toolMethods()));
+
+    @Test
+    void selectsTheMostRelevantTools() throws Exception {
+        assertEquals(List.of("findPrice"), select("What is the total price of 3 keyboards?", 1, Set.of()));
+        assertEquals(List.of("findProductName"), select("Find the name of product 1234ABC", 1, Set.of()));
+        // Kept in the order of the catalog
+        assertEquals(List.of("findPrice", "findProductName"), select("Find the product price", 2, Set.of()));
+    }
+
+    @Test
+    void indexesTheFieldsOfTheObjectArguments() throws Exception {
+        // Only the fields of the order mention the shipping address
+        assertEquals(List.of("trackOrder"), select("Where is the shipping address?", 1, Set.of()));
+    }
+
+    @Test
+    void alwaysIncludesTheGivenTools() throws Exception {
+        assertEquals(List.of("findPrice", "sendEmail"), select("total price", 1, Set.of(TOOLS + "#sendEmail")));
+        assertEquals(List.of("findPrice", "findProductName", "sendEmail", "trackOrder"), select("total price", 1, Set.of(TOOLS)));
+    }
+
+    private List<String> select(String query, int topK, Set<String> alwaysInclude) throws Exception {
+        List<MethodDescription> selected = ObjectMapperSingleton.getObjectMapper()
+                .readValue(index.selectJson(query, topK, alwaysInclude), new TypeReference<List<MethodDescription>>() {});
+        List<String> names = new ArrayList<>();
+        for (MethodDescription tool : selected) {
+            names.add(tool.getMethodName());
+        }
+        return names;
+    }
+
+    private static List<Method> toolMethods() {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : Tools.class.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(AiToolMethod.class)) {
+                methods.add(method);
+            }
+        }
+        methods.sort(Comparator.comparing(Method::getName));
+        return methods;
+    }
+
+    public static class Tools {
+        @AiToolMethod("Finds the name of a product from its id.")
+        public static String findProductName(@ArgDesc("The id of the product") String id) {
+            return "Product " + id;
+        }
+
+        @AiToolMethod("Computes the total price of a quantity of a product.")
+        public static double findPrice(@ArgDesc("The name of the product") String productName, @ArgDesc("The quantity") int quantity) {
+            return quantity * 1.5;
+        }
+
+        @AiToolMethod("Tracks the delivery of an order.")
+        public static String trackOrder(@ArgDesc("The order") Order order) {
+            return Arrays.toString(new Object[]{order.shippingAddress, order.quantity});
+        }
+
+        @AiToolMethod("Sends an email to a customer.")
+        public static void sendEmail(@ArgDesc("The recipient") String recipient, @ArgDesc("The body of the email") String body) {
+        }
+    }
+
+    public static class Order {
+        public String shippingAddress;
+        public int quantity;
+    }
+}
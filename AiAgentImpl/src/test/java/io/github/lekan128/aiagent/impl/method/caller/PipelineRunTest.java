@@ -0,0 +1,159 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.impl.method.MethodExecutionResult;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PipelineRunTest {
+    private static final PipelineOptions CONCURRENT = PipelineOptions.builder().maxParallelism(4).build();
+    private static final PipelineOptions SEQUENTIAL = PipelineOptions.builder().maxParallelism(1).build();
+
+    @Test
+    void reportsResultsInSubmissionOrder() {
+        // The first step only returns once the second one ran, so it finishes last
+        List<ReflectionInvocableMethod> plan = List.of(
+                step("await", null, "order"),
+                step("open", null, "order"));
+
+        List<MethodExecutionResult> results = ReflectionCaller.executePipelineAsync(plan, CONCURRENT).join();
+
+        assertEquals(List.of("awaited order", "opened order"), responses(results));
+        assertSame(plan.get(0), results.get(0).getRequest());
+        assertSame(plan.get(1), results.get(1).getRequest());
+    }
+
+    @Test
+    void waitsForThePlaceholdersOfAStep() throws Exception {
+        // The second step depends on the first one, which waits for the third one
+        List<ReflectionInvocableMethod> plan = List.of(
+                step("await", "{{awaited}}", "dependency"),
+                step("concat", null, "{{awaited}}", "!"),
+                step("open", null, "dependency"));
+
+        List<MethodExecutionResult> results = ReflectionCaller.executePipeline(plan, CONCURRENT);
+
+        assertEquals(List.of("awaited dependency", "awaited dependency!", "opened dependency"), responses(results));
+    }
+
+    @Test
+    void resolvesSeveralPlaceholders() throws Exception {
+        List<ReflectionInvocableMethod> plan = List.of(
+                step("echo", "{{first}}", "a"),
+                step("echo", "{{second}}", "b"),
+                step("concat", "{{both}}", "{{first}}", "{{second}}"),
+                step("concat", null, "{{both}}", "{{first}}"));
+
+        List<String> expected = List.of("a", "b", "ab", "aba");
+        assertEquals(expected, responses(ReflectionCaller.executePipeline(plan, CONCURRENT)));
+        assertEquals(expected, responses(ReflectionCaller.executePipeline(plan, SEQUENTIAL)));
+    }
+
+    @Test
+    void usesTheLatestStepDefiningAPlaceholder() throws Exception {
+        List<ReflectionInvocableMethod> plan = List.of(
+                step("echo", "{{value}}", "first"),
+                step("echo", "{{value}}", "second"),
+                step("echo", null, "{{value}}"));
+
+        assertEquals("second", responses(ReflectionCaller.executePipeline(plan, CONCURRENT)).get(2));
+        assertEquals("second", responses(ReflectionCaller.executePipeline(plan, SEQUENTIAL)).get(2));
+    }
+
+    @Test
+    void failsTheStepsDependingOnAFailedStep() {
+        List<ReflectionInvocableMethod> plan = List.of(
+                step("fail", "{{failed}}", "boom"),
+                step("echo", null, "{{failed}}"));
+
+        InvocationTargetException failure = assertThrows(InvocationTargetException.class,
+                () -> ReflectionCaller.executePipeline(plan, CONCURRENT));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals("boom", failure.getCause().getMessage());
+    }
+
+    @Test
+    void cancelFailsTheStepsNotDone() {
+        PipelineRun run = ReflectionCaller.startPipeline(CONCURRENT);
+        run.submit(step("await", "{{awaited}}", "never"));
+        run.submit(step("echo", null, "{{awaited}}"));
+        IllegalStateException cancellation = new IllegalStateException("cancelled");
+
+        run.cancel(cancellation);
+        run.submit(step("echo", null, "late"));
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> run.complete().join());
+        assertSame(cancellation, failure.getCause());
+    }
+
+    private static ReflectionInvocableMethod step(String methodName, String returnObjectKey, String... values) {
+        List<MethodArgument> arguments = new ArrayList<>();
+        for (String value : values) {
+            MethodArgument argument = new MethodArgument();
+            argument.setType("java.lang.String");
+            argument.setValue(value);
+            arguments.add(argument);
+        }
+        ReflectionInvocableMethod step = new ReflectionInvocableMethod();
+        step.setClassName(Tools.class.getName());
+        step.setMethodName(methodName);
+        step.setMethodArguments(arguments);
+        step.setReturnObjectKey(returnObjectKey);
+        return step;
+    }
+
+    private static List<Object> responses(List<MethodExecutionResult> results) {
+        List<Object> responses = new ArrayList<>();
+        for (MethodExecutionResult result : results) {
+            responses.add(result.getResponse());
+        }
+        return responses;
+    }
+
+    /**
+     * The tools called by the plans, {@code await} blocks until {@code open} is called with the same key.
+     */
+    public static class Tools {
+        private static final Map<String, CountDownLatch> LATCHES = new ConcurrentHashMap<>();
+
+        public static String echo(String value) {
+            return value;
+        }
+
+        public static String concat(String first, String second) {
+            return first + second;
+        }
+
+        public static String await(String key) throws InterruptedException {
+            if (!latch(key).await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Not opened: " + key);
+            }
+            return "awaited " + key;
+        }
+
+        public static String open(String key) {
+            latch(key).countDown();
+            return "opened " + key;
+        }
+
+        public static String fail(String message) {
+            throw new IllegalStateException(message);
+        }
+
+        private static CountDownLatch latch(String key) {
+            return LATCHES.computeIfAbsent(key, ignored -> new CountDownLatch(1));
+        }
+    }
+}
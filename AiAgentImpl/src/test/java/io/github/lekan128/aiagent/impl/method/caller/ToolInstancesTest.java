@@ -0,0 +1,164 @@
+package io.github.lekan128.aiagent.impl.method.caller;
+
+import io.github.lekan128.aiagent.api.annotation.ToolLifecycle;
+import io.github.lekan128.aiagent.api.tool.ToolInstanceProvider;
+import io.github.lekan128.aiagent.api.tool.ToolScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolInstancesTest {
+
+    @Test
+    void sharesOneInstanceForTheSingletonScope() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.setDefaultProvider(provider);
+
+        ToolInstances.Lease first = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease second = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        first.release();
+        second.release();
+
+        assertSame(first.getInstance(), second.getInstance());
+        assertEquals(1, provider.acquired.size());
+        assertTrue(provider.released.isEmpty());
+    }
+
+    @Test
+    void createsAnInstanceForEveryCallOfThePerCallScope() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.setDefaultProvider(provider);
+
+        ToolInstances.Lease first = instances.acquire(PerCallTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease second = instances.acquire(PerCallTool.class, new ToolInstances.RunInstances());
+        first.release();
+        second.release();
+
+        assertNotSame(first.getInstance(), second.getInstance());
+        assertEquals(provider.acquired, provider.released);
+    }
+
+    @Test
+    void sharesOneInstancePerRunForThePerRunScope() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.setDefaultProvider(provider);
+        ToolInstances.RunInstances firstRun = new ToolInstances.RunInstances();
+        ToolInstances.RunInstances secondRun = new ToolInstances.RunInstances();
+
+        ToolInstances.Lease first = instances.acquire(PerRunTool.class, firstRun);
+        ToolInstances.Lease sameRun = instances.acquire(PerRunTool.class, firstRun);
+        ToolInstances.Lease otherRun = instances.acquire(PerRunTool.class, secondRun);
+        first.release();
+        sameRun.release();
+        otherRun.release();
+
+        assertSame(first.getInstance(), sameRun.getInstance());
+        assertNotSame(first.getInstance(), otherRun.getInstance());
+        // Only given back at the end of the run
+        assertTrue(provider.released.isEmpty());
+        firstRun.release();
+        secondRun.release();
+        assertEquals(provider.acquired, provider.released);
+    }
+
+    @Test
+    void reusesTheIdleInstancesOfThePooledScope() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.setDefaultProvider(provider);
+
+        ToolInstances.Lease first = instances.acquire(PooledTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease concurrent = instances.acquire(PooledTool.class, new ToolInstances.RunInstances());
+        first.release();
+        ToolInstances.Lease reused = instances.acquire(PooledTool.class, new ToolInstances.RunInstances());
+        concurrent.release();
+        reused.release();
+
+        assertNotSame(first.getInstance(), concurrent.getInstance());
+        assertSame(first.getInstance(), reused.getInstance());
+        assertEquals(2, provider.acquired.size());
+        assertTrue(provider.released.isEmpty());
+    }
+
+    @Test
+    void handsTheInstancesBackToTheReplacedProviderOnceIdle() throws Exception {
+        CountingProvider previous = new CountingProvider();
+        CountingProvider next = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.setDefaultProvider(previous);
+
+        ToolInstances.Lease singleton = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease borrowed = instances.acquire(PooledTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease idle = instances.acquire(PooledTool.class, new ToolInstances.RunInstances());
+        idle.release();
+
+        instances.setDefaultProvider(next);
+        // Only the idle pooled instance can be given back, the others are still used
+        assertEquals(List.of(idle.getInstance()), previous.released);
+
+        singleton.release();
+        borrowed.release();
+        assertEquals(List.of(idle.getInstance(), singleton.getInstance(), borrowed.getInstance()), previous.released);
+
+        ToolInstances.Lease replaced = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        replaced.release();
+        assertEquals(List.of(replaced.getInstance()), next.acquired);
+        assertEquals(3, previous.acquired.size());
+    }
+
+    @Test
+    void usesTheRegisteredProviderWhateverTheScope() throws Exception {
+        CountingProvider registered = new CountingProvider();
+        ToolInstances instances = new ToolInstances();
+        instances.register(SingletonTool.class, registered);
+
+        ToolInstances.Lease first = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        ToolInstances.Lease second = instances.acquire(SingletonTool.class, new ToolInstances.RunInstances());
+        first.release();
+        second.release();
+
+        assertNotSame(first.getInstance(), second.getInstance());
+        assertEquals(registered.acquired, registered.released);
+    }
+
+    private static final class CountingProvider implements ToolInstanceProvider {
+        private final List<Object> acquired = new CopyOnWriteArrayList<>();
+        private final List<Object> released = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object acquire(Class<?> toolClass) throws Exception {
+            Object instance = toolClass.getDeclaredConstructor().newInstance();
+            acquired.add(instance);
+            return instance;
+        }
+
+        @Override
+        public void release(Class<?> toolClass, Object instance) {
+            released.add(instance);
+        }
+    }
+
+    static class SingletonTool {
+    }
+
+    @ToolLifecycle(ToolScope.PER_CALL)
+    static class PerCallTool {
+    }
+
+    @ToolLifecycle(ToolScope.PER_RUN)
+    static class PerRunTool {
+    }
+
+    @ToolLifecycle(value = ToolScope.POOLED, maxPoolSize = 2)
+    static class PooledTool {
+    }
+}
@@ -0,0 +1,436 @@
+package io.github.lekan128.aiagent.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that builds the index of the tool methods (methods annotated with {@code @AiToolMethod})
+ * at compile time.
+ *
+ * <p>For every compilation it generates a single {@code ToolIndex} implementation containing:</p>
+ * <ul>
+ * <li>The JSON description of every tool, built from {@code @AiToolMethod}, {@code @ArgDesc} and
+ * {@code jakarta.annotation.Nullable} the same way the runtime does it through reflection.</li>
+ * <li>A direct-call dispatcher ({@code ToolInvoker}) for every tool that is accessible from the generated code.</li>
+ * <li>The names of the classes declaring the tools. Only these classes are covered by the index, the runtime still
+ * scans the other classes of the tools packages.</li>
+ * </ul>
+ * <p>The generated class is registered in {@code META-INF/services/io.github.lekan128.aiagent.api.tool.ToolIndex}
+ * so the {@code Agent} can load it through {@link java.util.ServiceLoader} instead of scanning the classpath.</p>
+ *
+ * <p>The generated class is named {@code AiAgentToolIndex} and placed in the package of the first tool class.
+ * The fully qualified name can be changed with the {@code -Aaiagent.toolIndexClass=com.example.MyToolIndex} compiler option.</p>
+ *
+ * @author Olalekan
+ * @since 1.1.0
+ */
+public class AiToolProcessor extends AbstractProcessor {
+    static final String AI_TOOL_METHOD = "io.github.lekan128.aiagent.api.annotation.AiToolMethod";
+    static final String ARG_DESC = "io.github.lekan128.aiagent.api.annotation.ArgDesc";
+    static final String NULLABLE = "jakarta.annotation.Nullable";
+    static final String TOOL_INDEX = "io.github.lekan128.aiagent.api.tool.ToolIndex";
+    static final String TOOL_INVOKER = "io.github.lekan128.aiagent.api.tool.ToolInvoker";
+    static final String TOOL_INDEX_CLASS_OPTION = "aiagent.toolIndexClass";
+    static final String DEFAULT_TOOL_INDEX_SIMPLE_NAME = "AiAgentToolIndex";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(AI_TOOL_METHOD);
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(TOOL_INDEX_CLASS_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement aiToolMethod = elements.getTypeElement(AI_TOOL_METHOD);
+        if (aiToolMethod == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        List<ExecutableElement> tools = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(aiToolMethod)) {
+            if (element.getKind() == ElementKind.METHOD) {
+                tools.add((ExecutableElement) element);
+            }
+        }
+        if (tools.isEmpty()) {
+            return false;
+        }
+        if (generated) {
+            // Tools coming from sources generated by other processors, the index has already been written
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "Tool found after the tool index was generated, it will only be available through classpath scanning", tools.get(0));
+            return false;
+        }
+
+        tools.sort(Comparator
+                .comparing((ExecutableElement m) -> binaryName(declaringType(m)))
+                .thenComparing(m -> m.getSimpleName().toString())
+                .thenComparing(m -> String.join(",", parameterTypeNames(m))));
+
+        String indexClassName = processingEnv.getOptions().get(TOOL_INDEX_CLASS_OPTION);
+        if (indexClassName == null || indexClassName.isBlank()) {
+            String packageName = elements.getPackageOf(declaringType(tools.get(0))).getQualifiedName().toString();
+            indexClassName = packageName.isEmpty() ? DEFAULT_TOOL_INDEX_SIMPLE_NAME : packageName + '.' + DEFAULT_TOOL_INDEX_SIMPLE_NAME;
+        }
+
+        try {
+            writeToolIndex(indexClassName, tools);
+            writeServiceFile(indexClassName);
+            generated = true;
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Unable to generate the tool index " + indexClassName + ": " + e);
+        }
+        return false;
+    }
+
+    private void writeToolIndex(String indexClassName, List<ExecutableElement> tools) throws IOException {
+        int lastDot = indexClassName.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : indexClassName.substring(0, lastDot);
+        String simpleName = indexClassName.substring(lastDot + 1);
+
+        StringBuilder catalog = new StringBuilder("[");
+        for (int i = 0; i < tools.size(); i++) {
+            if (i > 0) catalog.append(',');
+            describeTool(tools.get(i), catalog);
+        }
+        catalog.append(']');
+
+        Set<String> coveredClassNames = new TreeSet<>();
+        for (ExecutableElement tool : tools) {
+            coveredClassNames.add(binaryName(declaringType(tool)));
+        }
+        StringBuilder covered = new StringBuilder();
+        for (String className : coveredClassNames) {
+            if (covered.length() > 0) covered.append(", ");
+            covered.append(javaString(className));
+        }
+
+        Element[] originatingElements = tools.toArray(new Element[0]);
+        JavaFileObject sourceFile = filer.createSourceFile(indexClassName, originatingElements);
+        try (Writer writer = sourceFile.openWriter()) {
+            StringBuilder source = new StringBuilder();
+            if (!packageName.isEmpty()) {
+                source.append("package ").append(packageName).append(";\n\n");
+            }
+            source.append("@javax.annotation.processing.Generated(\"").append(AiToolProcessor.class.getName()).append("\")\n")
+                    .append("public final class ").append(simpleName).append(" implements ").append(TOOL_INDEX).append(" {\n")
+                    .append("    private static final String CATALOG_JSON = ").append(javaString(catalog.toString())).append(";\n\n")
+                    .append("    private static final java.util.Set<String> COVERED_CLASS_NAMES = java.util.Set.of(").append(covered).append(");\n\n")
+                    .append("    private static final java.util.Map<String, ").append(TOOL_INVOKER).append("> INVOKERS = createInvokers();\n\n")
+                    .append("    @Override\n")
+                    .append("    public String getCatalogJson() {\n")
+                    .append("        return CATALOG_JSON;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public java.util.Set<String> getCoveredClassNames() {\n")
+                    .append("        return COVERED_CLASS_NAMES;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public java.util.Map<String, ").append(TOOL_INVOKER).append("> getInvokers() {\n")
+                    .append("        return INVOKERS;\n")
+                    .append("    }\n\n")
+                    .append("    private static java.util.Map<String, ").append(TOOL_INVOKER).append("> createInvokers() {\n")
+                    .append("        java.util.Map<String, ").append(TOOL_INVOKER).append("> invokers = new java.util.HashMap<>();\n");
+            for (ExecutableElement tool : tools) {
+                if (isDirectlyCallable(tool)) {
+                    writeInvoker(tool, source);
+                }
+            }
+            source.append("        return java.util.Collections.unmodifiableMap(invokers);\n")
+                    .append("    }\n")
+                    .append("}\n");
+            writer.write(source.toString());
+        }
+    }
+
+    private void writeInvoker(ExecutableElement tool, StringBuilder source) {
+        TypeElement declaringType = declaringType(tool);
+        String key = binaryName(declaringType) + '#' + tool.getSimpleName() + '(' + String.join(",", parameterTypeNames(tool)) + ')';
+
+        StringBuilder call = new StringBuilder();
+        if (tool.getModifiers().contains(Modifier.STATIC)) {
+            call.append(canonicalName(declaringType.asType()));
+        } else {
+            call.append("((").append(canonicalName(declaringType.asType())).append(") instance)");
+        }
+        call.append('.').append(tool.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = tool.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) call.append(", ");
+            call.append('(').append(canonicalName(parameters.get(i).asType())).append(") args[").append(i).append(']');
+        }
+        call.append(')');
+
+        source.append("        invokers.put(").append(javaString(key)).append(", (instance, args) -> ");
+        if (tool.getReturnType().getKind() == TypeKind.VOID) {
+            source.append("{\n            ").append(call).append(";\n            return null;\n        });\n");
+        } else {
+            source.append(call).append(");\n");
+        }
+    }
+
+    /**
+     * Mirrors {@code MethodDescriptor#describeMethod} so the catalog is the same whether it is built at runtime or here.
+     */
+    private void describeTool(ExecutableElement tool, StringBuilder json) {
+        json.append("{\"description\":").append(jsonString(annotationValue(tool, AI_TOOL_METHOD)))
+                .append(",\"className\":").append(jsonString(binaryName(declaringType(tool))))
+                .append(",\"methodName\":").append(jsonString(tool.getSimpleName().toString()))
+                .append(",\"methodArguments\":[");
+
+        List<? extends VariableElement> parameters = tool.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            TypeMirror type = parameter.asType();
+            String typeName = typeName(type);
+            if (annotationValue(parameter, ARG_DESC) == null) {
+                messager.printMessage(Diagnostic.Kind.WARNING,
+                        "Parameter " + parameter.getSimpleName() + " of tool " + tool.getSimpleName() + " is not annotated with @ArgDesc", parameter);
+            }
+
+            if (i > 0) json.append(',');
+            json.append("{\"name\":").append(jsonString(parameter.getSimpleName().toString()))
+                    .append(",\"description\":").append(jsonString(annotationValue(parameter, ARG_DESC)))
+                    .append(",\"type\":").append(jsonString(typeName))
+                    .append(",\"required\":").append(!hasAnnotation(parameter, NULLABLE))
+                    .append(",\"fields\":{");
+            if (!type.getKind().isPrimitive() && !typeName.startsWith("java.")) {
+                json.append("\"fields\":");
+                describeFields(type, json);
+            }
+            json.append("}}");
+        }
+
+        json.append("],\"returnType\":").append(jsonString(typeName(tool.getReturnType()))).append('}');
+    }
+
+    private void describeFields(TypeMirror type, StringBuilder json) {
+        json.append('{');
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+            boolean first = true;
+            for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+                if (!first) json.append(',');
+                first = false;
+                json.append(jsonString(field.getSimpleName().toString()))
+                        .append(":{\"type\":").append(jsonString(typeName(field.asType())))
+                        .append(",\"required\":").append(!hasAnnotation(field, NULLABLE)).append('}');
+            }
+        }
+        json.append('}');
+    }
+
+    private void writeServiceFile(String indexClassName) throws IOException {
+        FileObject serviceFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + TOOL_INDEX);
+        try (Writer writer = serviceFile.openWriter()) {
+            writer.write(indexClassName);
+            writer.write('\n');
+        }
+    }
+
+    private boolean isDirectlyCallable(ExecutableElement tool) {
+        if (!tool.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        for (TypeMirror thrownType : tool.getThrownTypes()) {
+            // ToolInvoker#invoke can only rethrow Exceptions
+            if (!types.isAssignable(thrownType, elements.getTypeElement("java.lang.Exception").asType())
+                    && !types.isAssignable(thrownType, elements.getTypeElement("java.lang.Error").asType())) {
+                return false;
+            }
+        }
+        TypeElement type = declaringType(tool);
+        while (type != null) {
+            if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            if (type.getNestingKind() == NestingKind.TOP_LEVEL) {
+                return true;
+            }
+            if (!type.getModifiers().contains(Modifier.STATIC) && type.getKind() == ElementKind.CLASS) {
+                return false;
+            }
+            Element enclosing = type.getEnclosingElement();
+            type = enclosing instanceof TypeElement ? (TypeElement) enclosing : null;
+        }
+        return false;
+    }
+
+    private List<String> parameterTypeNames(ExecutableElement method) {
+        List<String> names = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            names.add(typeName(parameter.asType()));
+        }
+        return names;
+    }
+
+    /**
+     * The name of the erased type as returned by {@link Class#getName()}.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        switch (erased.getKind()) {
+            case BOOLEAN: return "boolean";
+            case BYTE: return "byte";
+            case SHORT: return "short";
+            case INT: return "int";
+            case LONG: return "long";
+            case CHAR: return "char";
+            case FLOAT: return "float";
+            case DOUBLE: return "double";
+            case VOID: return "void";
+            case ARRAY: return arrayDescriptor(erased).replace('/', '.');
+            case DECLARED: return binaryName((TypeElement) ((DeclaredType) erased).asElement());
+            default: return erased.toString();
+        }
+    }
+
+    private String arrayDescriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case CHAR: return "C";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case ARRAY: return "[" + arrayDescriptor(((ArrayType) type).getComponentType());
+            default: return "L" + typeName(type) + ";";
+        }
+    }
+
+    private String canonicalName(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private String binaryName(TypeElement type) {
+        return elements.getBinaryName(type).toString();
+    }
+
+    private static TypeElement declaringType(ExecutableElement method) {
+        return (TypeElement) method.getEnclosingElement();
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String annotationValue(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return String.valueOf(entry.getValue().getValue());
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String jsonString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder escaped = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    private static String javaString(String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.append('"').toString();
+    }
+}